@@ -34,7 +34,52 @@ CREATE TABLE total_by_day (
   death INT,
   recovered INT,
   date_by_day DATE,
+  -- Écarts quotidiens calculés en fin d'ingestion (NULL : en attente de calcul)
+  new_cases INT,
+  new_deaths INT,
+  new_recovered INT,
   PRIMARY KEY (id_pandemics, id_regions, date_by_day),
   FOREIGN KEY (id_pandemics) REFERENCES pandemics(id_pandemics),
   FOREIGN KEY (id_regions) REFERENCES regions(id_regions)
-);
\ No newline at end of file
+);
+
+-- Création de la table de synthèse continent × pandémie (recalculée en fin d'ingestion)
+CREATE TABLE continent_pandemic_summary (
+  id_pandemics INT,
+  id_continents INT,
+  continent_name VARCHAR(255),
+  latest_cases BIGINT NOT NULL,
+  latest_deaths BIGINT NOT NULL,
+  latest_recovered BIGINT NOT NULL,
+  affected_regions BIGINT NOT NULL,
+  cumulated_cases BIGINT NOT NULL,
+  cumulated_deaths BIGINT NOT NULL,
+  last_date DATE,
+  updated_at DATETIME(6),
+  PRIMARY KEY (id_pandemics, id_continents),
+  FOREIGN KEY (id_pandemics) REFERENCES pandemics(id_pandemics),
+  FOREIGN KEY (id_continents) REFERENCES continents(id_continents)
+);
+
+-- Création de la table des points de reprise de l'ingestion par chunks
+CREATE TABLE ingest_checkpoint (
+  source_path VARCHAR(500) PRIMARY KEY,
+  name VARCHAR(50),
+  source_size BIGINT NOT NULL,
+  source_last_modified BIGINT NOT NULL,
+  source_sha256 VARCHAR(64) NOT NULL,
+  rows_processed BIGINT NOT NULL,
+  rows_written BIGINT NOT NULL,
+  chunk_count INT NOT NULL,
+  status VARCHAR(20) NOT NULL,
+  updated_at DATETIME(6)
+);
+
+-- Création de la table des empreintes des fichiers ingérés
+CREATE TABLE ingest_file_fingerprint (
+  path VARCHAR(500) PRIMARY KEY,
+  size BIGINT NOT NULL,
+  last_modified BIGINT NOT NULL,
+  sha256 VARCHAR(64) NOT NULL,
+  loaded_at DATETIME(6)
+);
@@ -1,72 +1,336 @@
 package fr.epsib3devc2.backend;
 
+import fr.epsib3devc2.backend.batch.IngestJobLauncher;
+import fr.epsib3devc2.backend.config.IngestProperties;
 import fr.epsib3devc2.backend.dto.CovidDto;
 import fr.epsib3devc2.backend.dto.CovidDailyDto;
 import fr.epsib3devc2.backend.dto.SarsDto;
 import fr.epsib3devc2.backend.repositories.*;
+import fr.epsib3devc2.backend.services.ContinentSummaryService;
 import fr.epsib3devc2.backend.services.DataInsertionService;
+import fr.epsib3devc2.backend.services.DataNormalizationService;
+import fr.epsib3devc2.backend.services.DropDirectoryWatcher;
+import fr.epsib3devc2.backend.services.IngestFingerprintService;
+import fr.epsib3devc2.backend.services.IngestPipeline;
+import fr.epsib3devc2.backend.services.PandemicIngestLocks;
 import fr.epsib3devc2.backend.services.ReadToCsv;
+import fr.epsib3devc2.backend.services.ReferenceDataResolver;
+import fr.epsib3devc2.backend.services.ShadowTableReload;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.JobExecution;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.ExitCodeGenerator;
 import org.springframework.boot.SpringApplication;
+import org.springframework.boot.WebApplicationType;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.event.ApplicationEnvironmentPreparedEvent;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.core.env.ConfigurableEnvironment;
+import org.springframework.core.env.MapPropertySource;
 
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
 
 @SpringBootApplication
-public class SpringBatchApplication implements CommandLineRunner {
+public class SpringBatchApplication implements CommandLineRunner, ExitCodeGenerator {
+
+    // Services d'ingestion injectés en @Lazy : en mode serve, ils ne sont jamais instanciés
 
     @Autowired
+    @Lazy
     private DataInsertionService dataInsertionService;
 
     @Autowired
+    @Lazy
     private ReadToCsv readToCsv;
 
+    @Autowired
+    private IngestProperties ingestProperties;
+
+    @Autowired
+    @Lazy
+    private IngestJobLauncher ingestJobLauncher;
+
+    @Autowired
+    @Lazy
+    private IngestPipeline ingestPipeline;
+
+    @Autowired
+    @Lazy
+    private IngestFingerprintService ingestFingerprintService;
+
+    @Autowired
+    @Lazy
+    private ShadowTableReload shadowTableReload;
+
+    @Autowired
+    @Lazy
+    private ReferenceDataResolver referenceDataResolver;
+
+    @Autowired
+    @Lazy
+    private ContinentSummaryService continentSummaryService;
+
+    @Autowired
+    @Lazy
+    private PandemicIngestLocks pandemicIngestLocks;
+
+    @Autowired
+    @Lazy
+    private DropDirectoryWatcher dropDirectoryWatcher;
+
+    // Code de sortie du mode ingest : 0 si l'ingestion a réussi
+    private volatile int exitCode = 0;
+
     public static void main(String[] args) {
-        SpringApplication.run(SpringBatchApplication.class, args);
+        IngestProperties.RuntimeMode mode = IngestProperties.RuntimeMode.fromArgs(args);
+
+        SpringApplication application = new SpringApplication(SpringBatchApplication.class);
+        // Le job d'ingestion est lancé par run() selon ingest.engine, pas automatiquement par Spring Batch
+        application.setDefaultProperties(Map.of(
+                "spring.batch.job.enabled", "false",
+                // Fichiers déposés par /api/ingest/uploads : limite ingest.upload-max-size, corps multipart
+                // analysé seulement par les endpoints qui lisent un fichier (les autres ne l'écrivent pas sur disque)
+                "spring.servlet.multipart.max-file-size", "${ingest.upload-max-size:2GB}",
+                "spring.servlet.multipart.max-request-size", "${ingest.upload-max-size:2GB}",
+                "spring.servlet.multipart.resolve-lazily", "true",
+                "ingest.mode", mode.name()));
+
+        // Tables BATCH_* créées seulement si le job Spring Batch peut s'exécuter (moteur batch, hors mode serve) ;
+        // une valeur de spring.batch.jdbc.initialize-schema fournie par la configuration reste prioritaire
+        application.addListeners((ApplicationListener<ApplicationEnvironmentPreparedEvent>) event -> {
+            ConfigurableEnvironment environment = event.getEnvironment();
+            IngestProperties.Engine engine = Binder.get(environment)
+                    .bind("ingest.engine", IngestProperties.Engine.class)
+                    .orElse(IngestProperties.Engine.LEGACY);
+            if (engine == IngestProperties.Engine.BATCH && mode != IngestProperties.RuntimeMode.SERVE) {
+                environment.getPropertySources().addLast(new MapPropertySource("ingestBatchSchema",
+                        Map.of("spring.batch.jdbc.initialize-schema", "always")));
+            }
+        });
+
+        switch (mode) {
+            // Ingestion seule : pas de Tomcat, le processus se termine avec le code de sortie de l'ingestion
+            case INGEST -> application.setWebApplicationType(WebApplicationType.NONE);
+            // API seule : aucun fichier CSV lu, beans créés à la première utilisation
+            case SERVE -> application.setLazyInitialization(true);
+            default -> {
+            }
+        }
+
+        ConfigurableApplicationContext context = application.run(args);
+        if (mode == IngestProperties.RuntimeMode.INGEST) {
+            System.exit(SpringApplication.exit(context));
+        }
+    }
+
+    @Override
+    public int getExitCode() {
+        return exitCode;
     }
 
     @Override
     public void run(String... args) throws Exception {
+        if (ingestProperties.getMode() == IngestProperties.RuntimeMode.SERVE) {
+            System.out.println("Mode serve: ingestion désactivée.");
+            return;
+        }
+
+        ingest(args);
+
+        // Synthèse par continent des pandémies ingérées avant son existence : construite ici, pas par l'API
+        if (exitCode == 0) {
+            continentSummaryService.ensureBuilt();
+        }
+
+        // Ingestion continue des fichiers déposés, une fois l'ingestion de démarrage terminée
+        if (ingestProperties.getMode() == IngestProperties.RuntimeMode.ALL && ingestProperties.getWatchDir() != null) {
+            dropDirectoryWatcher.start();
+        }
+    }
+
+    private void ingest(String... args) {
         try {
             System.out.println("===== DÉMARRAGE DU TRAITEMENT DES DONNÉES =====");
-    
-            // 1. Extraction des données des fichiers CSV
-            List<SarsDto> sarsData = null;
-            List<CovidDto> covidData = null;
-            List<CovidDailyDto> covidDailyData = null;
-            
-            try {
-                sarsData = readToCsv.readSarsData("src/Data/sars_2003_complete_dataset_clean.csv");
-                covidData = readToCsv.readCovidData("src/Data/worldometer_coronavirus_summary_data.csv");
-                covidDailyData = readToCsv.readCovidDailyData("src/Data/worldometer_coronavirus_daily_data.csv");
-            } catch (Exception e) {
-                System.err.println("Erreur lors de la lecture des fichiers CSV: " + e.getMessage());
+
+            // Le job batch écrit directement dans total_by_day : la combinaison est refusée plutôt qu'ignorée
+            if (ingestProperties.isShadowReload() && ingestProperties.getEngine() == IngestProperties.Engine.BATCH) {
+                System.err.println("Erreur: ingest.shadow-reload n'est pas pris en charge par le moteur batch "
+                        + "(ingest.engine=legacy ou pipeline), aucune donnée ingérée.");
+                exitCode = 1;
+                return;
             }
+
+            List<String> inputFiles = List.of(ingestProperties.getSummaryFile(),
+                    ingestProperties.getSarsFile(), ingestProperties.getDailyFile());
+            boolean forceReload = ingestProperties.isForceReload() || Arrays.asList(args).contains("--force-reload");
+            if (!forceReload && ingestFingerprintService.isUnchanged(inputFiles)) {
+                System.out.println("Fichiers inchangés depuis la dernière ingestion, traitement ignoré (--force-reload pour forcer).");
+                return;
+            }
+
+            // Données de référence relues en base : le cache peut dater d'une ingestion précédente
+            referenceDataResolver.invalidate();
+
+            if (ingestProperties.getEngine() == IngestProperties.Engine.BATCH) {
+                JobExecution execution = ingestJobLauncher.launch();
+                if (execution.getStatus() == BatchStatus.COMPLETED) {
+                    ingestFingerprintService.record(inputFiles);
+                } else {
+                    exitCode = 1;
+                }
+                System.out.println("===== TRAITEMENT DES DONNÉES TERMINÉ =====");
+                return;
+            }
+
+            AtomicBoolean ingestFailed = new AtomicBoolean(false);
+            // Lignes non écrites (lot, partition ou chargement refusé par la base) : données incomplètes,
+            // les empreintes ne sont pas enregistrées pour que le prochain démarrage reprenne les fichiers
+            AtomicBoolean writeFailed = new AtomicBoolean(false);
     
-            // 2. Extraire les associations pays-continent
-            dataInsertionService.extractContinentData(covidData);
-            
-            // 3. Créer les continents
-            dataInsertionService.createContinents(covidData);
-            
-            // 4. Initialisation des pandémies
-            dataInsertionService.initializeDatabase();
-    
-            // 5. Préparation des régions avec les associations continent
-            dataInsertionService.prepareRegions(sarsData, covidData, covidDailyData);
-    
-            // 6. Insertion des données
-            dataInsertionService.insertSarsData(sarsData);
-            dataInsertionService.insertCovidDailyData(covidDailyData);
+            // Les trois fichiers sont lus en parallèle sur des threads virtuels ; seules les insertions
+            // quotidiennes attendent les données de référence issues du fichier de synthèse
+            try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+                CompletableFuture<Void> referenceData = CompletableFuture
+                        .supplyAsync(this::readSummaryData, executor)
+                        .thenAccept(covidData -> {
+                            // Fichier de synthèse illisible : les données de référence sont incomplètes
+                            if (covidData == null) {
+                                writeFailed.set(true);
+                            }
+                            prepareReferenceData(covidData);
+                        });
+
+                CompletableFuture<Void> sarsIngest = CompletableFuture.runAsync(() -> {
+                    // 6. Insertion des données quotidiennes, lues en flux sans charger les fichiers en mémoire
+                    ReentrantLock lock = pandemicIngestLocks.forPandemic(DataNormalizationService.PANDEMIC_SARS);
+                    try (Stream<SarsDto> sarsData = readToCsv.streamSarsData(ingestProperties.getSarsFile())) {
+                        referenceData.join();
+                        lock.lock();
+                        try {
+                            long failed = isPipelineEngine()
+                                    ? ingestPipeline.ingestSars(sarsData)
+                                    : dataInsertionService.insertSarsData(sarsData, ingestProperties.getSarsFile());
+                            if (failed > 0) {
+                                writeFailed.set(true);
+                            }
+                        } finally {
+                            lock.unlock();
+                        }
+                    } catch (Exception e) {
+                        System.err.println("Erreur lors de l'ingestion des données SARS: " + e.getMessage());
+                        ingestFailed.set(true);
+                    }
+                }, executor);
+
+                CompletableFuture<Void> covidDailyIngest = CompletableFuture.runAsync(() -> {
+                    ReentrantLock lock = pandemicIngestLocks.forPandemic(DataNormalizationService.PANDEMIC_COVID);
+                    try (Stream<CovidDailyDto> covidDailyData = readToCsv.streamCovidDailyData(ingestProperties.getDailyFile())) {
+                        referenceData.join();
+                        lock.lock();
+                        try {
+                            long failed = isPipelineEngine()
+                                    ? ingestPipeline.ingestCovidDaily(covidDailyData)
+                                    : dataInsertionService.insertCovidDailyData(covidDailyData, ingestProperties.getDailyFile());
+                            if (failed > 0) {
+                                writeFailed.set(true);
+                            }
+                        } finally {
+                            lock.unlock();
+                        }
+                    } catch (Exception e) {
+                        System.err.println("Erreur lors de l'ingestion des données COVID quotidiennes: " + e.getMessage());
+                        ingestFailed.set(true);
+                    }
+                }, executor);
+
+                CompletableFuture.allOf(referenceData, sarsIngest, covidDailyIngest).join();
+            }
+
+            // Rechargement par table fantôme : mise en service si les deux fichiers ont été chargés
+            if (shadowTableReload.isActive()) {
+                if (ingestFailed.get()) {
+                    System.err.println("Ingestion en échec, table fantôme abandonnée: les données en service sont conservées.");
+                    shadowTableReload.abort();
+                } else if (!shadowTableReload.swap()) {
+                    ingestFailed.set(true);
+                } else {
+                    // Nouvelles données en service : le cache est relu pour les ingestions suivantes (dépôts, API)
+                    referenceDataResolver.invalidate();
+                    // Synthèse par continent reportée pendant le chargement de la table fantôme
+                    continentSummaryService.refreshAll();
+                }
+            }
             
             // 7. Création des pays pour le front-end
             dataInsertionService.createCountriesWithContinents();
+
+            // 8. Empreintes des fichiers, pour ignorer l'ingestion au prochain démarrage s'ils n'ont pas changé
+            if (ingestFailed.get()) {
+                exitCode = 1;
+            } else if (writeFailed.get()) {
+                System.err.println("Données incomplètes (fichier de synthèse illisible ou lignes non écrites): "
+                        + "les fichiers seront réingérés au prochain démarrage.");
+            } else {
+                ingestFingerprintService.record(inputFiles);
+            }
     
             System.out.println("===== TRAITEMENT DES DONNÉES TERMINÉ =====");
         } catch (Exception e) {
             System.err.println("Erreur générale: " + e.getMessage());
             e.printStackTrace();
+            exitCode = 1;
+        }
+    }
+
+    private boolean isPipelineEngine() {
+        return ingestProperties.getEngine() == IngestProperties.Engine.PIPELINE;
+    }
+
+    /**
+     * 1. Extraction du fichier de synthèse COVID (quelques centaines de lignes, conservé en mémoire)
+     */
+    private List<CovidDto> readSummaryData() {
+        try {
+            return readToCsv.readCovidData(ingestProperties.getSummaryFile());
+        } catch (Exception e) {
+            System.err.println("Erreur lors de la lecture du fichier de synthèse COVID: " + e.getMessage());
+            return null;
+        }
+    }
+
+    private void prepareReferenceData(List<CovidDto> covidData) {
+        // 2. Extraire les associations pays-continent
+        dataInsertionService.extractContinentData(covidData);
+
+        // 3. Créer les continents
+        dataInsertionService.createContinents(covidData);
+
+        // 4. Initialisation des pandémies
+        dataInsertionService.initializeDatabase();
+
+        // 5. Préparation des régions avec les associations continent
+        // (les pays présents uniquement dans les fichiers quotidiens sont créés pendant l'insertion)
+        dataInsertionService.prepareRegions(null, covidData, null);
+
+        // Rechargement complet dans une table fantôme (sans objet en mode incrémental, qui complète la table en service)
+        if (ingestProperties.isShadowReload()) {
+            if (ingestProperties.isIncremental()) {
+                System.out.println("Attention: ingest.shadow-reload ignoré en mode incrémental.");
+            } else {
+                shadowTableReload.begin();
+            }
         }
     }
-}
\ No newline at end of file
+}
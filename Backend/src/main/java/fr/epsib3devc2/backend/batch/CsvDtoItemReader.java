@@ -0,0 +1,49 @@
+package fr.epsib3devc2.backend.batch;
+
+import org.springframework.batch.item.support.AbstractItemCountingItemStreamItemReader;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Lecteur Spring Batch au-dessus des flux de ReadToCsv. Le nombre de lignes lues est
+ * enregistré dans le contexte d'exécution à chaque chunk validé : en cas de reprise,
+ * les lignes déjà écrites sont sautées au lieu d'être réinsérées.
+ */
+public class CsvDtoItemReader<T> extends AbstractItemCountingItemStreamItemReader<T> {
+
+    @FunctionalInterface
+    public interface StreamOpener<T> {
+        Stream<T> open() throws IOException;
+    }
+
+    private final StreamOpener<T> opener;
+    private Stream<T> stream;
+    private Iterator<T> iterator;
+
+    public CsvDtoItemReader(String name, StreamOpener<T> opener) {
+        this.opener = opener;
+        setName(name);
+    }
+
+    @Override
+    protected void doOpen() throws Exception {
+        stream = opener.open();
+        iterator = stream.iterator();
+    }
+
+    @Override
+    protected T doRead() {
+        return iterator.hasNext() ? iterator.next() : null;
+    }
+
+    @Override
+    protected void doClose() {
+        if (stream != null) {
+            stream.close();
+            stream = null;
+            iterator = null;
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package fr.epsib3devc2.backend.batch;
+
+import fr.epsib3devc2.backend.config.IngestProperties;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.ExitStatus;
+import org.springframework.batch.core.Job;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobInstance;
+import org.springframework.batch.core.JobParameters;
+import org.springframework.batch.core.JobParametersBuilder;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.explore.JobExplorer;
+import org.springframework.batch.core.launch.JobLauncher;
+import org.springframework.batch.core.repository.JobRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+/**
+ * Lancement du job d'ingestion : reprend la dernière exécution interrompue
+ * (échec, arrêt ou crash de la JVM) si elle portait sur les mêmes fichiers,
+ * sinon démarre une nouvelle instance.
+ */
+@Service
+public class IngestJobLauncher {
+
+    @Autowired
+    private JobLauncher jobLauncher;
+
+    @Autowired
+    private JobExplorer jobExplorer;
+
+    @Autowired
+    private JobRepository jobRepository;
+
+    @Autowired
+    private Job pandemicIngestJob;
+
+    @Autowired
+    private IngestProperties ingestProperties;
+
+    public JobExecution launch() throws Exception {
+        JobParameters parameters = restartableParameters();
+        if (parameters != null) {
+            System.out.println("Reprise du job d'ingestion interrompu avec les paramètres: " + parameters);
+        } else {
+            parameters = new JobParametersBuilder()
+                    .addString("summaryFile", ingestProperties.getSummaryFile())
+                    .addString("sarsFile", ingestProperties.getSarsFile())
+                    .addString("dailyFile", ingestProperties.getDailyFile())
+                    .addLong("run.id", System.currentTimeMillis())
+                    .toJobParameters();
+        }
+
+        JobExecution execution = jobLauncher.run(pandemicIngestJob, parameters);
+        System.out.println("Job d'ingestion terminé avec le statut " + execution.getStatus());
+        for (StepExecution step : execution.getStepExecutions()) {
+            System.out.println("  " + step.getStepName() + ": lues=" + step.getReadCount()
+                    + ", écrites=" + step.getWriteCount() + ", ignorées=" + step.getSkipCount()
+                    + ", commits=" + step.getCommitCount());
+        }
+        return execution;
+    }
+
+    /**
+     * Paramètres de la dernière exécution à reprendre, null s'il faut démarrer une nouvelle instance
+     */
+    private JobParameters restartableParameters() {
+        JobInstance instance = jobExplorer.getLastJobInstance(PandemicIngestJobConfig.JOB_NAME);
+        if (instance == null) {
+            return null;
+        }
+        JobExecution last = jobExplorer.getLastJobExecution(instance);
+        if (last == null || !sameFiles(last.getJobParameters())) {
+            return null;
+        }
+
+        BatchStatus status = last.getStatus();
+        if (status.isRunning()) {
+            // Au démarrage de l'application, une exécution "en cours" provient forcément d'un arrêt brutal
+            markAsFailed(last);
+            return last.getJobParameters();
+        }
+        return status == BatchStatus.FAILED || status == BatchStatus.STOPPED ? last.getJobParameters() : null;
+    }
+
+    private boolean sameFiles(JobParameters parameters) {
+        return Objects.equals(parameters.getString("summaryFile"), ingestProperties.getSummaryFile())
+                && Objects.equals(parameters.getString("sarsFile"), ingestProperties.getSarsFile())
+                && Objects.equals(parameters.getString("dailyFile"), ingestProperties.getDailyFile());
+    }
+
+    private void markAsFailed(JobExecution execution) {
+        LocalDateTime now = LocalDateTime.now();
+        for (StepExecution step : execution.getStepExecutions()) {
+            if (step.getStatus().isRunning()) {
+                step.setStatus(BatchStatus.FAILED);
+                step.setExitStatus(ExitStatus.FAILED);
+                step.setEndTime(now);
+                jobRepository.update(step);
+            }
+        }
+        execution.setStatus(BatchStatus.FAILED);
+        execution.setExitStatus(ExitStatus.FAILED.addExitDescription("Exécution interrompue (arrêt de l'application)"));
+        execution.setEndTime(now);
+        jobRepository.update(execution);
+    }
+}
@@ -0,0 +1,41 @@
+package fr.epsib3devc2.backend.batch;
+
+import com.opencsv.exceptions.CsvException;
+import org.springframework.batch.core.step.skip.SkipLimitExceededException;
+import org.springframework.batch.core.step.skip.SkipPolicy;
+import org.springframework.dao.DataIntegrityViolationException;
+
+/**
+ * Ignore les lignes invalides (parsing, ligne incomplète, contrainte violée) dans la limite
+ * de skipLimit par étape ; les autres erreurs font échouer le job pour permettre une reprise.
+ */
+public class IngestSkipPolicy implements SkipPolicy {
+
+    private final long skipLimit;
+
+    public IngestSkipPolicy(long skipLimit) {
+        this.skipLimit = skipLimit;
+    }
+
+    @Override
+    public boolean shouldSkip(Throwable t, long skipCount) throws SkipLimitExceededException {
+        if (!isBadRow(t)) {
+            return false;
+        }
+        if (skipCount >= skipLimit) {
+            throw new SkipLimitExceededException(skipLimit, t);
+        }
+        return true;
+    }
+
+    private static boolean isBadRow(Throwable t) {
+        for (Throwable cause = t; cause != null; cause = cause.getCause()) {
+            if (cause instanceof IllegalArgumentException
+                    || cause instanceof CsvException
+                    || cause instanceof DataIntegrityViolationException) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,256 @@
+package fr.epsib3devc2.backend.batch;
+
+import fr.epsib3devc2.backend.bo.Pandemics;
+import fr.epsib3devc2.backend.config.IngestProperties;
+import fr.epsib3devc2.backend.dto.CovidDailyDto;
+import fr.epsib3devc2.backend.dto.CovidDto;
+import fr.epsib3devc2.backend.dto.SarsDto;
+import fr.epsib3devc2.backend.dto.TotalByDayRow;
+import fr.epsib3devc2.backend.services.DataInsertionService;
+import fr.epsib3devc2.backend.services.ContinentSummaryService;
+import fr.epsib3devc2.backend.services.DailyDeltaService;
+import fr.epsib3devc2.backend.services.DataNormalizationService;
+import fr.epsib3devc2.backend.services.DeadLetterWriter;
+import fr.epsib3devc2.backend.services.IncrementalIngestFilter;
+import fr.epsib3devc2.backend.services.ReadToCsv;
+import fr.epsib3devc2.backend.services.ReferenceDataResolver;
+import fr.epsib3devc2.backend.services.TotalByDayBatchWriter;
+import org.springframework.batch.core.Job;
+import org.springframework.batch.core.Step;
+import org.springframework.batch.core.configuration.annotation.StepScope;
+import org.springframework.batch.core.job.builder.FlowBuilder;
+import org.springframework.batch.core.job.builder.JobBuilder;
+import org.springframework.batch.core.job.flow.Flow;
+import org.springframework.batch.core.repository.JobRepository;
+import org.springframework.batch.core.step.builder.StepBuilder;
+import org.springframework.batch.core.step.tasklet.Tasklet;
+import org.springframework.batch.item.ItemWriter;
+import org.springframework.batch.repeat.RepeatStatus;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Job Spring Batch d'ingestion des fichiers de pandémies :
+ * données de référence -> (SARS || COVID quotidien) -> pays.
+ * Les étapes d'insertion sont découpées en chunks (ingest.batch-size) validés un par un ;
+ * le dépôt de jobs en base permet de reprendre un job en échec au dernier chunk validé.
+ */
+@Configuration
+public class PandemicIngestJobConfig {
+
+    public static final String JOB_NAME = "pandemicIngestJob";
+
+    @Autowired
+    private DataInsertionService dataInsertionService;
+
+    @Autowired
+    private ReadToCsv readToCsv;
+
+    @Autowired
+    private TotalByDayBatchWriter totalByDayBatchWriter;
+
+    @Autowired
+    private ReferenceDataResolver referenceDataResolver;
+
+    @Autowired
+    private IncrementalIngestFilter incrementalIngestFilter;
+
+    @Autowired
+    private DeadLetterWriter deadLetterWriter;
+
+    @Autowired
+    private DailyDeltaService dailyDeltaService;
+
+    @Autowired
+    private ContinentSummaryService continentSummaryService;
+
+    @Autowired
+    private IngestProperties ingestProperties;
+
+    @Bean
+    public Job pandemicIngestJob(JobRepository jobRepository, PlatformTransactionManager transactionManager) {
+        // Les deux fichiers quotidiens sont insérés en parallèle, une fois les données de référence prêtes
+        Flow sarsFlow = new FlowBuilder<Flow>("sarsFlow")
+                .start(insertSarsStep(jobRepository, transactionManager))
+                .build();
+        Flow covidDailyFlow = new FlowBuilder<Flow>("covidDailyFlow")
+                .start(insertCovidDailyStep(jobRepository, transactionManager))
+                .build();
+
+        return new JobBuilder(JOB_NAME, jobRepository)
+                .start(referenceDataStep(jobRepository, transactionManager))
+                .split(splitTaskExecutor())
+                .add(sarsFlow, covidDailyFlow)
+                .next(dailyDeltasStep(jobRepository, transactionManager))
+                .next(continentSummaryStep(jobRepository, transactionManager))
+                .next(createCountriesStep(jobRepository, transactionManager))
+                .end()
+                .build();
+    }
+
+    private TaskExecutor splitTaskExecutor() {
+        SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("ingest-");
+        executor.setVirtualThreads(true);
+        return executor;
+    }
+
+    /**
+     * Continents, pandémies et régions à partir du fichier de synthèse (lu une seule fois).
+     * Étape rejouée à chaque reprise : elle alimente les caches (pays-continent, données de référence)
+     * utilisés par les étapes suivantes.
+     */
+    @Bean
+    public Step referenceDataStep(JobRepository jobRepository, PlatformTransactionManager transactionManager) {
+        return new StepBuilder("referenceDataStep", jobRepository)
+                .tasklet(referenceDataTasklet(null), transactionManager)
+                .allowStartIfComplete(true)
+                .build();
+    }
+
+    @Bean
+    public Step insertSarsStep(JobRepository jobRepository, PlatformTransactionManager transactionManager) {
+        return new StepBuilder("insertSarsStep", jobRepository)
+                .<SarsDto, TotalByDayRow>chunk(ingestProperties.getBatchSize(), transactionManager)
+                .reader(sarsItemReader(null))
+                .processor(sarsItemProcessor())
+                .writer(sarsItemWriter())
+                .faultTolerant()
+                .skipPolicy(new IngestSkipPolicy(ingestProperties.getSkipLimit()))
+                .retry(TransientDataAccessException.class)
+                .retryLimit(ingestProperties.getRetryLimit())
+                .build();
+    }
+
+    @Bean
+    public Step insertCovidDailyStep(JobRepository jobRepository, PlatformTransactionManager transactionManager) {
+        return new StepBuilder("insertCovidDailyStep", jobRepository)
+                .<CovidDailyDto, TotalByDayRow>chunk(ingestProperties.getBatchSize(), transactionManager)
+                .reader(covidDailyItemReader(null))
+                .processor(covidDailyItemProcessor())
+                .writer(covidDailyItemWriter())
+                .faultTolerant()
+                .skipPolicy(new IngestSkipPolicy(ingestProperties.getSkipLimit()))
+                .retry(TransientDataAccessException.class)
+                .retryLimit(ingestProperties.getRetryLimit())
+                .build();
+    }
+
+    /**
+     * Écarts quotidiens (nouveaux cas, décès, guérisons) des deux pandémies, une fois leurs séries écrites
+     */
+    @Bean
+    public Step dailyDeltasStep(JobRepository jobRepository, PlatformTransactionManager transactionManager) {
+        return new StepBuilder("dailyDeltasStep", jobRepository)
+                .tasklet((contribution, chunkContext) -> {
+                    for (String pandemicName : List.of(DataNormalizationService.PANDEMIC_SARS, DataNormalizationService.PANDEMIC_COVID)) {
+                        Pandemics pandemic = referenceDataResolver.pandemic(pandemicName);
+                        if (pandemic == null) {
+                            System.err.println("La pandémie " + pandemicName + " n'a pas été initialisée, écarts quotidiens ignorés.");
+                            continue;
+                        }
+                        dailyDeltaService.refresh(pandemic, pandemicName);
+                    }
+                    return RepeatStatus.FINISHED;
+                }, transactionManager)
+                .build();
+    }
+
+    /**
+     * Synthèse par continent des deux pandémies, à partir des séries et écarts à jour
+     */
+    @Bean
+    public Step continentSummaryStep(JobRepository jobRepository, PlatformTransactionManager transactionManager) {
+        return new StepBuilder("continentSummaryStep", jobRepository)
+                .tasklet((contribution, chunkContext) -> {
+                    for (String pandemicName : List.of(DataNormalizationService.PANDEMIC_SARS, DataNormalizationService.PANDEMIC_COVID)) {
+                        Pandemics pandemic = referenceDataResolver.pandemic(pandemicName);
+                        if (pandemic == null) {
+                            System.err.println("La pandémie " + pandemicName + " n'a pas été initialisée, synthèse par continent ignorée.");
+                            continue;
+                        }
+                        continentSummaryService.refresh(pandemic.getIdPandemics(), pandemicName);
+                    }
+                    return RepeatStatus.FINISHED;
+                }, transactionManager)
+                .build();
+    }
+
+    @Bean
+    public Step createCountriesStep(JobRepository jobRepository, PlatformTransactionManager transactionManager) {
+        return new StepBuilder("createCountriesStep", jobRepository)
+                .tasklet((contribution, chunkContext) -> {
+                    dataInsertionService.createCountriesWithContinents();
+                    return RepeatStatus.FINISHED;
+                }, transactionManager)
+                .build();
+    }
+
+    @Bean
+    @StepScope
+    public Tasklet referenceDataTasklet(@Value("#{jobParameters['summaryFile']}") String summaryFile) {
+        return (contribution, chunkContext) -> {
+            List<CovidDto> covidData = readToCsv.readCovidData(summaryFile);
+            dataInsertionService.extractContinentData(covidData);
+            dataInsertionService.createContinents(covidData);
+            dataInsertionService.initializeDatabase();
+            dataInsertionService.prepareRegions(null, covidData, null);
+            return RepeatStatus.FINISHED;
+        };
+    }
+
+    @Bean
+    @StepScope
+    public CsvDtoItemReader<SarsDto> sarsItemReader(@Value("#{jobParameters['sarsFile']}") String sarsFile) {
+        return new CsvDtoItemReader<>("sarsItemReader", () -> dataInsertionService.withRegionsResolved(readToCsv.streamSarsData(sarsFile), SarsDto::getCountry));
+    }
+
+    @Bean
+    @StepScope
+    public CsvDtoItemReader<CovidDailyDto> covidDailyItemReader(@Value("#{jobParameters['dailyFile']}") String dailyFile) {
+        return new CsvDtoItemReader<>("covidDailyItemReader", () -> dataInsertionService.withRegionsResolved(readToCsv.streamCovidDailyData(dailyFile), CovidDailyDto::getCountry));
+    }
+
+    @Bean
+    @StepScope
+    public RejectingRowProcessor<SarsDto> sarsItemProcessor() {
+        return new RejectingRowProcessor<>("SARS", dataInsertionService::toSarsRow, deadLetterWriter,
+                () -> incrementalIngestFilter.snapshot(referenceDataResolver.pandemic(DataNormalizationService.PANDEMIC_SARS).getIdPandemics()));
+    }
+
+    @Bean
+    @StepScope
+    public RejectingRowProcessor<CovidDailyDto> covidDailyItemProcessor() {
+        return new RejectingRowProcessor<>("COVID", dataInsertionService::toCovidDailyRow, deadLetterWriter,
+                () -> incrementalIngestFilter.snapshot(referenceDataResolver.pandemic(DataNormalizationService.PANDEMIC_COVID).getIdPandemics()));
+    }
+
+    @Bean
+    @StepScope
+    public ItemWriter<TotalByDayRow> sarsItemWriter() {
+        return totalByDayItemWriter(DataNormalizationService.PANDEMIC_SARS);
+    }
+
+    @Bean
+    @StepScope
+    public ItemWriter<TotalByDayRow> covidDailyItemWriter() {
+        return totalByDayItemWriter(DataNormalizationService.PANDEMIC_COVID);
+    }
+
+    /**
+     * Écrivain JDBC par lots ; le mode upsert est déterminé au démarrage de l'étape,
+     * ce qui couvre la reprise d'une étape déjà partiellement écrite
+     */
+    private ItemWriter<TotalByDayRow> totalByDayItemWriter(String pandemicName) {
+        boolean upsert = dataInsertionService.isUpsertRequired(referenceDataResolver.pandemic(pandemicName));
+        return chunk -> totalByDayBatchWriter.write(new ArrayList<>(chunk.getItems()), upsert);
+    }
+}
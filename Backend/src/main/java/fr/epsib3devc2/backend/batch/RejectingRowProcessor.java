@@ -0,0 +1,71 @@
+package fr.epsib3devc2.backend.batch;
+
+import fr.epsib3devc2.backend.dto.TotalByDayRow;
+import fr.epsib3devc2.backend.services.DeadLetterWriter;
+import fr.epsib3devc2.backend.services.IncrementalIngestFilter;
+import org.springframework.batch.core.ExitStatus;
+import org.springframework.batch.core.SkipListener;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.StepExecutionListener;
+import org.springframework.batch.item.ItemProcessor;
+
+import java.util.function.BiFunction;
+import java.util.function.Supplier;
+
+/**
+ * Conversion des lignes d'une étape d'insertion : les lignes invalides sont écrites dans le fichier
+ * de rejets et filtrées (retour null) au lieu de lever une exception par ligne. Les lignes ignorées
+ * par la politique de skip (lecture ou écriture) sont ajoutées au même fichier.
+ * Enregistré comme écouteur de l'étape par Spring Batch (ouverture et fermeture du fichier de rejets,
+ * dates de référence du mode incrémental lues au démarrage de l'étape).
+ */
+public class RejectingRowProcessor<T> implements ItemProcessor<T, TotalByDayRow>, StepExecutionListener,
+        SkipListener<T, TotalByDayRow> {
+
+    private final String label;
+    private final BiFunction<T, DeadLetterWriter.Session, TotalByDayRow> converter;
+    private final DeadLetterWriter deadLetterWriter;
+    private final Supplier<IncrementalIngestFilter.Watermarks> watermarksSupplier;
+    private DeadLetterWriter.Session rejects;
+    private IncrementalIngestFilter.Watermarks watermarks = IncrementalIngestFilter.Watermarks.NONE;
+
+    public RejectingRowProcessor(String label, BiFunction<T, DeadLetterWriter.Session, TotalByDayRow> converter,
+                                 DeadLetterWriter deadLetterWriter,
+                                 Supplier<IncrementalIngestFilter.Watermarks> watermarksSupplier) {
+        this.label = label;
+        this.converter = converter;
+        this.deadLetterWriter = deadLetterWriter;
+        this.watermarksSupplier = watermarksSupplier;
+    }
+
+    @Override
+    public void beforeStep(StepExecution stepExecution) {
+        rejects = deadLetterWriter.open(label);
+        watermarks = watermarksSupplier.get();
+    }
+
+    @Override
+    public TotalByDayRow process(T item) {
+        TotalByDayRow row = converter.apply(item, rejects);
+        // En mode incrémental, les lignes déjà chargées sont filtrées (comptées en filterCount, pas en skip)
+        return row != null && watermarks.isNew(row) ? row : null;
+    }
+
+    @Override
+    public void onSkipInRead(Throwable t) {
+        rejects.reject(DeadLetterWriter.Reason.PARSE_ERROR, null, null, t.getMessage());
+    }
+
+    @Override
+    public void onSkipInWrite(TotalByDayRow item, Throwable t) {
+        rejects.reject(DeadLetterWriter.Reason.WRITE_FAILED, item, t.getMessage());
+    }
+
+    @Override
+    public ExitStatus afterStep(StepExecution stepExecution) {
+        if (rejects != null) {
+            rejects.close();
+        }
+        return stepExecution.getExitStatus();
+    }
+}
@@ -0,0 +1,130 @@
+package fr.epsib3devc2.backend.bo;
+
+import java.io.Serializable;
+import java.sql.Date;
+import java.time.LocalDateTime;
+
+import jakarta.persistence.*;
+
+// Synthèse d'une pandémie sur un continent, recalculée depuis total_by_day en fin d'ingestion
+@Entity
+@Table(name = "continent_pandemic_summary")
+public class ContinentPandemicSummary implements Serializable {
+
+  @EmbeddedId
+  private ContinentPandemicSummaryId id;
+
+  @Column(name = "continent_name")
+  private String continentName;
+
+  // Somme des dernières valeurs cumulées de chaque région du continent
+  @Column(name = "latest_cases", nullable = false)
+  private long latestCases;
+
+  @Column(name = "latest_deaths", nullable = false)
+  private long latestDeaths;
+
+  @Column(name = "latest_recovered", nullable = false)
+  private long latestRecovered;
+
+  // Régions du continent ayant au moins une ligne pour la pandémie
+  @Column(name = "affected_regions", nullable = false)
+  private long affectedRegions;
+
+  // Somme de toutes les lignes quotidiennes (valeurs cumulées) du continent
+  @Column(name = "cumulated_cases", nullable = false)
+  private long cumulatedCases;
+
+  @Column(name = "cumulated_deaths", nullable = false)
+  private long cumulatedDeaths;
+
+  @Column(name = "last_date")
+  private Date lastDate;
+
+  @Column(name = "updated_at")
+  private LocalDateTime updatedAt;
+
+  public ContinentPandemicSummary() {
+  }
+
+  // Getters et Setters
+  public ContinentPandemicSummaryId getId() {
+    return id;
+  }
+
+  public void setId(ContinentPandemicSummaryId id) {
+    this.id = id;
+  }
+
+  public String getContinentName() {
+    return continentName;
+  }
+
+  public void setContinentName(String continentName) {
+    this.continentName = continentName;
+  }
+
+  public long getLatestCases() {
+    return latestCases;
+  }
+
+  public void setLatestCases(long latestCases) {
+    this.latestCases = latestCases;
+  }
+
+  public long getLatestDeaths() {
+    return latestDeaths;
+  }
+
+  public void setLatestDeaths(long latestDeaths) {
+    this.latestDeaths = latestDeaths;
+  }
+
+  public long getLatestRecovered() {
+    return latestRecovered;
+  }
+
+  public void setLatestRecovered(long latestRecovered) {
+    this.latestRecovered = latestRecovered;
+  }
+
+  public long getAffectedRegions() {
+    return affectedRegions;
+  }
+
+  public void setAffectedRegions(long affectedRegions) {
+    this.affectedRegions = affectedRegions;
+  }
+
+  public long getCumulatedCases() {
+    return cumulatedCases;
+  }
+
+  public void setCumulatedCases(long cumulatedCases) {
+    this.cumulatedCases = cumulatedCases;
+  }
+
+  public long getCumulatedDeaths() {
+    return cumulatedDeaths;
+  }
+
+  public void setCumulatedDeaths(long cumulatedDeaths) {
+    this.cumulatedDeaths = cumulatedDeaths;
+  }
+
+  public Date getLastDate() {
+    return lastDate;
+  }
+
+  public void setLastDate(Date lastDate) {
+    this.lastDate = lastDate;
+  }
+
+  public LocalDateTime getUpdatedAt() {
+    return updatedAt;
+  }
+
+  public void setUpdatedAt(LocalDateTime updatedAt) {
+    this.updatedAt = updatedAt;
+  }
+}
@@ -0,0 +1,63 @@
+package fr.epsib3devc2.backend.bo;
+
+import java.io.Serializable;
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+
+@Embeddable
+public class ContinentPandemicSummaryId implements Serializable {
+
+  @Column(name = "id_pandemics")
+  private Integer idPandemics;
+
+  @Column(name = "id_continents")
+  private Integer idContinents;
+
+  public ContinentPandemicSummaryId() {
+  }
+
+  public ContinentPandemicSummaryId(Integer idPandemics, Integer idContinents) {
+    this.idPandemics = idPandemics;
+    this.idContinents = idContinents;
+  }
+
+  // Getters et Setters
+  public Integer getIdPandemics() {
+    return idPandemics;
+  }
+
+  public void setIdPandemics(Integer idPandemics) {
+    this.idPandemics = idPandemics;
+  }
+
+  public Integer getIdContinents() {
+    return idContinents;
+  }
+
+  public void setIdContinents(Integer idContinents) {
+    this.idContinents = idContinents;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) return true;
+    if (o == null || getClass() != o.getClass()) return false;
+
+    ContinentPandemicSummaryId that = (ContinentPandemicSummaryId) o;
+
+    if (!idPandemics.equals(that.idPandemics)) return false;
+    return idContinents.equals(that.idContinents);
+  }
+
+  @Override
+  public int hashCode() {
+    int result = idPandemics.hashCode();
+    result = 31 * result + idContinents.hashCode();
+    return result;
+  }
+
+  @Override
+  public String toString() {
+    return "ContinentPandemicSummaryId{idPandemics=" + idPandemics + ", idContinents=" + idContinents + '}';
+  }
+}
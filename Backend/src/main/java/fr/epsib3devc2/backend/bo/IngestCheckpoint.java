@@ -0,0 +1,146 @@
+package fr.epsib3devc2.backend.bo;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+// Point de reprise de l'ingestion d'un fichier quotidien, mis à jour dans la transaction de chaque chunk.
+// Identifié par le chemin du fichier ; l'empreinte du fichier au démarrage de l'ingestion permet d'écarter
+// un point de reprise laissé par une version différente du fichier.
+@Entity
+@Table(name = "ingest_checkpoint")
+public class IngestCheckpoint {
+
+    public static final String STATUS_RUNNING = "RUNNING";
+    public static final String STATUS_COMPLETED = "COMPLETED";
+
+    // Chemin absolu du fichier ingéré
+    @Id
+    @Column(name = "source_path", length = 500)
+    private String sourcePath;
+
+    // Libellé de l'ingestion (SARS, COVID)
+    @Column(name = "name", length = 50)
+    private String name;
+
+    @Column(name = "source_size", nullable = false)
+    private long sourceSize;
+
+    // Date de modification du fichier en millisecondes
+    @Column(name = "source_last_modified", nullable = false)
+    private long sourceLastModified;
+
+    @Column(name = "source_sha256", length = 64, nullable = false)
+    private String sourceSha256;
+
+    // Lignes du fichier déjà traitées (écrites ou rejetées) : nombre de lignes à sauter lors d'une reprise
+    @Column(name = "rows_processed", nullable = false)
+    private long rowsProcessed;
+
+    @Column(name = "rows_written", nullable = false)
+    private long rowsWritten;
+
+    @Column(name = "chunk_count", nullable = false)
+    private int chunkCount;
+
+    @Column(name = "status", length = 20, nullable = false)
+    private String status;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    public IngestCheckpoint() {
+    }
+
+    public IngestCheckpoint(String sourcePath, String name, IngestFileFingerprint fingerprint) {
+        this.sourcePath = sourcePath;
+        this.name = name;
+        this.sourceSize = fingerprint.getSize();
+        this.sourceLastModified = fingerprint.getLastModified();
+        this.sourceSha256 = fingerprint.getSha256();
+        this.status = STATUS_RUNNING;
+    }
+
+    public String getSourcePath() {
+        return sourcePath;
+    }
+
+    public void setSourcePath(String sourcePath) {
+        this.sourcePath = sourcePath;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public long getSourceSize() {
+        return sourceSize;
+    }
+
+    public void setSourceSize(long sourceSize) {
+        this.sourceSize = sourceSize;
+    }
+
+    public long getSourceLastModified() {
+        return sourceLastModified;
+    }
+
+    public void setSourceLastModified(long sourceLastModified) {
+        this.sourceLastModified = sourceLastModified;
+    }
+
+    public String getSourceSha256() {
+        return sourceSha256;
+    }
+
+    public void setSourceSha256(String sourceSha256) {
+        this.sourceSha256 = sourceSha256;
+    }
+
+    public long getRowsProcessed() {
+        return rowsProcessed;
+    }
+
+    public void setRowsProcessed(long rowsProcessed) {
+        this.rowsProcessed = rowsProcessed;
+    }
+
+    public long getRowsWritten() {
+        return rowsWritten;
+    }
+
+    public void setRowsWritten(long rowsWritten) {
+        this.rowsWritten = rowsWritten;
+    }
+
+    public int getChunkCount() {
+        return chunkCount;
+    }
+
+    public void setChunkCount(int chunkCount) {
+        this.chunkCount = chunkCount;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+
+    public boolean isRunning() {
+        return STATUS_RUNNING.equals(status);
+    }
+}
@@ -0,0 +1,78 @@
+package fr.epsib3devc2.backend.bo;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+// Empreinte d'un fichier CSV lors de sa dernière ingestion réussie
+@Entity
+@Table(name = "ingest_file_fingerprint")
+public class IngestFileFingerprint {
+
+    @Id
+    @Column(name = "path", length = 500)
+    private String path;
+
+    @Column(name = "size", nullable = false)
+    private long size;
+
+    // Date de modification du fichier en millisecondes
+    @Column(name = "last_modified", nullable = false)
+    private long lastModified;
+
+    @Column(name = "sha256", length = 64, nullable = false)
+    private String sha256;
+
+    @Column(name = "loaded_at")
+    private LocalDateTime loadedAt;
+
+    public IngestFileFingerprint() {
+    }
+
+    public IngestFileFingerprint(String path, long size, long lastModified, String sha256) {
+        this.path = path;
+        this.size = size;
+        this.lastModified = lastModified;
+        this.sha256 = sha256;
+        this.loadedAt = LocalDateTime.now();
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    public void setPath(String path) {
+        this.path = path;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    public void setSize(long size) {
+        this.size = size;
+    }
+
+    public long getLastModified() {
+        return lastModified;
+    }
+
+    public void setLastModified(long lastModified) {
+        this.lastModified = lastModified;
+    }
+
+    public String getSha256() {
+        return sha256;
+    }
+
+    public void setSha256(String sha256) {
+        this.sha256 = sha256;
+    }
+
+    public LocalDateTime getLoadedAt() {
+        return loadedAt;
+    }
+
+    public void setLoadedAt(LocalDateTime loadedAt) {
+        this.loadedAt = loadedAt;
+    }
+}
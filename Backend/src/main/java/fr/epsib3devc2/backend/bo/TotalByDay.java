@@ -1,11 +1,14 @@
 package fr.epsib3devc2.backend.bo;
 
 import java.io.Serializable;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
+import org.springframework.data.domain.Persistable;
 
 @Entity
 @Table(name = "total_by_day")
-public class TotalByDay implements Serializable {
+public class TotalByDay implements Serializable, Persistable<TotalByDayId> {
 
   @EmbeddedId
   private TotalByDayId id;
@@ -19,6 +22,16 @@ public class TotalByDay implements Serializable {
   @Column(name = "recovered")
   private Integer recovered;
 
+  // Écarts avec le jour précédent de la même série (pandémie, région), calculés à l'ingestion
+  @Column(name = "new_cases")
+  private Integer newCases;
+
+  @Column(name = "new_deaths")
+  private Integer newDeaths;
+
+  @Column(name = "new_recovered")
+  private Integer newRecovered;
+
   @ManyToOne
   @MapsId("idPandemics")
   @JoinColumn(name = "id_pandemics")
@@ -29,9 +42,14 @@ public class TotalByDay implements Serializable {
   @JoinColumn(name = "id_regions")
   private Regions regions;
 
+  // Identifiant assigné : sans ce drapeau, save() fait un merge (SELECT puis INSERT)
+  @Transient
+  private boolean newEntity = false;
+
   public TotalByDay() {
   }
 
+  @Override
   public TotalByDayId getId() {
     return id;
   }
@@ -64,6 +82,30 @@ public class TotalByDay implements Serializable {
     this.recovered = recovered;
   }
 
+  public Integer getNewCases() {
+    return newCases;
+  }
+
+  public void setNewCases(Integer newCases) {
+    this.newCases = newCases;
+  }
+
+  public Integer getNewDeaths() {
+    return newDeaths;
+  }
+
+  public void setNewDeaths(Integer newDeaths) {
+    this.newDeaths = newDeaths;
+  }
+
+  public Integer getNewRecovered() {
+    return newRecovered;
+  }
+
+  public void setNewRecovered(Integer newRecovered) {
+    this.newRecovered = newRecovered;
+  }
+
   public Pandemics getPandemics() {
     return pandemics;
   }
@@ -80,6 +122,23 @@ public class TotalByDay implements Serializable {
     this.regions = regions;
   }
 
+  @Override
+  @JsonIgnore
+  public boolean isNew() {
+    return newEntity;
+  }
+
+  // Indique que la ligne n'existe pas encore en base : save() fera un persist sans SELECT préalable
+  public void markNew() {
+    this.newEntity = true;
+  }
+
+  @PostLoad
+  @PostPersist
+  void markNotNew() {
+    this.newEntity = false;
+  }
+
   @Override
   public String toString() {
     return "TotalByDay{" +
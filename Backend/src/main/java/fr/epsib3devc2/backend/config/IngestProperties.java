@@ -0,0 +1,378 @@
+package fr.epsib3devc2.backend.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * Paramètres de l'ingestion des fichiers CSV (préfixe "ingest" dans application.properties
+ * ou en ligne de commande, ex: --ingest.write-mode=jdbc-batch)
+ */
+@Component
+@ConfigurationProperties(prefix = "ingest")
+public class IngestProperties {
+
+    /**
+     * Mode d'écriture des lignes total_by_day
+     */
+    public enum WriteMode {
+        // Un save() JPA par ligne (comportement historique)
+        JPA,
+        // save() JPA avec flush/clear et commit tous les batch-size lignes, point de reprise par chunk
+        JPA_CHUNKED,
+        // INSERT groupés envoyés par lots via JDBC
+        JDBC_BATCH,
+        // Lots JDBC écrits en parallèle, une transaction par (pandémie, région)
+        PARTITIONED,
+        // LOAD DATA LOCAL INFILE alimenté par un flux TSV en mémoire
+        BULK_LOAD
+    }
+
+    /**
+     * Stratégie d'écriture vis-à-vis des lignes déjà présentes en base
+     */
+    public enum InsertPolicy {
+        // INSERT simple si la pandémie n'a encore aucune donnée, upsert sinon
+        AUTO,
+        // INSERT simple sans recherche préalable (chargement initial)
+        INSERT_ONLY,
+        // INSERT ... ON DUPLICATE KEY UPDATE (ré-ingestion d'un fichier déjà chargé)
+        UPSERT
+    }
+
+    /**
+     * Parseur utilisé pour lire les fichiers CSV
+     */
+    public enum Parser {
+        // opencsv avec les annotations @CsvBindByName des DTO
+        OPENCSV,
+        // MappedCsvParser : fichier projeté en mémoire, lecture directe des octets
+        MAPPED
+    }
+
+    /**
+     * Moteur d'exécution de l'ingestion au démarrage
+     */
+    public enum Engine {
+        // Enchaînement direct des étapes dans SpringBatchApplication.run
+        LEGACY,
+        // Job Spring Batch par chunks, reprenable après un échec
+        BATCH,
+        // Pipeline parsing -> normalisation -> écriture avec files bornées entre les étapes
+        PIPELINE
+    }
+
+    /**
+     * Rôle du processus, choisi au lancement par --mode=all|ingest|serve
+     */
+    public enum RuntimeMode {
+        // Ingestion au démarrage puis API REST (comportement historique)
+        ALL,
+        // Ingestion seule, sans serveur web, puis arrêt avec un code de sortie
+        INGEST,
+        // API REST seule, sans lecture des fichiers CSV
+        SERVE;
+
+        public static RuntimeMode fromArgs(String[] args) {
+            for (String arg : args) {
+                if (arg.startsWith("--mode=")) {
+                    return valueOf(arg.substring("--mode=".length()).trim().toUpperCase());
+                }
+            }
+            return ALL;
+        }
+    }
+
+    private RuntimeMode mode = RuntimeMode.ALL;
+
+    private Engine engine = Engine.LEGACY;
+
+    // Fichiers sources
+    private String summaryFile = "src/Data/worldometer_coronavirus_summary_data.csv";
+    private String sarsFile = "src/Data/sars_2003_complete_dataset_clean.csv";
+    private String dailyFile = "src/Data/worldometer_coronavirus_daily_data.csv";
+
+    private WriteMode writeMode = WriteMode.JPA;
+
+    private InsertPolicy insertPolicy = InsertPolicy.AUTO;
+
+    // Nombre de lignes envoyées par lot en mode JDBC_BATCH (et taille des chunks JPA_CHUNKED et du job Spring Batch)
+    private int batchSize = 1000;
+
+    // Nombre maximal de lignes invalides ignorées par étape du job Spring Batch
+    private int skipLimit = 1000;
+
+    // Nombre de tentatives sur erreur transitoire de base de données (job Spring Batch)
+    private int retryLimit = 3;
+
+    private Parser parser = Parser.OPENCSV;
+
+    // Relancer l'ingestion même si les fichiers n'ont pas changé depuis la dernière ingestion (ou --force-reload)
+    private boolean forceReload = false;
+
+    // N'écrire que les jours postérieurs à la dernière date chargée par (pandémie, région)
+    private boolean incremental = false;
+
+    // Rechargement dans une table fantôme échangée par RENAME TABLE en fin d'ingestion
+    private boolean shadowReload = false;
+
+    // Part minimale des lignes en service (par pandémie) que la table fantôme doit contenir pour être échangée
+    private double shadowMinRatio = 0.9;
+
+    // Répertoire de dépôt surveillé pour l'ingestion continue (désactivé si absent)
+    private String watchDir;
+
+    // Délai sans modification avant l'ingestion d'un fichier déposé
+    private long watchDebounceMs = 2000;
+
+    // Workers d'ingestion des fichiers déposés et fichiers en attente au-delà desquels les dépôts sont différés
+    private int watchWorkers = 2;
+    private int watchQueueCapacity = 16;
+
+    // Ingestions simultanées des fichiers déposés par l'API et fichiers en attente au-delà desquels les dépôts sont refusés
+    private int uploadWorkers = 2;
+    private int uploadQueueCapacity = 8;
+
+    // Taille maximale d'un fichier déposé par l'API (également limite des requêtes multipart)
+    private DataSize uploadMaxSize = DataSize.ofGigabytes(2);
+
+    // Répertoire des fichiers de rejets (une ligne CSV par ligne écartée, avec son motif)
+    private String deadLetterDir = "dead-letter";
+
+    // Nombre de lignes par instruction LOAD DATA en mode BULK_LOAD (taille du tampon TSV en mémoire)
+    private int bulkLoadRows = 50000;
+
+    // Nombre de workers d'écriture en mode PARTITIONED (à garder sous la taille du pool de connexions)
+    private int writerParallelism = 4;
+
+    // Pipeline : nombre de lots en attente entre deux étapes (borne la mémoire utilisée)
+    private int pipelineQueueCapacity = 8;
+
+    // Pipeline : nombre de threads de normalisation et d'écriture
+    private int pipelineNormalizers = 2;
+    private int pipelineWriters = 2;
+
+    public RuntimeMode getMode() {
+        return mode;
+    }
+
+    public void setMode(RuntimeMode mode) {
+        this.mode = mode;
+    }
+
+    public Engine getEngine() {
+        return engine;
+    }
+
+    public void setEngine(Engine engine) {
+        this.engine = engine;
+    }
+
+    public String getSummaryFile() {
+        return summaryFile;
+    }
+
+    public void setSummaryFile(String summaryFile) {
+        this.summaryFile = summaryFile;
+    }
+
+    public String getSarsFile() {
+        return sarsFile;
+    }
+
+    public void setSarsFile(String sarsFile) {
+        this.sarsFile = sarsFile;
+    }
+
+    public String getDailyFile() {
+        return dailyFile;
+    }
+
+    public void setDailyFile(String dailyFile) {
+        this.dailyFile = dailyFile;
+    }
+
+    public WriteMode getWriteMode() {
+        return writeMode;
+    }
+
+    public void setWriteMode(WriteMode writeMode) {
+        this.writeMode = writeMode;
+    }
+
+    public InsertPolicy getInsertPolicy() {
+        return insertPolicy;
+    }
+
+    public void setInsertPolicy(InsertPolicy insertPolicy) {
+        this.insertPolicy = insertPolicy;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    public int getSkipLimit() {
+        return skipLimit;
+    }
+
+    public void setSkipLimit(int skipLimit) {
+        this.skipLimit = skipLimit;
+    }
+
+    public int getRetryLimit() {
+        return retryLimit;
+    }
+
+    public void setRetryLimit(int retryLimit) {
+        this.retryLimit = retryLimit;
+    }
+
+    public Parser getParser() {
+        return parser;
+    }
+
+    public void setParser(Parser parser) {
+        this.parser = parser;
+    }
+
+    public boolean isForceReload() {
+        return forceReload;
+    }
+
+    public void setForceReload(boolean forceReload) {
+        this.forceReload = forceReload;
+    }
+
+    public boolean isIncremental() {
+        return incremental;
+    }
+
+    public void setIncremental(boolean incremental) {
+        this.incremental = incremental;
+    }
+
+    public boolean isShadowReload() {
+        return shadowReload;
+    }
+
+    public void setShadowReload(boolean shadowReload) {
+        this.shadowReload = shadowReload;
+    }
+
+    public double getShadowMinRatio() {
+        return shadowMinRatio;
+    }
+
+    public void setShadowMinRatio(double shadowMinRatio) {
+        this.shadowMinRatio = shadowMinRatio;
+    }
+
+    public String getWatchDir() {
+        return watchDir;
+    }
+
+    public void setWatchDir(String watchDir) {
+        this.watchDir = watchDir;
+    }
+
+    public long getWatchDebounceMs() {
+        return watchDebounceMs;
+    }
+
+    public void setWatchDebounceMs(long watchDebounceMs) {
+        this.watchDebounceMs = watchDebounceMs;
+    }
+
+    public int getWatchWorkers() {
+        return watchWorkers;
+    }
+
+    public void setWatchWorkers(int watchWorkers) {
+        this.watchWorkers = watchWorkers;
+    }
+
+    public int getWatchQueueCapacity() {
+        return watchQueueCapacity;
+    }
+
+    public void setWatchQueueCapacity(int watchQueueCapacity) {
+        this.watchQueueCapacity = watchQueueCapacity;
+    }
+
+    public int getUploadWorkers() {
+        return uploadWorkers;
+    }
+
+    public void setUploadWorkers(int uploadWorkers) {
+        this.uploadWorkers = uploadWorkers;
+    }
+
+    public int getUploadQueueCapacity() {
+        return uploadQueueCapacity;
+    }
+
+    public void setUploadQueueCapacity(int uploadQueueCapacity) {
+        this.uploadQueueCapacity = uploadQueueCapacity;
+    }
+
+    public DataSize getUploadMaxSize() {
+        return uploadMaxSize;
+    }
+
+    public void setUploadMaxSize(DataSize uploadMaxSize) {
+        this.uploadMaxSize = uploadMaxSize;
+    }
+
+    public String getDeadLetterDir() {
+        return deadLetterDir;
+    }
+
+    public void setDeadLetterDir(String deadLetterDir) {
+        this.deadLetterDir = deadLetterDir;
+    }
+
+    public int getBulkLoadRows() {
+        return bulkLoadRows;
+    }
+
+    public void setBulkLoadRows(int bulkLoadRows) {
+        this.bulkLoadRows = bulkLoadRows;
+    }
+
+    public int getWriterParallelism() {
+        return writerParallelism;
+    }
+
+    public void setWriterParallelism(int writerParallelism) {
+        this.writerParallelism = writerParallelism;
+    }
+
+    public int getPipelineQueueCapacity() {
+        return pipelineQueueCapacity;
+    }
+
+    public void setPipelineQueueCapacity(int pipelineQueueCapacity) {
+        this.pipelineQueueCapacity = pipelineQueueCapacity;
+    }
+
+    public int getPipelineNormalizers() {
+        return pipelineNormalizers;
+    }
+
+    public void setPipelineNormalizers(int pipelineNormalizers) {
+        this.pipelineNormalizers = pipelineNormalizers;
+    }
+
+    public int getPipelineWriters() {
+        return pipelineWriters;
+    }
+
+    public void setPipelineWriters(int pipelineWriters) {
+        this.pipelineWriters = pipelineWriters;
+    }
+}
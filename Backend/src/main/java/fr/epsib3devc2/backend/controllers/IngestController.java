@@ -0,0 +1,95 @@
+package fr.epsib3devc2.backend.controllers;
+
+import fr.epsib3devc2.backend.config.IngestProperties;
+import fr.epsib3devc2.backend.dto.IngestJobStatus;
+import fr.epsib3devc2.backend.dto.IngestPipelineStatus;
+import fr.epsib3devc2.backend.services.IngestPipeline;
+import fr.epsib3devc2.backend.services.IngestUploadService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.multipart.MaxUploadSizeExceededException;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+
+@RestController
+@RequestMapping("/api/ingest")
+public class IngestController {
+
+    @Autowired
+    private IngestPipeline ingestPipeline;
+
+    @Autowired
+    private IngestUploadService ingestUploadService;
+
+    @Autowired
+    private IngestProperties ingestProperties;
+
+    /**
+     * Avancement du pipeline d'ingestion (ingest.engine=pipeline) : éléments traités, débit
+     * et nombre de lots en attente dans la file d'entrée de chaque étape
+     */
+    @GetMapping("/pipeline")
+    public List<IngestPipelineStatus> pipelineStatus() {
+        return ingestPipeline.status();
+    }
+
+    /**
+     * Dépôt d'un fichier SARS ou COVID quotidien : l'ingestion est planifiée en arrière-plan
+     * et l'identifiant du job est retourné immédiatement (202). Refusé (403) en mode serve, qui n'écrit jamais en base.
+     */
+    @PostMapping(value = "/uploads", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<Map<String, String>> upload(@RequestParam("file") MultipartFile file) throws IOException {
+        if (ingestProperties.getMode() == IngestProperties.RuntimeMode.SERVE) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(Map.of("error", "Ingestion désactivée en mode serve"));
+        }
+        if (file.getSize() > ingestProperties.getUploadMaxSize().toBytes()) {
+            return uploadTooLarge();
+        }
+        try {
+            String jobId = ingestUploadService.submit(file);
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(Map.of("jobId", jobId));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (RejectedExecutionException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .body(Map.of("error", "Trop d'ingestions en attente, réessayer plus tard"));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    /**
+     * Fichier refusé par l'analyse multipart (au-delà de ingest.upload-max-size)
+     */
+    @ExceptionHandler(MaxUploadSizeExceededException.class)
+    public ResponseEntity<Map<String, String>> uploadTooLarge(MaxUploadSizeExceededException e) {
+        return uploadTooLarge();
+    }
+
+    private ResponseEntity<Map<String, String>> uploadTooLarge() {
+        return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE)
+                .body(Map.of("error", "Fichier trop volumineux (maximum " + ingestProperties.getUploadMaxSize() + ")"));
+    }
+
+    /**
+     * Avancement d'un fichier déposé : lignes lues, écrites et rejetées, débit
+     */
+    @GetMapping("/jobs/{id}")
+    public ResponseEntity<IngestJobStatus> jobStatus(@PathVariable String id) {
+        IngestJobStatus status = ingestUploadService.status(id);
+        return status != null ? ResponseEntity.ok(status) : ResponseEntity.notFound().build();
+    }
+}
@@ -1,11 +1,12 @@
 package fr.epsib3devc2.backend.controllers;
 
+import fr.epsib3devc2.backend.bo.ContinentPandemicSummary;
 import fr.epsib3devc2.backend.bo.Continents;
 import fr.epsib3devc2.backend.bo.Pandemics;
 import fr.epsib3devc2.backend.repositories.ContinentsRepository;
 import fr.epsib3devc2.backend.repositories.PandemicsRepository;
 import fr.epsib3devc2.backend.repositories.RegionsRepository;
-import fr.epsib3devc2.backend.repositories.TotalByDayRepository;
+import fr.epsib3devc2.backend.services.ContinentSummaryService;
 import fr.epsib3devc2.backend.services.DataInsertionService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.*;
@@ -16,9 +17,6 @@ import java.util.*;
 @RequestMapping("/api/analysis")
 public class PandemicAnalysisController {
 
-    @Autowired
-    private TotalByDayRepository totalByDayRepository;
-    
     @Autowired
     private PandemicsRepository pandemicsRepository;
     
@@ -27,6 +25,9 @@ public class PandemicAnalysisController {
     
     @Autowired
     private DataInsertionService dataInsertionService;
+    
+    @Autowired
+    private ContinentSummaryService continentSummaryService;
 
     @GetMapping("/pandemics")
     public List<Pandemics> getAllPandemics() {
@@ -54,15 +55,15 @@ public class PandemicAnalysisController {
         
         result.put("pandemic", pandemic.get().getName());
         
-        List<Continents> continents = continentsRepository.findAll();
+        // Synthèse par continent calculée en fin d'ingestion
         List<Map<String, Object>> continentStats = new ArrayList<>();
         
-        for (Continents continent : continents) {
+        for (ContinentPandemicSummary summary : continentSummaryService.findByPandemic(pandemicId)) {
             Map<String, Object> stats = new HashMap<>();
-            stats.put("continent", continent.getName());
+            stats.put("continent", summary.getContinentName());
             
-            Long totalCases = totalByDayRepository.sumCasesByPandemicAndContinent(pandemicId, continent.getIdContinents());
-            Long totalDeaths = totalByDayRepository.sumDeathsByPandemicAndContinent(pandemicId, continent.getIdContinents());
+            Long totalCases = summary.getCumulatedCases();
+            Long totalDeaths = summary.getCumulatedDeaths();
             
             stats.put("totalCases", totalCases);
             stats.put("totalDeaths", totalDeaths);
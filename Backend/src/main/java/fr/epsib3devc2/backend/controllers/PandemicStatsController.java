@@ -1,13 +1,19 @@
 package fr.epsib3devc2.backend.controllers;
 
+import fr.epsib3devc2.backend.bo.ContinentPandemicSummary;
 import fr.epsib3devc2.backend.bo.Continents;
 import fr.epsib3devc2.backend.bo.Pandemics;
 import fr.epsib3devc2.backend.bo.Regions;
 import fr.epsib3devc2.backend.bo.TotalByDay;
+import fr.epsib3devc2.backend.dto.PandemicTotals;
+import fr.epsib3devc2.backend.dto.RegionDataCount;
+import fr.epsib3devc2.backend.dto.RegionLatestStats;
 import fr.epsib3devc2.backend.repositories.ContinentsRepository;
 import fr.epsib3devc2.backend.repositories.PandemicsRepository;
 import fr.epsib3devc2.backend.repositories.RegionsRepository;
 import fr.epsib3devc2.backend.repositories.TotalByDayRepository;
+import fr.epsib3devc2.backend.services.ContinentSummaryService;
+import fr.epsib3devc2.backend.services.DataNormalizationService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.*;
 
@@ -30,6 +36,9 @@ public class PandemicStatsController {
     @Autowired
     private ContinentsRepository continentsRepository;
 
+    @Autowired
+    private ContinentSummaryService continentSummaryService;
+
     @GetMapping("/stats/by-pandemic/{pandemicId}")
     public List<Map<String, Object>> getStatsByPandemic(@PathVariable Integer pandemicId) {
         System.out.println("Récupération des stats pour la pandémie ID: " + pandemicId);
@@ -42,31 +51,21 @@ public class PandemicStatsController {
         }
 
         System.out.println("Pandémie trouvée: " + pandemic.get().getName());
-        List<Regions> regions = regionsRepository.findAll();
-        System.out.println("Nombre total de régions: " + regions.size());
-
-        int countWithData = 0;
-        for (Regions region : regions) {
-            List<TotalByDay> stats = totalByDayRepository.findLatestByPandemicAndRegion(
-                    pandemicId.longValue(), region.getIdRegions());
-
-            if (!stats.isEmpty()) {
-                countWithData++;
-                TotalByDay latestStat = stats.get(0);
 
-                Map<String, Object> regionData = new HashMap<>();
-                regionData.put("region", region.getName());
-                regionData.put("regionId", region.getIdRegions());
-                regionData.put("cases", latestStat.getCaseCount());
-                regionData.put("deaths", latestStat.getDeath());
-                regionData.put("recovered", latestStat.getRecovered());
-                regionData.put("date", latestStat.getId().getDate());
+        // Dernière ligne de chaque région en une seule requête
+        for (RegionLatestStats latestStat : totalByDayRepository.findLatestPerRegionByPandemic(pandemicId)) {
+            Map<String, Object> regionData = new HashMap<>();
+            regionData.put("region", latestStat.getRegionName());
+            regionData.put("regionId", latestStat.getRegionId());
+            regionData.put("cases", latestStat.getCaseCount());
+            regionData.put("deaths", latestStat.getDeath());
+            regionData.put("recovered", latestStat.getRecovered());
+            regionData.put("date", latestStat.getDate());
 
-                result.add(regionData);
-            }
+            result.add(regionData);
         }
 
-        System.out.println("Régions avec données: " + countWithData);
+        System.out.println("Régions avec données: " + result.size());
         return result;
     }
 
@@ -87,12 +86,12 @@ public class PandemicStatsController {
 
         int countWithData = 0;
         for (Pandemics pandemic : pandemics) {
-            List<TotalByDay> stats = totalByDayRepository.findLatestByPandemicAndRegion(
+            Optional<RegionLatestStats> stats = totalByDayRepository.findLatestSnapshot(
                     pandemic.getIdPandemics(), regionId);
 
-            if (!stats.isEmpty()) {
+            if (stats.isPresent()) {
                 countWithData++;
-                TotalByDay latestStat = stats.get(0);
+                RegionLatestStats latestStat = stats.get();
 
                 Map<String, Object> pandemicData = new HashMap<>();
                 pandemicData.put("pandemic", pandemic.getName());
@@ -100,7 +99,7 @@ public class PandemicStatsController {
                 pandemicData.put("cases", latestStat.getCaseCount());
                 pandemicData.put("deaths", latestStat.getDeath());
                 pandemicData.put("recovered", latestStat.getRecovered());
-                pandemicData.put("date", latestStat.getId().getDate());
+                pandemicData.put("date", latestStat.getDate());
 
                 result.add(pandemicData);
             }
@@ -136,6 +135,9 @@ public class PandemicStatsController {
             dayData.put("cases", stat.getCaseCount());
             dayData.put("deaths", stat.getDeath());
             dayData.put("recovered", stat.getRecovered());
+            dayData.put("newCases", stat.getNewCases());
+            dayData.put("newDeaths", stat.getNewDeaths());
+            dayData.put("newRecovered", stat.getNewRecovered());
 
             result.add(dayData);
         }
@@ -243,14 +245,20 @@ public class PandemicStatsController {
         List<Pandemics> pandemics = pandemicsRepository.findAll();
 
         System.out.println("Nombre de pandémies trouvées: " + pandemics.size());
+
+        // Agrégats de toutes les pandémies en une seule requête
+        Map<Integer, PandemicTotals> totalsByPandemic = totalByDayRepository.findTotalsPerPandemic().stream()
+                .collect(Collectors.toMap(PandemicTotals::getPandemicId, totals -> totals));
+
         for (Pandemics pandemic : pandemics) {
             Map<String, Object> pandemicData = new HashMap<>();
             pandemicData.put("id", pandemic.getIdPandemics());
             pandemicData.put("name", pandemic.getName());
 
-            Long totalCases = totalByDayRepository.sumCasesByPandemic(pandemic.getIdPandemics());
-            Long totalDeaths = totalByDayRepository.sumDeathsByPandemic(pandemic.getIdPandemics());
-            Long affectedRegions = totalByDayRepository.countDistinctRegionsByPandemic(pandemic.getIdPandemics());
+            PandemicTotals totals = totalsByPandemic.get(pandemic.getIdPandemics());
+            Long totalCases = totals != null && totals.getTotalCases() != null ? totals.getTotalCases() : 0L;
+            Long totalDeaths = totals != null && totals.getTotalDeaths() != null ? totals.getTotalDeaths() : 0L;
+            Long affectedRegions = totals != null ? totals.getAffectedRegions() : 0L;
 
             pandemicData.put("totalCases", totalCases);
             pandemicData.put("totalDeaths", totalDeaths);
@@ -268,19 +276,37 @@ public class PandemicStatsController {
         System.out.println("Récupération des statistiques de tous les continents pour comparaison");
         List<Map<String, Object>> result = new ArrayList<>();
 
-        // Récupérer tous les continents
-        List<Continents> allContinents = continentsRepository.findAll();
-        System.out.println("Nombre de continents trouvés: " + allContinents.size());
-
-        for (Continents continent : allContinents) {
-            Map<String, Object> continentData = new HashMap<>();
-            continentData.put("continentId", continent.getIdContinents());
-            continentData.put("continentName", continent.getName());
-
-            // Obtenir les statistiques pour ce continent
-            Map<String, Object> continentStats = getStatsForContinent(continent);
-            continentData.putAll(continentStats);
-
+        Integer covidId = findPandemicId(DataNormalizationService.PANDEMIC_COVID);
+        Integer sarsId = findPandemicId(DataNormalizationService.PANDEMIC_SARS);
+
+        // Synthèse continent × pandémie calculée en fin d'ingestion, lue en une seule requête
+        Map<Integer, Map<String, Object>> continentsById = new LinkedHashMap<>();
+        for (ContinentPandemicSummary summary : continentSummaryService.findAll()) {
+            Integer continentId = summary.getId().getIdContinents();
+            Map<String, Object> continentData = continentsById.computeIfAbsent(continentId, id -> {
+                Map<String, Object> data = new HashMap<>();
+                data.put("continentId", id);
+                data.put("continentName", summary.getContinentName());
+                data.put("covid", createEmptyStats());
+                data.put("sars", createEmptyStats());
+                return data;
+            });
+
+            Integer pandemicId = summary.getId().getIdPandemics();
+            if (pandemicId.equals(covidId)) {
+                continentData.put("covid", toPandemicStats(summary));
+            } else if (pandemicId.equals(sarsId)) {
+                continentData.put("sars", toPandemicStats(summary));
+            }
+        }
+        System.out.println("Nombre de continents trouvés: " + continentsById.size());
+
+        for (Map<String, Object> continentData : continentsById.values()) {
+            @SuppressWarnings("unchecked")
+            Map<String, Object> covidStats = (Map<String, Object>) continentData.get("covid");
+            @SuppressWarnings("unchecked")
+            Map<String, Object> sarsStats = (Map<String, Object>) continentData.get("sars");
+            continentData.put("comparison", calculatePandemicComparison(covidStats, sarsStats));
             result.add(continentData);
         }
 
@@ -291,21 +317,23 @@ public class PandemicStatsController {
     public List<Map<String, Object>> getAllRegionsWithContinents() {
         System.out.println("Récupération de toutes les régions avec continents");
         List<Map<String, Object>> result = new ArrayList<>();
-        List<Regions> regions = regionsRepository.findAll();
+
+        // Régions, continents et nombre de lignes par région en une seule requête
+        List<RegionDataCount> regions = regionsRepository.findAllWithContinentAndDataCount();
 
         System.out.println("Nombre de régions trouvées: " + regions.size());
-        for (Regions region : regions) {
+        for (RegionDataCount region : regions) {
             Map<String, Object> regionData = new HashMap<>();
-            regionData.put("id", region.getIdRegions());
-            regionData.put("name", region.getName());
+            regionData.put("id", region.getRegionId());
+            regionData.put("name", region.getRegionName());
 
-            if (region.getContinent() != null) {
-                regionData.put("continentId", region.getContinent().getIdContinents());
-                regionData.put("continentName", region.getContinent().getName());
+            if (region.getContinentId() != null) {
+                regionData.put("continentId", region.getContinentId());
+                regionData.put("continentName", region.getContinentName());
             }
 
             // Vérifier si la région a des données
-            long dataCount = totalByDayRepository.countByRegionId(region.getIdRegions());
+            long dataCount = region.getDataCount();
             regionData.put("hasData", dataCount > 0);
             regionData.put("dataCount", dataCount);
 
@@ -402,18 +430,64 @@ public class PandemicStatsController {
                 .map(Regions::getIdRegions)
                 .collect(Collectors.toList());
 
+        // Dernière ligne de chaque région du continent, une requête par pandémie
+        Map<Integer, RegionLatestStats> latestCovid = findLatestForRegions(DataNormalizationService.PANDEMIC_COVID, regionIds);
+        Map<Integer, RegionLatestStats> latestSars = findLatestForRegions(DataNormalizationService.PANDEMIC_SARS, regionIds);
+
         // Statistiques pour le COVID-19 et SARS
-        Map<String, Object> covidStats = calculatePandemicStatsForRegions(2L, regionIds);
-        Map<String, Object> sarsStats = calculatePandemicStatsForRegions(1L, regionIds);
+        Map<String, Object> covidStats = calculatePandemicStatsForRegions(latestCovid);
+        Map<String, Object> sarsStats = calculatePandemicStatsForRegions(latestSars);
 
         result.put("covid", covidStats);
         result.put("sars", sarsStats);
         result.put("comparison", calculatePandemicComparison(covidStats, sarsStats));
-        result.put("regions", buildRegionsDataForContinent(regionsInContinent));
+        result.put("regions", buildRegionsDataForContinent(regionsInContinent, latestCovid, latestSars));
 
         return result;
     }
 
+    // Méthode utilitaire pour obtenir l'identifiant d'une pandémie à partir de son nom (null si elle n'existe pas)
+    private Integer findPandemicId(String pandemicName) {
+        return pandemicsRepository.findByName(pandemicName).stream()
+                .findFirst()
+                .map(Pandemics::getIdPandemics)
+                .orElse(null);
+    }
+
+    // Méthode utilitaire pour convertir une ligne de synthèse en statistiques de pandémie
+    private Map<String, Object> toPandemicStats(ContinentPandemicSummary summary) {
+        Map<String, Object> stats = new HashMap<>();
+        long totalCases = summary.getLatestCases();
+        long totalDeaths = summary.getLatestDeaths();
+
+        stats.put("totalCases", totalCases);
+        stats.put("totalDeaths", totalDeaths);
+        stats.put("totalRecovered", summary.getLatestRecovered());
+        stats.put("mortalityRate", totalCases > 0 ? (double) totalDeaths * 100 / totalCases : 0.0);
+        stats.put("affectedRegions", summary.getAffectedRegions());
+        return stats;
+    }
+
+    // Méthode utilitaire pour obtenir la dernière ligne de chaque région, indexée par région (vide si la pandémie n'existe pas)
+    private Map<Integer, RegionLatestStats> findLatestForRegions(String pandemicName, List<Integer> regionIds) {
+        Map<Integer, RegionLatestStats> latestByRegion = new HashMap<>();
+        // IN () est invalide en SQL : un continent sans région ne lance pas de requête
+        if (regionIds.isEmpty()) {
+            return latestByRegion;
+        }
+        Integer pandemicId = findPandemicId(pandemicName);
+        if (pandemicId == null) {
+            System.out.println("Pandémie non trouvée: " + pandemicName);
+            return latestByRegion;
+        }
+
+        for (RegionLatestStats latestStat : totalByDayRepository.findLatestPerRegionByPandemicAndRegionIds(
+                pandemicId, regionIds)) {
+            latestByRegion.put(latestStat.getRegionId(), latestStat);
+        }
+        return latestByRegion;
+    }
+
     // Méthode utilitaire pour calculer la comparaison entre pandémies
     private Map<String, Object> calculatePandemicComparison(Map<String, Object> covidStats, Map<String, Object> sarsStats) {
         Map<String, Object> comparison = new HashMap<>();
@@ -442,7 +516,9 @@ public class PandemicStatsController {
     }
 
     // Méthode utilitaire pour construire les données des régions d'un continent
-    private List<Map<String, Object>> buildRegionsDataForContinent(List<Regions> regionsInContinent) {
+    private List<Map<String, Object>> buildRegionsDataForContinent(List<Regions> regionsInContinent,
+                                                                   Map<Integer, RegionLatestStats> latestCovid,
+                                                                   Map<Integer, RegionLatestStats> latestSars) {
         List<Map<String, Object>> regionsData = new ArrayList<>();
 
         for (Regions region : regionsInContinent) {
@@ -451,26 +527,24 @@ public class PandemicStatsController {
             regionData.put("regionName", region.getName());
 
             // Statistiques COVID pour cette région
-            List<TotalByDay> covidStatsForRegion = totalByDayRepository.findLatestByPandemicAndRegion(87497L, region.getIdRegions());
-            if (!covidStatsForRegion.isEmpty()) {
-                TotalByDay latestCovidStat = covidStatsForRegion.get(0);
+            RegionLatestStats latestCovidStat = latestCovid.get(region.getIdRegions());
+            if (latestCovidStat != null) {
                 Map<String, Object> regionCovidData = new HashMap<>();
                 regionCovidData.put("cases", latestCovidStat.getCaseCount());
                 regionCovidData.put("deaths", latestCovidStat.getDeath());
                 regionCovidData.put("recovered", latestCovidStat.getRecovered());
-                regionCovidData.put("date", latestCovidStat.getId().getDate());
+                regionCovidData.put("date", latestCovidStat.getDate());
                 regionData.put("covid", regionCovidData);
             }
 
             // Statistiques SARS pour cette région
-            List<TotalByDay> sarsStatsForRegion = totalByDayRepository.findLatestByPandemicAndRegion(87495L, region.getIdRegions());
-            if (!sarsStatsForRegion.isEmpty()) {
-                TotalByDay latestSarsStat = sarsStatsForRegion.get(0);
+            RegionLatestStats latestSarsStat = latestSars.get(region.getIdRegions());
+            if (latestSarsStat != null) {
                 Map<String, Object> regionSarsData = new HashMap<>();
                 regionSarsData.put("cases", latestSarsStat.getCaseCount());
                 regionSarsData.put("deaths", latestSarsStat.getDeath());
                 regionSarsData.put("recovered", latestSarsStat.getRecovered());
-                regionSarsData.put("date", latestSarsStat.getId().getDate());
+                regionSarsData.put("date", latestSarsStat.getDate());
                 regionData.put("sars", regionSarsData);
             }
 
@@ -484,7 +558,7 @@ public class PandemicStatsController {
     }
 
     // Méthode utilitaire pour calculer les statistiques d'une pandémie sur un ensemble de régions
-    private Map<String, Object> calculatePandemicStatsForRegions(Long pandemicId, List<Integer> regionIds) {
+    private Map<String, Object> calculatePandemicStatsForRegions(Map<Integer, RegionLatestStats> latestByRegion) {
         Map<String, Object> stats = new HashMap<>();
 
         // Valeurs par défaut
@@ -495,7 +569,7 @@ public class PandemicStatsController {
         stats.put("affectedRegions", 0L);
 
         // Si aucune région, retourner des statistiques vides
-        if (regionIds.isEmpty()) {
+        if (latestByRegion.isEmpty()) {
             return stats;
         }
 
@@ -505,17 +579,11 @@ public class PandemicStatsController {
         long totalRecovered = 0;
         long affectedRegions = 0;
 
-        for (Integer regionId : regionIds) {
-            List<TotalByDay> latestStats = totalByDayRepository.findLatestByPandemicAndRegion(pandemicId, regionId);
-
-            if (!latestStats.isEmpty()) {
-                TotalByDay latestStat = latestStats.get(0);
-
-                totalCases += latestStat.getCaseCount();
-                totalDeaths += latestStat.getDeath();
-                totalRecovered += latestStat.getRecovered();
-                affectedRegions++;
-            }
+        for (RegionLatestStats latestStat : latestByRegion.values()) {
+            totalCases += latestStat.getCaseCount();
+            totalDeaths += latestStat.getDeath();
+            totalRecovered += latestStat.getRecovered();
+            affectedRegions++;
         }
 
         // Calculer le taux de mortalité
@@ -0,0 +1,9 @@
+package fr.epsib3devc2.backend.dto;
+
+/**
+ * Avancement d'une ingestion de fichier déposé par l'API, exposé par /api/ingest/jobs/{id}
+ */
+public record IngestJobStatus(String id, String fileName, String dataset, String state, String error,
+                              long rowsParsed, long rowsWritten, long rowsRejected,
+                              double rowsPerSecond, double elapsedSeconds) {
+}
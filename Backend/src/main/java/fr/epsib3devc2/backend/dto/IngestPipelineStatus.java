@@ -0,0 +1,15 @@
+package fr.epsib3devc2.backend.dto;
+
+import java.util.List;
+
+/**
+ * État d'une exécution du pipeline d'ingestion (un fichier quotidien), exposé par /api/ingest/pipeline
+ */
+public record IngestPipelineStatus(String label, String state, long failed, double elapsedSeconds, List<Stage> stages) {
+
+    /**
+     * Avancement d'une étape : éléments traités, débit et remplissage de sa file d'entrée
+     */
+    public record Stage(String name, long items, double itemsPerSecond, int inputQueueDepth, int inputQueueCapacity) {
+    }
+}
@@ -0,0 +1,15 @@
+package fr.epsib3devc2.backend.dto;
+
+/**
+ * Agrégats total_by_day d'une pandémie : sommes des cas et des décès, nombre de régions touchées
+ */
+public interface PandemicTotals {
+
+    Integer getPandemicId();
+
+    Long getTotalCases();
+
+    Long getTotalDeaths();
+
+    Long getAffectedRegions();
+}
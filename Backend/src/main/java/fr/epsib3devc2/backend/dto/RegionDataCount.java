@@ -0,0 +1,17 @@
+package fr.epsib3devc2.backend.dto;
+
+/**
+ * Région avec son continent et son nombre de lignes total_by_day (toutes pandémies confondues)
+ */
+public interface RegionDataCount {
+
+    Integer getRegionId();
+
+    String getRegionName();
+
+    Integer getContinentId();
+
+    String getContinentName();
+
+    Long getDataCount();
+}
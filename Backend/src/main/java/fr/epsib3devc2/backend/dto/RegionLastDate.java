@@ -0,0 +1,15 @@
+package fr.epsib3devc2.backend.dto;
+
+import java.sql.Date;
+
+/**
+ * Dernière date chargée dans total_by_day pour une pandémie et une région
+ */
+public interface RegionLastDate {
+
+    Integer getPandemicId();
+
+    Integer getRegionId();
+
+    Date getLastDate();
+}
@@ -0,0 +1,23 @@
+package fr.epsib3devc2.backend.dto;
+
+import java.sql.Date;
+
+/**
+ * Dernière ligne total_by_day d'une région pour une pandémie (valeurs cumulées à la dernière date)
+ */
+public interface RegionLatestStats {
+
+    Integer getPandemicId();
+
+    Integer getRegionId();
+
+    String getRegionName();
+
+    Integer getCaseCount();
+
+    Integer getDeath();
+
+    Integer getRecovered();
+
+    Date getDate();
+}
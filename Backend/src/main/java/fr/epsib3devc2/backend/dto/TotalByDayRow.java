@@ -0,0 +1,16 @@
+package fr.epsib3devc2.backend.dto;
+
+import java.sql.Date;
+
+/**
+ * Ligne total_by_day déjà résolue (identifiants pandémie/région) prête à être écrite en base.
+ * newCases/newDeaths : écarts quotidiens fournis par le fichier source, null s'ils sont à calculer
+ * (voir DailyDeltaService).
+ */
+public record TotalByDayRow(Integer pandemicId, Integer regionId, Date date,
+                            int caseCount, int death, int recovered, Integer newCases, Integer newDeaths) {
+
+    public TotalByDayRow(Integer pandemicId, Integer regionId, Date date, int caseCount, int death, int recovered) {
+        this(pandemicId, regionId, date, caseCount, death, recovered, null, null);
+    }
+}
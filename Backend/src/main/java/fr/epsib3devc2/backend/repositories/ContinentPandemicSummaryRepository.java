@@ -0,0 +1,16 @@
+package fr.epsib3devc2.backend.repositories;
+
+import fr.epsib3devc2.backend.bo.ContinentPandemicSummary;
+import fr.epsib3devc2.backend.bo.ContinentPandemicSummaryId;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface ContinentPandemicSummaryRepository extends JpaRepository<ContinentPandemicSummary, ContinentPandemicSummaryId> {
+
+    List<ContinentPandemicSummary> findAllByOrderByIdIdContinentsAsc();
+
+    List<ContinentPandemicSummary> findByIdIdPandemicsOrderByIdIdContinentsAsc(Integer pandemicId);
+}
@@ -1,6 +1,9 @@
 package fr.epsib3devc2.backend.repositories;
 
+import java.util.List;
+
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import fr.epsib3devc2.backend.bo.Continents;
@@ -10,4 +13,7 @@ import fr.epsib3devc2.backend.bo.Countries;
 public interface CountriesRepository extends JpaRepository<Countries, Integer> {
       Countries findByName(String name);
 
+      @Query("SELECT c FROM Countries c LEFT JOIN FETCH c.continent")
+      List<Countries> findAllWithContinent();
+
 }
@@ -0,0 +1,9 @@
+package fr.epsib3devc2.backend.repositories;
+
+import fr.epsib3devc2.backend.bo.IngestCheckpoint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface IngestCheckpointRepository extends JpaRepository<IngestCheckpoint, String> {
+}
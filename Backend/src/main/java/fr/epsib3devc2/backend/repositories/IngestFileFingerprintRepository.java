@@ -0,0 +1,9 @@
+package fr.epsib3devc2.backend.repositories;
+
+import fr.epsib3devc2.backend.bo.IngestFileFingerprint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface IngestFileFingerprintRepository extends JpaRepository<IngestFileFingerprint, String> {
+}
@@ -3,14 +3,33 @@ package fr.epsib3devc2.backend.repositories;
 import java.util.List;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import fr.epsib3devc2.backend.bo.Continents;
 import fr.epsib3devc2.backend.bo.Regions;
+import fr.epsib3devc2.backend.dto.RegionDataCount;
 
 @Repository
 public interface RegionsRepository extends JpaRepository<Regions, Integer> {
 
     Regions findByName(String country);
     List<Regions> findByContinent(Continents continent);
+
+    @Query("SELECT r FROM Regions r LEFT JOIN FETCH r.continent")
+    List<Regions> findAllWithContinent();
+
+    /**
+     * Toutes les régions avec leur continent et leur nombre de lignes total_by_day,
+     * comptées en un seul parcours de la table
+     */
+    @Query(value = "SELECT r.id_regions AS regionId, r.name AS regionName, c.id_continents AS continentId, " +
+            "c.name AS continentName, COALESCE(t.data_count, 0) AS dataCount " +
+            "FROM regions r " +
+            "LEFT JOIN continents c ON c.id_continents = r.id_continents " +
+            "LEFT JOIN (SELECT id_regions, COUNT(*) AS data_count FROM total_by_day GROUP BY id_regions) t " +
+            "  ON t.id_regions = r.id_regions " +
+            "ORDER BY r.id_regions",
+            nativeQuery = true)
+    List<RegionDataCount> findAllWithContinentAndDataCount();
 }
@@ -2,37 +2,96 @@ package fr.epsib3devc2.backend.repositories;
 
 import fr.epsib3devc2.backend.bo.TotalByDay;
 import fr.epsib3devc2.backend.bo.TotalByDayId;
+import fr.epsib3devc2.backend.dto.PandemicTotals;
+import fr.epsib3devc2.backend.dto.RegionLastDate;
+import fr.epsib3devc2.backend.dto.RegionLatestStats;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+
+import java.sql.Date;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface TotalByDayRepository extends JpaRepository<TotalByDay, TotalByDayId> {
 
-    @Query("SELECT t FROM TotalByDay t WHERE t.pandemics.idPandemics = :pandemicId AND t.regions.idRegions = :regionId ORDER BY t.id.date DESC")
-    List<TotalByDay> findLatestByPandemicAndRegion(@Param("pandemicId") long pandemicId, @Param("regionId") Integer regionId);
+    /**
+     * Dernière ligne d'une région pour une pandémie : une seule ligne lue en fin de clé primaire
+     */
+    @Query(value = "SELECT t.id_pandemics AS pandemicId, r.id_regions AS regionId, r.name AS regionName, " +
+            "t.case_count AS caseCount, t.death AS death, t.recovered AS recovered, t.date_by_day AS date " +
+            "FROM total_by_day t " +
+            "JOIN regions r ON r.id_regions = t.id_regions " +
+            "WHERE t.id_pandemics = :pandemicId AND t.id_regions = :regionId " +
+            "ORDER BY t.date_by_day DESC LIMIT 1",
+            nativeQuery = true)
+    Optional<RegionLatestStats> findLatestSnapshot(@Param("pandemicId") Integer pandemicId, @Param("regionId") Integer regionId);
+
+    /**
+     * Dernière ligne de chaque région pour une pandémie, en une requête (jointure sur la date maximale par région,
+     * servie par la clé primaire id_pandemics, id_regions, date_by_day)
+     */
+    @Query(value = "SELECT t.id_pandemics AS pandemicId, r.id_regions AS regionId, r.name AS regionName, " +
+            "t.case_count AS caseCount, t.death AS death, t.recovered AS recovered, t.date_by_day AS date " +
+            "FROM total_by_day t " +
+            "JOIN (SELECT id_regions, MAX(date_by_day) AS last_date FROM total_by_day " +
+            "      WHERE id_pandemics = :pandemicId GROUP BY id_regions) l " +
+            "  ON t.id_regions = l.id_regions AND t.date_by_day = l.last_date " +
+            "JOIN regions r ON r.id_regions = t.id_regions " +
+            "WHERE t.id_pandemics = :pandemicId " +
+            "ORDER BY r.id_regions",
+            nativeQuery = true)
+    List<RegionLatestStats> findLatestPerRegionByPandemic(@Param("pandemicId") Integer pandemicId);
+
+    /**
+     * Variante limitée à un ensemble de régions, par exemple celles d'un continent. La liste ne doit pas
+     * être vide (IN () est rejeté par MariaDB) : l'appelant retourne directement un résultat vide dans ce cas.
+     */
+    @Query(value = "SELECT t.id_pandemics AS pandemicId, r.id_regions AS regionId, r.name AS regionName, " +
+            "t.case_count AS caseCount, t.death AS death, t.recovered AS recovered, t.date_by_day AS date " +
+            "FROM total_by_day t " +
+            "JOIN (SELECT id_regions, MAX(date_by_day) AS last_date FROM total_by_day " +
+            "      WHERE id_pandemics = :pandemicId AND id_regions IN (:regionIds) GROUP BY id_regions) l " +
+            "  ON t.id_regions = l.id_regions AND t.date_by_day = l.last_date " +
+            "JOIN regions r ON r.id_regions = t.id_regions " +
+            "WHERE t.id_pandemics = :pandemicId " +
+            "ORDER BY r.id_regions",
+            nativeQuery = true)
+    List<RegionLatestStats> findLatestPerRegionByPandemicAndRegionIds(@Param("pandemicId") Integer pandemicId,
+                                                                      @Param("regionIds") Collection<Integer> regionIds);
 
     @Query("SELECT t FROM TotalByDay t WHERE t.pandemics.idPandemics = :pandemicId AND t.regions.idRegions = :regionId ORDER BY t.id.date ASC")
     List<TotalByDay> findByPandemicAndRegionOrderByDate(@Param("pandemicId") Integer pandemicId, @Param("regionId") Integer regionId);
 
-    @Query("SELECT SUM(t.caseCount) FROM TotalByDay t WHERE t.pandemics.idPandemics = :pandemicId")
-    Long sumCasesByPandemic(@Param("pandemicId") Integer pandemicId);
-
-    @Query("SELECT SUM(t.death) FROM TotalByDay t WHERE t.pandemics.idPandemics = :pandemicId")
-    Long sumDeathsByPandemic(@Param("pandemicId") Integer pandemicId);
-    
-    @Query("SELECT COUNT(DISTINCT t.regions.idRegions) FROM TotalByDay t WHERE t.pandemics.idPandemics = :pandemicId")
-    Long countDistinctRegionsByPandemic(@Param("pandemicId") Integer pandemicId);
-    
-    @Query("SELECT SUM(t.caseCount) FROM TotalByDay t WHERE t.pandemics.idPandemics = :pandemicId AND t.regions.continent.idContinents = :continentId")
-    Long sumCasesByPandemicAndContinent(@Param("pandemicId") Integer pandemicId, @Param("continentId") Integer continentId);
-    
-    @Query("SELECT SUM(t.death) FROM TotalByDay t WHERE t.pandemics.idPandemics = :pandemicId AND t.regions.continent.idContinents = :continentId")
-    Long sumDeathsByPandemicAndContinent(@Param("pandemicId") Integer pandemicId, @Param("continentId") Integer continentId);
-    
-    @Query("SELECT COUNT(t) FROM TotalByDay t WHERE t.regions.idRegions = :regionId")
-    Long countByRegionId(@Param("regionId") Integer regionId);
+    /**
+     * Cas, décès et régions touchées de toutes les pandémies en un seul parcours de la table
+     * (les pandémies sans ligne n'apparaissent pas)
+     */
+    @Query("SELECT t.pandemics.idPandemics AS pandemicId, SUM(t.caseCount) AS totalCases, SUM(t.death) AS totalDeaths, " +
+            "COUNT(DISTINCT t.regions.idRegions) AS affectedRegions " +
+            "FROM TotalByDay t GROUP BY t.pandemics.idPandemics")
+    List<PandemicTotals> findTotalsPerPandemic();
     
+    boolean existsByIdIdPandemics(Integer pandemicId);
+
+    long countByIdIdPandemics(Integer pandemicId);
+
+    @Query("SELECT t.id.idPandemics AS pandemicId, t.id.idRegions AS regionId, MAX(t.id.date) AS lastDate " +
+            "FROM TotalByDay t WHERE t.id.idPandemics = :pandemicId GROUP BY t.id.idPandemics, t.id.idRegions")
+    List<RegionLastDate> findLastDatesByPandemic(@Param("pandemicId") Integer pandemicId);
+
+    @Modifying
+    @Query(value = "INSERT INTO total_by_day (id_pandemics, id_regions, date_by_day, case_count, death, recovered, new_cases, new_deaths) " +
+            "VALUES (:pandemicId, :regionId, :date, :caseCount, :death, :recovered, :newCases, :newDeaths) " +
+            "ON DUPLICATE KEY UPDATE case_count = VALUES(case_count), death = VALUES(death), recovered = VALUES(recovered), " +
+            "new_cases = VALUES(new_cases), new_deaths = VALUES(new_deaths)",
+            nativeQuery = true)
+    void upsert(@Param("pandemicId") Integer pandemicId, @Param("regionId") Integer regionId, @Param("date") Date date,
+                @Param("caseCount") Integer caseCount, @Param("death") Integer death, @Param("recovered") Integer recovered,
+                @Param("newCases") Integer newCases, @Param("newDeaths") Integer newDeaths);
+
 }
\ No newline at end of file
@@ -0,0 +1,64 @@
+package fr.epsib3devc2.backend.services;
+
+import com.github.luben.zstd.ZstdInputStream;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Ouverture des fichiers d'entrée éventuellement compressés (gzip ou zstd), reconnus à leurs
+ * premiers octets et non à leur extension. La décompression se fait en flux pendant le parsing,
+ * sans copie décompressée sur disque.
+ */
+public final class CompressedInput {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    public enum Format {
+        NONE, GZIP, ZSTD
+    }
+
+    private CompressedInput() {
+    }
+
+    /**
+     * Format du fichier d'après son nombre magique : 1F 8B (gzip), 28 B5 2F FD (zstd)
+     */
+    public static Format detect(Path file) throws IOException {
+        byte[] magic = new byte[4];
+        int read;
+        try (InputStream in = Files.newInputStream(file)) {
+            read = in.readNBytes(magic, 0, magic.length);
+        }
+        if (read >= 2 && (magic[0] & 0xFF) == 0x1F && (magic[1] & 0xFF) == 0x8B) {
+            return Format.GZIP;
+        }
+        if (read == 4 && (magic[0] & 0xFF) == 0x28 && (magic[1] & 0xFF) == 0xB5
+                && (magic[2] & 0xFF) == 0x2F && (magic[3] & 0xFF) == 0xFD) {
+            return Format.ZSTD;
+        }
+        return Format.NONE;
+    }
+
+    /**
+     * Flux décompressé du fichier (le fichier lui-même s'il n'est pas compressé)
+     */
+    public static InputStream open(Path file) throws IOException {
+        Format format = detect(file);
+        InputStream raw = new BufferedInputStream(Files.newInputStream(file), BUFFER_SIZE);
+        try {
+            return switch (format) {
+                case GZIP -> new BufferedInputStream(new GZIPInputStream(raw, BUFFER_SIZE), BUFFER_SIZE);
+                case ZSTD -> new BufferedInputStream(new ZstdInputStream(raw), BUFFER_SIZE);
+                case NONE -> raw;
+            };
+        } catch (IOException | RuntimeException e) {
+            raw.close();
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package fr.epsib3devc2.backend.services;
+
+import fr.epsib3devc2.backend.bo.ContinentPandemicSummary;
+import fr.epsib3devc2.backend.bo.Pandemics;
+import fr.epsib3devc2.backend.repositories.ContinentPandemicSummaryRepository;
+import fr.epsib3devc2.backend.repositories.PandemicsRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Table de synthèse continent × pandémie (continent_pandemic_summary) lue par les comparaisons entre
+ * continents. Les lignes d'une pandémie sont recalculées en une requête depuis total_by_day à la fin de
+ * chaque ingestion de cette pandémie, dans une transaction : l'API lit les anciennes valeurs ou les
+ * nouvelles, jamais une synthèse partielle. Pendant un rechargement par table fantôme, le calcul est
+ * reporté après la mise en service de la nouvelle table. Les lectures de l'API n'écrivent jamais : une base
+ * alimentée avant l'existence de la synthèse est complétée au démarrage d'un nœud d'ingestion (ensureBuilt).
+ */
+@Service
+public class ContinentSummaryService {
+
+    private static final String DELETE_SQL = "DELETE FROM continent_pandemic_summary WHERE id_pandemics = ?";
+
+    // Une ligne par continent (à zéro s'il n'a aucune donnée) : dernière ligne et sommes de chaque région
+    private static final String INSERT_SQL =
+            "INSERT INTO continent_pandemic_summary (id_pandemics, id_continents, continent_name, latest_cases, " +
+            "latest_deaths, latest_recovered, affected_regions, cumulated_cases, cumulated_deaths, last_date, updated_at) " +
+            "SELECT ?, c.id_continents, c.name, COALESCE(SUM(l.case_count), 0), COALESCE(SUM(l.death), 0), " +
+            "COALESCE(SUM(l.recovered), 0), COUNT(a.id_regions), COALESCE(SUM(a.cumulated_cases), 0), " +
+            "COALESCE(SUM(a.cumulated_deaths), 0), MAX(a.last_date), NOW() " +
+            "FROM continents c " +
+            "LEFT JOIN regions r ON r.id_continents = c.id_continents " +
+            "LEFT JOIN (SELECT id_regions, MAX(date_by_day) AS last_date, SUM(case_count) AS cumulated_cases, " +
+            "           SUM(death) AS cumulated_deaths FROM total_by_day WHERE id_pandemics = ? GROUP BY id_regions) a " +
+            "  ON a.id_regions = r.id_regions " +
+            "LEFT JOIN total_by_day l ON l.id_pandemics = ? AND l.id_regions = a.id_regions AND l.date_by_day = a.last_date " +
+            "GROUP BY c.id_continents, c.name";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ShadowTableReload shadowTableReload;
+
+    @Autowired
+    private PandemicsRepository pandemicsRepository;
+
+    @Autowired
+    private ContinentPandemicSummaryRepository continentPandemicSummaryRepository;
+
+    /**
+     * Recalcule la synthèse d'une pandémie (sans effet pendant un rechargement par table fantôme)
+     */
+    @Transactional
+    public void refresh(Integer pandemicId, String label) {
+        if (shadowTableReload.isActive()) {
+            System.out.println("Synthèse par continent " + label + " reportée après la mise en service de la table fantôme");
+            return;
+        }
+        rebuild(pandemicId, label);
+    }
+
+    /**
+     * Recalcule la synthèse de toutes les pandémies (après un rechargement par table fantôme)
+     */
+    @Transactional
+    public void refreshAll() {
+        for (Pandemics pandemic : pandemicsRepository.findAll()) {
+            rebuild(pandemic.getIdPandemics(), pandemic.getName());
+        }
+    }
+
+    /**
+     * Construit la synthèse des pandémies qui n'en ont pas encore (base alimentée avant son existence) ;
+     * appelé au démarrage des modes avec ingestion, jamais par l'API
+     */
+    @Transactional
+    public void ensureBuilt() {
+        Set<Integer> built = new HashSet<>();
+        for (ContinentPandemicSummary summary : continentPandemicSummaryRepository.findAll()) {
+            built.add(summary.getId().getIdPandemics());
+        }
+        for (Pandemics pandemic : pandemicsRepository.findAll()) {
+            if (!built.contains(pandemic.getIdPandemics())) {
+                rebuild(pandemic.getIdPandemics(), pandemic.getName());
+            }
+        }
+    }
+
+    /**
+     * Lignes de toutes les pandémies (lecture seule)
+     */
+    public List<ContinentPandemicSummary> findAll() {
+        return continentPandemicSummaryRepository.findAllByOrderByIdIdContinentsAsc();
+    }
+
+    /**
+     * Lignes d'une pandémie (lecture seule)
+     */
+    public List<ContinentPandemicSummary> findByPandemic(Integer pandemicId) {
+        return continentPandemicSummaryRepository.findByIdIdPandemicsOrderByIdIdContinentsAsc(pandemicId);
+    }
+
+    private void rebuild(Integer pandemicId, String label) {
+        long start = System.nanoTime();
+        jdbcTemplate.update(DELETE_SQL, pandemicId);
+        int rows = jdbcTemplate.update(INSERT_SQL, pandemicId, pandemicId, pandemicId);
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+        System.out.println("Synthèse par continent " + label + ": " + rows + " continents en " + elapsedMs + " ms");
+    }
+}
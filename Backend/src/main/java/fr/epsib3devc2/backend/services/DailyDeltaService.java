@@ -0,0 +1,85 @@
+package fr.epsib3devc2.backend.services;
+
+import fr.epsib3devc2.backend.bo.Pandemics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.sql.Date;
+
+/**
+ * Calcul des nouveaux cas, décès et guérisons par jour (new_cases, new_deaths, new_recovered) à partir
+ * des cumuls, en un seul parcours ordonné de chaque série (pandémie, région) avec LAG(). Exécuté en fin
+ * d'ingestion d'un fichier : quel que soit le mode d'écriture, les écarts sont stockés à côté des cumuls
+ * et ne sont plus recalculés à la lecture.
+ * <p>
+ * Les écrivains laissent new_cases/new_deaths à NULL sur les lignes qu'ils écrivent (sauf valeurs fournies
+ * par le fichier) : le calcul ne porte que sur les dates à partir de la première ligne en attente, chaque
+ * région repartant de sa dernière ligne antérieure, et non sur tout l'historique. Une ingestion interrompue
+ * avant ce calcul est ainsi rattrapée par la suivante.
+ * <p>
+ * COVID-19 : le fichier quotidien fournit daily_new_cases/daily_new_deaths, conservés tels quels (LAG ne
+ * complète que les valeurs absentes) ; recovered contient les cas actifs, dont l'écart n'est pas un nombre
+ * de guérisons, new_recovered reste donc NULL.
+ */
+@Service
+public class DailyDeltaService {
+
+    // %1$s : table cible (total_by_day, ou la table fantôme pendant un rechargement)
+    private static final String PENDING_SQL =
+            "SELECT MIN(date_by_day) FROM %1$s WHERE id_pandemics = ? AND (new_cases IS NULL OR new_deaths IS NULL)";
+
+    // %1$s : table cible ; %2$s, %3$s, %4$s : nouvelles valeurs de new_cases, new_deaths, new_recovered.
+    // Les lignes à partir de la date de départ, plus la dernière ligne antérieure de chaque région comme amorce
+    private static final String UPDATE_SQL =
+            "UPDATE %1$s t JOIN (" +
+            "  SELECT id_regions, date_by_day," +
+            "    case_count - LAG(case_count, 1, 0) OVER (PARTITION BY id_regions ORDER BY date_by_day) AS new_cases," +
+            "    death - LAG(death, 1, 0) OVER (PARTITION BY id_regions ORDER BY date_by_day) AS new_deaths," +
+            "    recovered - LAG(recovered, 1, 0) OVER (PARTITION BY id_regions ORDER BY date_by_day) AS new_recovered" +
+            "  FROM (" +
+            "    SELECT id_regions, date_by_day, case_count, death, recovered FROM %1$s" +
+            "    WHERE id_pandemics = ? AND date_by_day >= ?" +
+            "    UNION ALL" +
+            "    SELECT p.id_regions, p.date_by_day, p.case_count, p.death, p.recovered FROM %1$s p JOIN (" +
+            "      SELECT id_regions, MAX(date_by_day) AS seed_date FROM %1$s" +
+            "      WHERE id_pandemics = ? AND date_by_day < ? GROUP BY id_regions" +
+            "    ) seed ON p.id_regions = seed.id_regions AND p.date_by_day = seed.seed_date" +
+            "    WHERE p.id_pandemics = ?" +
+            "  ) s" +
+            ") d ON t.id_regions = d.id_regions AND t.date_by_day = d.date_by_day " +
+            "SET t.new_cases = %2$s, t.new_deaths = %3$s, t.new_recovered = %4$s " +
+            "WHERE t.id_pandemics = ? AND t.date_by_day >= ? " +
+            "AND NOT (t.new_cases <=> %2$s AND t.new_deaths <=> %3$s AND t.new_recovered <=> %4$s)";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ShadowTableReload shadowTableReload;
+
+    /**
+     * Met à jour les écarts quotidiens des lignes en attente d'une pandémie et retourne le nombre de lignes modifiées
+     */
+    public int refresh(Pandemics pandemic, String label) {
+        long start = System.nanoTime();
+        String table = shadowTableReload.targetTable();
+        Integer pandemicId = pandemic.getIdPandemics();
+
+        Date since = jdbcTemplate.queryForObject(String.format(PENDING_SQL, table), Date.class, pandemicId);
+        if (since == null) {
+            System.out.println("Écarts quotidiens " + label + ": aucune ligne en attente");
+            return 0;
+        }
+
+        boolean covid = DataNormalizationService.PANDEMIC_COVID.equals(pandemic.getName());
+        String sql = covid
+                ? String.format(UPDATE_SQL, table, "COALESCE(t.new_cases, d.new_cases)", "COALESCE(t.new_deaths, d.new_deaths)", "NULL")
+                : String.format(UPDATE_SQL, table, "d.new_cases", "d.new_deaths", "d.new_recovered");
+        int updated = jdbcTemplate.update(sql, pandemicId, since, pandemicId, since, pandemicId, pandemicId, since);
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+        System.out.println("Écarts quotidiens " + label + " depuis le " + since + ": " + updated
+                + " lignes mises à jour en " + elapsedMs + " ms");
+        return updated;
+    }
+}
@@ -1,22 +1,38 @@
 package fr.epsib3devc2.backend.services;
 
-import fr.epsib3devc2.backend.bo.Continents;
-import fr.epsib3devc2.backend.bo.Countries;
+import fr.epsib3devc2.backend.bo.IngestCheckpoint;
 import fr.epsib3devc2.backend.bo.Pandemics;
 import fr.epsib3devc2.backend.bo.Regions;
 import fr.epsib3devc2.backend.bo.TotalByDay;
 import fr.epsib3devc2.backend.bo.TotalByDayId;
+import fr.epsib3devc2.backend.config.IngestProperties;
 import fr.epsib3devc2.backend.dto.CovidDto;
 import fr.epsib3devc2.backend.dto.CovidDailyDto;
+import fr.epsib3devc2.backend.dto.PandemicTotals;
 import fr.epsib3devc2.backend.dto.SarsDto;
+import fr.epsib3devc2.backend.dto.TotalByDayRow;
 import fr.epsib3devc2.backend.repositories.*;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.sql.Date;
+import java.time.LocalDateTime;
 import java.util.*;
+import java.util.function.BiFunction;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 @Service
 public class DataInsertionService {
@@ -28,18 +44,46 @@ public class DataInsertionService {
     private TotalByDayRepository totalByDayRepository;
 
     @Autowired
-    private CountriesRepository countriesRepository;
+    private TotalByDayBatchWriter totalByDayBatchWriter;
 
     @Autowired
-    private ContinentsRepository continentsRepository;
+    private PartitionedDailyWriter partitionedDailyWriter;
 
     @Autowired
-    private RegionsRepository regionsRepository;
+    private IngestCheckpointRepository ingestCheckpointRepository;
 
-    private Map<String, Pandemics> pandemicsMap = new HashMap<>();
-    private Map<String, Regions> regionsMap = new HashMap<>();
-    private Map<String, Continents> continentsMap = new HashMap<>();
-    private Map<String, Countries> countriesMap = new HashMap<>();
+    @Autowired
+    private IncrementalIngestFilter incrementalIngestFilter;
+
+    @Autowired
+    private IngestFingerprintService ingestFingerprintService;
+
+    @Autowired
+    private TotalByDayBulkLoader totalByDayBulkLoader;
+
+    @Autowired
+    private DeadLetterWriter deadLetterWriter;
+
+    @Autowired
+    private ShadowTableReload shadowTableReload;
+
+    @Autowired
+    private DailyDeltaService dailyDeltaService;
+
+    @Autowired
+    private ContinentSummaryService continentSummaryService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private IngestProperties ingestProperties;
+
+    @Autowired
+    private ReferenceDataResolver referenceDataResolver;
+
+    @PersistenceContext
+    private EntityManager entityManager;
 
     private Map<String, String> countryToContinentMap = new HashMap<>();
 
@@ -50,44 +94,20 @@ public class DataInsertionService {
     public void initializeDatabase() {
         System.out.println("Initialisation des pandémies dans la base de données...");
     
-        // Créer les deux types de pandémies (SARS et COVID-19)
-        Pandemics sarsPandemic = createPandemic(DataNormalizationService.PANDEMIC_SARS);
-        Pandemics covidPandemic = createPandemic(DataNormalizationService.PANDEMIC_COVID);
+        // Créer les deux types de pandémies (SARS et COVID-19) en un seul lot
+        referenceDataResolver.resolvePandemics(List.of(DataNormalizationService.PANDEMIC_SARS, DataNormalizationService.PANDEMIC_COVID));
+        Pandemics sarsPandemic = referenceDataResolver.pandemic(DataNormalizationService.PANDEMIC_SARS);
+        Pandemics covidPandemic = referenceDataResolver.pandemic(DataNormalizationService.PANDEMIC_COVID);
         
         // Vérifie que les noms sont bien assignés
-        System.out.println("Pandémie SARS créée avec ID: " + sarsPandemic.getIdPandemics() + 
+        System.out.println("Pandémie SARS avec ID: " + sarsPandemic.getIdPandemics() + 
                            " et nom: " + sarsPandemic.getName());
-        System.out.println("Pandémie COVID créée avec ID: " + covidPandemic.getIdPandemics() + 
+        System.out.println("Pandémie COVID avec ID: " + covidPandemic.getIdPandemics() + 
                            " et nom: " + covidPandemic.getName());
     
         System.out.println("Pandémies initialisées avec succès.");
     }
 
-    /**
-     * Crée une entrée dans la table des pandémies si elle n'existe pas déjà
-     */
-    private Pandemics createPandemic(String name) {
-        if (pandemicsMap.containsKey(name)) {
-            return pandemicsMap.get(name);
-        }
-
-        List<Pandemics> existingPandemics = pandemicsRepository.findByName(name);
-        Pandemics pandemic;
-
-        if (existingPandemics.isEmpty()) {
-            pandemic = new Pandemics();
-            pandemic.setName(name);
-            pandemic = pandemicsRepository.save(pandemic);
-            System.out.println("Pandémie créée: " + name + " avec ID: " + pandemic.getIdPandemics());
-        } else {
-            pandemic = existingPandemics.get(0);
-            System.out.println("Pandémie existante: " + name + " avec ID: " + pandemic.getIdPandemics());
-        }
-
-        pandemicsMap.put(name, pandemic);
-        return pandemic;
-    }
-
     /**
      * Extrait les associations pays-continent à partir des données COVID
      * Cette méthode doit être appelée avant createContinents() et prepareRegions()
@@ -128,66 +148,21 @@ public class DataInsertionService {
                 .filter(c -> c != null && !c.trim().isEmpty())
                 .collect(Collectors.toSet());
 
-        for (String continentName : continents) {
-            Continents continent = continentsRepository.findByName(continentName);
-            
-            if (continent == null) {
-                continent = new Continents();
-                continent.setName(continentName);
-                continent = continentsRepository.save(continent);
-                System.out.println("Continent créé: " + continentName + " avec ID: " + continent.getIdContinents());
-            } else {
-                System.out.println("Continent existant: " + continentName + " avec ID: " + continent.getIdContinents());
-            }
-            
-            continentsMap.put(continentName, continent);
-        }
+        referenceDataResolver.resolveContinents(continents);
         
-        System.out.println(continentsMap.size() + " continents disponibles pour les associations.");
+        System.out.println(referenceDataResolver.continentCount() + " continents disponibles pour les associations.");
     }
 
     /**
-     * Crée une région (pays) si elle n'existe pas déjà
+     * Retourne la région (pays) correspondante, en la créant si elle n'existe pas déjà
      */
     private Regions createRegion(String countryName) {
         String normalizedName = DataNormalizationService.normalizeCountryName(countryName);
         if (normalizedName == null) return null;
 
-        if (regionsMap.containsKey(normalizedName)) {
-            return regionsMap.get(normalizedName);
-        }
-
-        Regions region = regionsRepository.findByName(normalizedName);
-        if (region == null) {
-            region = new Regions();
-            region.setName(normalizedName);
-
-            // Associer la région au continent correspondant
-            String continentName = countryToContinentMap.get(normalizedName);
-            if (continentName != null && continentsMap.containsKey(continentName)) {
-                Continents continent = continentsMap.get(continentName);
-                region.setContinent(continent);
-                System.out.println("Région " + normalizedName + " associée au continent " + continentName);
-            }
-
-            region = regionsRepository.save(region);
-            System.out.println("Région créée: " + normalizedName + " avec ID: " + region.getIdRegions());
-        } else {
-            // Mettre à jour le continent si nécessaire
-            if (region.getContinent() == null) {
-                String continentName = countryToContinentMap.get(normalizedName);
-                if (continentName != null && continentsMap.containsKey(continentName)) {
-                    Continents continent = continentsMap.get(continentName);
-                    region.setContinent(continent);
-                    region = regionsRepository.save(region);
-                    System.out.println("Continent ajouté à la région existante: " + normalizedName);
-                }
-            }
-            System.out.println("Région existante: " + normalizedName + " avec ID: " + region.getIdRegions());
-        }
-
-        regionsMap.put(normalizedName, region);
-        return region;
+        // Recherche O(1) dans le cache, création uniquement pour un pays encore inconnu
+        Regions region = referenceDataResolver.region(normalizedName);
+        return region != null ? region : referenceDataResolver.resolveRegion(normalizedName, countryToContinentMap);
     }
 
     /**
@@ -203,187 +178,647 @@ public class DataInsertionService {
             System.out.println("Attention: Aucune association pays-continent chargée. Les continents ne seront pas associés.");
         }
 
-        if (continentsMap.isEmpty()) {
+        if (referenceDataResolver.continentCount() == 0) {
             System.out.println("Attention: Aucun continent chargé. Les continents ne seront pas associés.");
         }
 
-        // Créer toutes les régions à partir des données SARS
+        // Rassembler les noms de régions des trois fichiers puis les créer en un seul lot
+        Set<String> regionNames = new LinkedHashSet<>();
         if (sarsData != null) {
-            for (SarsDto dto : sarsData) {
-                if (dto.getCountry() != null) {
-                    createRegion(dto.getCountry());
-                }
-            }
+            sarsData.forEach(dto -> addNormalizedName(regionNames, dto.getCountry()));
         }
-
-        // Créer toutes les régions à partir des données COVID
         if (covidData != null) {
-            for (CovidDto dto : covidData) {
-                if (dto.getCountry() != null) {
-                    createRegion(dto.getCountry());
+            covidData.forEach(dto -> addNormalizedName(regionNames, dto.getCountry()));
+        }
+        if (covidDailyData != null) {
+            covidDailyData.forEach(dto -> addNormalizedName(regionNames, dto.getCountry()));
+        }
+
+        referenceDataResolver.resolveRegions(regionNames, countryToContinentMap);
+
+        System.out.println("Préparation des régions terminée. " + referenceDataResolver.regionCount() + " régions créées ou trouvées.");
+        
+        // Vérification des associations continent-région (sur le cache, sans relire la table)
+        System.out.println(referenceDataResolver.regionsWithContinentCount() + " régions ont une association avec un continent.");
+    }
+
+    /**
+     * Flux identique dont les régions encore inconnues sont créées par paquets de batch-size lignes
+     * (un saveAll par paquet) avant la conversion, au lieu d'une transaction par pays présent
+     * uniquement dans un fichier quotidien. En cas d'échec, la création unitaire de toRow prend le relais.
+     */
+    public <T> Stream<T> withRegionsResolved(Stream<T> data, Function<T, String> country) {
+        int size = Math.max(1, ingestProperties.getBatchSize());
+        Iterator<T> source = data.iterator();
+        Iterator<T> resolved = new Iterator<>() {
+            private Iterator<T> current = Collections.emptyIterator();
+
+            @Override
+            public boolean hasNext() {
+                if (!current.hasNext() && source.hasNext()) {
+                    List<T> chunk = new ArrayList<>(size);
+                    Set<String> missing = new LinkedHashSet<>();
+                    while (chunk.size() < size && source.hasNext()) {
+                        T item = source.next();
+                        chunk.add(item);
+                        String name = DataNormalizationService.normalizeCountryName(country.apply(item));
+                        if (name != null && referenceDataResolver.region(name) == null) {
+                            missing.add(name);
+                        }
+                    }
+                    if (!missing.isEmpty()) {
+                        try {
+                            referenceDataResolver.resolveRegions(missing, countryToContinentMap);
+                        } catch (RuntimeException e) {
+                            System.err.println("Erreur lors de la création de " + missing.size() + " régions: " + e.getMessage());
+                        }
+                    }
+                    current = chunk.iterator();
                 }
+                return current.hasNext();
             }
-        }
 
-        // Créer toutes les régions à partir des données COVID quotidiennes
-        if (covidDailyData != null) {
-            for (CovidDailyDto dto : covidDailyData) {
-                if (dto.getCountry() != null) {
-                    createRegion(dto.getCountry());
+            @Override
+            public T next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
                 }
+                return current.next();
             }
-        }
+        };
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(resolved, Spliterator.ORDERED), false)
+                .onClose(data::close);
+    }
 
-        System.out.println("Préparation des régions terminée. " + regionsMap.size() + " régions créées ou trouvées.");
-        
-        // Vérification des associations continent-région
-        long regionsWithContinent = regionsRepository.findAll().stream()
-            .filter(r -> r.getContinent() != null)
-            .count();
-        
-        System.out.println(regionsWithContinent + " régions ont une association avec un continent.");
+    private static void addNormalizedName(Set<String> names, String countryName) {
+        String normalizedName = DataNormalizationService.normalizeCountryName(countryName);
+        if (normalizedName != null) {
+            names.add(normalizedName);
+        }
     }
 
     /**
      * Insertion des données quotidiennes pour le SARS
+     *
+     * @return le nombre de lignes dont l'écriture a échoué (lot, partition ou chargement en échec)
      */
-    @Transactional
-    public void insertSarsData(List<SarsDto> sarsData) {
+    public int insertSarsData(List<SarsDto> sarsData) {
         if (sarsData == null || sarsData.isEmpty()) {
             System.out.println("Aucune donnée SARS à insérer.");
-            return;
+            return 0;
         }
 
-        System.out.println("Insertion de " + sarsData.size() + " enregistrements SARS...");
-        Pandemics sarsPandemic = pandemicsMap.get(DataNormalizationService.PANDEMIC_SARS);
+        // Trier les données par pays puis par date (ordre de la clé primaire, partitions contiguës)
+        // Les lignes sans pays ou sans date sont conservées (en fin de flux) pour être rejetées avec leur motif
+        return insertSarsData(sarsData.stream()
+                .sorted(Comparator.comparing(SarsDto::getCountry, Comparator.nullsLast(Comparator.<String>naturalOrder()))
+                        .thenComparing(SarsDto::getDate, Comparator.nullsLast(Comparator.<java.util.Date>naturalOrder()))));
+    }
+
+    /**
+     * Insertion des données quotidiennes pour le SARS à partir d'un flux (lecture ligne à ligne du CSV)
+     */
+    public int insertSarsData(Stream<SarsDto> sarsData) {
+        return insertSarsData(sarsData, null);
+    }
+
+    /**
+     * Variante avec le fichier lu par le flux : en mode jpa-chunked, il identifie le point de reprise
+     */
+    public int insertSarsData(Stream<SarsDto> sarsData, String sourcePath) {
+        return insertSarsData(sarsData, sourcePath, ingestProperties.isIncremental());
+    }
+
+    /**
+     * Variante imposant le mode incrémental (répertoire de dépôt)
+     *
+     * @throws IllegalStateException si la pandémie n'existe pas (rien n'est écrit)
+     */
+    public int insertSarsData(Stream<SarsDto> sarsData, String sourcePath, boolean incremental) {
+        Pandemics sarsPandemic = referenceDataResolver.pandemic(DataNormalizationService.PANDEMIC_SARS);
 
         if (sarsPandemic == null) {
-            System.err.println("Erreur: La pandémie SARS n'a pas été initialisée.");
-            return;
+            throw new IllegalStateException("La pandémie SARS n'a pas été initialisée.");
+        }
+
+        return insertDailyRows("SARS", sourcePath, incremental, sarsPandemic, withRegionsResolved(sarsData, SarsDto::getCountry), this::toSarsRow);
+    }
+
+    /**
+     * Conversion d'une ligne SARS en ligne total_by_day, la région étant créée si nécessaire.
+     * Retourne null si la ligne est rejetée (motif enregistré dans le fichier de rejets).
+     */
+    public TotalByDayRow toSarsRow(SarsDto dto, DeadLetterWriter.Session rejects) {
+        return toRow(DataNormalizationService.PANDEMIC_SARS, dto.getCountry(), dto.getDate(),
+                dto.getTotalCases(), dto.getDeaths(), dto.getRecovered(), rejects);
+    }
+
+    /**
+     * Insertion des données quotidiennes pour le COVID-19
+     *
+     * @return le nombre de lignes dont l'écriture a échoué (voir insertSarsData)
+     */
+    public int insertCovidDailyData(List<CovidDailyDto> covidDailyData) {
+        if (covidDailyData == null || covidDailyData.isEmpty()) {
+            System.out.println("Aucune donnée COVID quotidienne à insérer.");
+            return 0;
+        }
+
+        // Trier les données par pays puis par date (ordre de la clé primaire, partitions contiguës)
+        return insertCovidDailyData(covidDailyData.stream()
+                .sorted(Comparator.comparing(CovidDailyDto::getCountry, Comparator.nullsLast(Comparator.<String>naturalOrder()))
+                        .thenComparing(CovidDailyDto::getDate, Comparator.nullsLast(Comparator.<java.util.Date>naturalOrder()))));
+    }
+
+    /**
+     * Insertion des données quotidiennes pour le COVID-19 à partir d'un flux (lecture ligne à ligne du CSV)
+     */
+    public int insertCovidDailyData(Stream<CovidDailyDto> covidDailyData) {
+        return insertCovidDailyData(covidDailyData, null);
+    }
+
+    /**
+     * Variante avec le fichier lu par le flux (voir insertSarsData)
+     */
+    public int insertCovidDailyData(Stream<CovidDailyDto> covidDailyData, String sourcePath) {
+        return insertCovidDailyData(covidDailyData, sourcePath, ingestProperties.isIncremental());
+    }
+
+    /**
+     * Variante imposant le mode incrémental (répertoire de dépôt)
+     *
+     * @throws IllegalStateException si la pandémie n'existe pas (rien n'est écrit)
+     */
+    public int insertCovidDailyData(Stream<CovidDailyDto> covidDailyData, String sourcePath, boolean incremental) {
+        Pandemics covidPandemic = referenceDataResolver.pandemic(DataNormalizationService.PANDEMIC_COVID);
+
+        if (covidPandemic == null) {
+            throw new IllegalStateException("La pandémie COVID-19 n'a pas été initialisée.");
+        }
+
+        return insertDailyRows("COVID", sourcePath, incremental, covidPandemic, withRegionsResolved(covidDailyData, CovidDailyDto::getCountry), this::toCovidDailyRow);
+    }
+
+    /**
+     * Conversion d'une ligne COVID quotidienne en ligne total_by_day (voir toSarsRow)
+     */
+    public TotalByDayRow toCovidDailyRow(CovidDailyDto dto, DeadLetterWriter.Session rejects) {
+        // Traitement des valeurs potentiellement nulles ; recovered reçoit les cas actifs (pas de guérisons dans ce fichier)
+        TotalByDayRow row = toRow(DataNormalizationService.PANDEMIC_COVID, dto.getCountry(), dto.getDate(),
+                dto.getCumulativeTotalCases() != null ? dto.getCumulativeTotalCases().intValue() : 0,
+                dto.getCumulativeTotalDeaths() != null ? dto.getCumulativeTotalDeaths().intValue() : 0,
+                dto.getActiveCases() != null ? dto.getActiveCases().intValue() : 0,
+                rejects);
+        if (row == null) {
+            return null;
+        }
+        // Écarts quotidiens fournis par le fichier, calculés par DailyDeltaService lorsqu'ils sont absents
+        return new TotalByDayRow(row.pandemicId(), row.regionId(), row.date(), row.caseCount(), row.death(),
+                row.recovered(), parseDailyCount(dto.getDailyNewCases()), parseDailyCount(dto.getDailyNewDeaths()));
+    }
+
+    /**
+     * Valeur d'une colonne daily_new_* ("123", "123.0") ; null si elle est vide ou illisible ("nan")
+     */
+    private static Integer parseDailyCount(String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        try {
+            return (int) Double.parseDouble(value.trim());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Validation d'une ligne quotidienne avant écriture : chaque cas invalide est enregistré
+     * avec son motif, sans exception ni log par ligne
+     */
+    private TotalByDayRow toRow(String pandemicName, String country, java.util.Date date,
+                                int caseCount, int death, int recovered, DeadLetterWriter.Session rejects) {
+        Pandemics pandemic = referenceDataResolver.pandemic(pandemicName);
+        if (pandemic == null) {
+            rejects.reject(DeadLetterWriter.Reason.UNKNOWN_PANDEMIC, country, date, pandemicName);
+            return null;
         }
+        if (country == null || country.isBlank()) {
+            rejects.reject(DeadLetterWriter.Reason.MISSING_COUNTRY, country, date, null);
+            return null;
+        }
+        if (date == null) {
+            rejects.reject(DeadLetterWriter.Reason.MISSING_DATE, country, null, null);
+            return null;
+        }
+
+        // Les régions absentes du fichier de synthèse sont créées à la volée
+        Regions region;
+        try {
+            region = createRegion(country);
+        } catch (RuntimeException e) {
+            // Échec de création en base : cas exceptionnel, hors du chemin nominal
+            rejects.reject(DeadLetterWriter.Reason.UNRESOLVED_REGION, country, date, e.getMessage());
+            return null;
+        }
+        if (region == null) {
+            rejects.reject(DeadLetterWriter.Reason.UNRESOLVED_REGION, country, date, null);
+            return null;
+        }
+
+        return new TotalByDayRow(pandemic.getIdPandemics(), region.getIdRegions(),
+                new Date(date.getTime()), caseCount, death, recovered);
+    }
 
-        int success = 0, failed = 0;
+    /**
+     * Boucle d'insertion commune aux fichiers quotidiens : les lignes sont consommées une à une
+     * et, en mode JDBC, seul le lot en cours est conservé en mémoire. Chaque mode gère ses transactions
+     * (une seule pour tout le fichier en mode jpa, une par lot, chunk ou partition sinon).
+     * Retourne le nombre de lignes dont l'écriture a échoué ; les lignes invalides, rejetées avant
+     * l'écriture, n'en font pas partie.
+     */
+    private <T> int insertDailyRows(String label, String sourcePath, boolean incremental, Pandemics pandemic, Stream<T> data,
+                                     BiFunction<T, DeadLetterWriter.Session, TotalByDayRow> converter) {
+        System.out.println("Insertion des enregistrements " + label + " (mode " + writeMode() + ")...");
+
+        boolean upsert = isUpsertRequired(pandemic);
+        IncrementalIngestFilter.Watermarks watermarks = incrementalIngestFilter.snapshot(pandemic.getIdPandemics(), incremental);
+        int writeFailed;
+        try (DeadLetterWriter.Session rejects = deadLetterWriter.open(label)) {
+            Function<T, TotalByDayRow> toRow = item -> converter.apply(item, rejects);
+            writeFailed = switch (writeMode()) {
+                case PARTITIONED -> insertPartitioned(label, data, toRow, watermarks, upsert, rejects);
+                case JPA_CHUNKED -> insertChunked(label, sourcePath, data, toRow, watermarks, upsert, rejects);
+                case BULK_LOAD -> insertBulk(label, pandemic, data, toRow, watermarks, upsert, rejects);
+                case JDBC_BATCH -> insertSequential(label, data, toRow, watermarks, upsert, rejects);
+                default -> new TransactionTemplate(transactionManager)
+                        .execute(status -> insertSequential(label, data, toRow, watermarks, upsert, rejects));
+            };
+        }
 
-        // Trier les données par date
-        List<SarsDto> sortedData = sarsData.stream()
-                .sorted(Comparator.comparing(SarsDto::getDate))
-                .collect(Collectors.toList());
+        // Les insertions JPA en attente sont envoyées avant le calcul SQL des écarts quotidiens
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            entityManager.flush();
+        }
+        dailyDeltaService.refresh(pandemic, label);
+        continentSummaryService.refresh(pandemic.getIdPandemics(), label);
+        return writeFailed;
+    }
 
-        for (SarsDto dto : sortedData) {
-            if (dto.getCountry() == null || dto.getDate() == null) {
+    /**
+     * Écriture séquentielle (modes jpa et jdbc-batch)
+     */
+    private <T> int insertSequential(String label, Stream<T> data, Function<T, TotalByDayRow> toRow,
+                                      IncrementalIngestFilter.Watermarks watermarks, boolean upsert,
+                                      DeadLetterWriter.Session rejects) {
+        long start = System.nanoTime();
+        int success = 0, failed = 0, skipped = 0, writeFailed = 0;
+        List<TotalByDayRow> batch = new ArrayList<>();
+
+        Iterator<T> iterator = data.iterator();
+        while (iterator.hasNext()) {
+            TotalByDayRow row = toRow.apply(iterator.next());
+            if (row == null) {
                 failed++;
                 continue;
             }
+            if (!watermarks.isNew(row)) {
+                skipped++;
+                continue;
+            }
 
-            String normalizedCountry = DataNormalizationService.normalizeCountryName(dto.getCountry());
-            Regions region = regionsMap.get(normalizedCountry);
-
-            if (region != null) {
-                try {
-                    TotalByDay totalByDay = new TotalByDay();
-                    totalByDay.setId(new TotalByDayId(sarsPandemic.getIdPandemics(),
-                            region.getIdRegions(),
-                            new Date(dto.getDate().getTime())));
-
-                    totalByDay.setCaseCount(dto.getTotalCases());
-                    totalByDay.setDeath(dto.getDeaths());
-                    totalByDay.setRecovered(dto.getRecovered());
-                    totalByDay.setPandemics(sarsPandemic);
-                    totalByDay.setRegions(region);
-
-                    totalByDayRepository.save(totalByDay);
-                    success++;
-                } catch (Exception e) {
-                    System.err.println("Erreur lors de l'insertion des données SARS pour " + dto.getCountry()
-                            + " à la date " + dto.getDate() + ": " + e.getMessage());
-                    failed++;
+            if (isJdbcBatchMode()) {
+                batch.add(row);
+                if (batch.size() >= ingestProperties.getBatchSize()) {
+                    int written = flushBatch(batch, upsert, label, rejects);
+                    success += written;
+                    writeFailed += batch.size() - written;
+                    batch.clear();
                 }
-            } else {
-                System.err.println("Région non trouvée pour le pays: " + normalizedCountry);
-                failed++;
+                continue;
+            }
+
+            try {
+                saveWithJpa(row, upsert);
+                success++;
+            } catch (Exception e) {
+                rejects.reject(DeadLetterWriter.Reason.WRITE_FAILED, row, e.getMessage());
+                writeFailed++;
             }
         }
 
-        System.out.println("Insertion des données SARS terminée. Succès: " + success + ", Échecs: " + failed);
+        if (!batch.isEmpty()) {
+            int written = flushBatch(batch, upsert, label, rejects);
+            success += written;
+            writeFailed += batch.size() - written;
+        }
+
+        logInsertResult(label, success, failed + writeFailed, skipped);
+        logThroughput(label, success, start);
+        return writeFailed;
     }
 
     /**
-     * Insertion des données quotidiennes pour le COVID-19
+     * Écriture parallèle par région : chaque (pandémie, région) est validée dans sa propre transaction
      */
-    @Transactional
-    public void insertCovidDailyData(List<CovidDailyDto> covidDailyData) {
-        if (covidDailyData == null || covidDailyData.isEmpty()) {
-            System.out.println("Aucune donnée COVID quotidienne à insérer.");
-            return;
+    private <T> int insertPartitioned(String label, Stream<T> data, Function<T, TotalByDayRow> toRow,
+                                       IncrementalIngestFilter.Watermarks watermarks, boolean upsert,
+                                       DeadLetterWriter.Session rejects) {
+        long start = System.nanoTime();
+        int invalid = 0, skipped = 0;
+        PartitionedDailyWriter.Session session = partitionedDailyWriter.open(label, upsert, rejects);
+        try (session) {
+            Iterator<T> iterator = data.iterator();
+            while (iterator.hasNext()) {
+                TotalByDayRow row = toRow.apply(iterator.next());
+                if (row == null) {
+                    invalid++;
+                    continue;
+                }
+                if (!watermarks.isNew(row)) {
+                    skipped++;
+                    continue;
+                }
+                session.add(row);
+            }
         }
 
-        System.out.println("Insertion de " + covidDailyData.size() + " enregistrements COVID quotidiens...");
-        Pandemics covidPandemic = pandemicsMap.get(DataNormalizationService.PANDEMIC_COVID);
+        logInsertResult(label, session.getWritten(), invalid + session.getFailed(), skipped);
+        logThroughput(label, session.getWritten(), start);
+        return session.getFailed();
+    }
 
-        if (covidPandemic == null) {
-            System.err.println("Erreur: La pandémie COVID-19 n'a pas été initialisée.");
-            return;
+    /**
+     * Écriture JPA par chunks : chaque chunk est validé dans sa propre transaction avec le point de reprise,
+     * puis le contexte de persistance est vidé. Un arrêt brutal ne perd que le chunk en cours et
+     * l'ingestion suivante du même fichier, inchangé, reprend après la dernière ligne validée.
+     * Sans fichier source connu, les chunks sont validés sans point de reprise.
+     *
+     * @throws IllegalStateException si un chunk échoue : l'insertion s'arrête, le point de reprise reste sur
+     *                               le dernier chunk validé (en cours) et la prochaine ingestion reprend à ce chunk
+     */
+    private <T> int insertChunked(String label, String sourcePath, Stream<T> data, Function<T, TotalByDayRow> toRow,
+                                   IncrementalIngestFilter.Watermarks watermarks, boolean upsert,
+                                   DeadLetterWriter.Session rejects) {
+        long start = System.nanoTime();
+        int chunkSize = Math.max(1, ingestProperties.getBatchSize());
+
+        IngestCheckpoint checkpoint = openCheckpoint(label, sourcePath);
+        long processed = checkpoint != null ? checkpoint.getRowsProcessed() : 0;
+        long written = checkpoint != null ? checkpoint.getRowsWritten() : 0;
+        int chunkCount = 0;
+
+        Iterator<T> iterator = data.iterator();
+        if (processed > 0) {
+            System.out.println("Reprise de l'insertion " + label + " après " + processed + " lignes déjà validées");
+            for (long i = 0; i < processed && iterator.hasNext(); i++) {
+                iterator.next();
+            }
         }
 
-        int success = 0, failed = 0;
-
-        // Trier les données par date
-        List<CovidDailyDto> sortedData = covidDailyData.stream()
-                .sorted(Comparator.comparing(CovidDailyDto::getDate))
-                .collect(Collectors.toList());
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
 
-        for (CovidDailyDto dto : sortedData) {
-            if (dto.getCountry() == null || dto.getDate() == null) {
-                failed++;
-                continue;
+        int success = 0, failed = 0, skipped = 0;
+        List<T> chunk = new ArrayList<>(chunkSize);
+        while (iterator.hasNext()) {
+            chunk.clear();
+            while (chunk.size() < chunkSize && iterator.hasNext()) {
+                chunk.add(iterator.next());
             }
 
-            String normalizedCountry = DataNormalizationService.normalizeCountryName(dto.getCountry());
-            Regions region = regionsMap.get(normalizedCountry);
-
-            if (region != null) {
-                try {
-                    TotalByDay totalByDay = new TotalByDay();
-                    totalByDay.setId(new TotalByDayId(covidPandemic.getIdPandemics(),
-                            region.getIdRegions(),
-                            new Date(dto.getDate().getTime())));
-
-                    // Traitement des valeurs potentiellement nulles
-                    if (dto.getCumulativeTotalCases() != null) {
-                        totalByDay.setCaseCount(dto.getCumulativeTotalCases().intValue());
-                    } else {
-                        totalByDay.setCaseCount(0);
+            long chunkEnd = processed + chunk.size();
+            long writtenBefore = written;
+            int[] chunkSkipped = new int[1];
+            List<TotalByDayRow> chunkRows = new ArrayList<>(chunk.size());
+            try {
+                int chunkWritten = transactionTemplate.execute(status -> {
+                    for (T item : chunk) {
+                        TotalByDayRow row = toRow.apply(item);
+                        if (row == null) {
+                            continue;
+                        }
+                        if (!watermarks.isNew(row)) {
+                            chunkSkipped[0]++;
+                            continue;
+                        }
+                        chunkRows.add(row);
+                        saveWithJpa(row, upsert);
                     }
-
-                    if (dto.getCumulativeTotalDeaths() != null) {
-                        totalByDay.setDeath(dto.getCumulativeTotalDeaths().intValue());
-                    } else {
-                        totalByDay.setDeath(0);
+                    int count = chunkRows.size();
+                    if (checkpoint != null) {
+                        checkpoint.setRowsProcessed(chunkEnd);
+                        checkpoint.setRowsWritten(writtenBefore + count);
+                        checkpoint.setChunkCount(checkpoint.getChunkCount() + 1);
+                        checkpoint.setUpdatedAt(LocalDateTime.now());
+                        ingestCheckpointRepository.save(checkpoint);
                     }
 
-                    if (dto.getActiveCases() != null) {
-                        totalByDay.setRecovered(dto.getActiveCases().intValue());
-                    } else {
-                        totalByDay.setRecovered(0);
-                    }
+                    entityManager.flush();
+                    entityManager.clear();
+                    return count;
+                });
+                success += chunkWritten;
+                chunkCount++;
+                skipped += chunkSkipped[0];
+                failed += chunk.size() - chunkWritten - chunkSkipped[0];
+                written += chunkWritten;
+            } catch (Exception e) {
+                // Chunk annulé (point de reprise compris) : on s'arrête sans marquer le fichier comme terminé
+                System.err.println("Erreur lors de l'insertion d'un chunk " + label + " (lignes " + processed
+                        + " à " + chunkEnd + "): " + e.getMessage());
+                rejects.rejectAll(DeadLetterWriter.Reason.WRITE_FAILED, chunkRows, e.getMessage());
+                logInsertResult(label, success, failed + chunk.size(), skipped);
+                throw new IllegalStateException("Insertion " + label + " interrompue après " + processed
+                        + " lignes validées: " + e.getMessage(), e);
+            }
+            processed = chunkEnd;
+        }
+
+        if (checkpoint != null) {
+            long totalProcessed = processed;
+            long totalWritten = written;
+            transactionTemplate.executeWithoutResult(status -> {
+                checkpoint.setRowsProcessed(totalProcessed);
+                checkpoint.setRowsWritten(totalWritten);
+                checkpoint.setStatus(IngestCheckpoint.STATUS_COMPLETED);
+                checkpoint.setUpdatedAt(LocalDateTime.now());
+                ingestCheckpointRepository.save(checkpoint);
+            });
+        }
+
+        logInsertResult(label, success, failed, skipped);
+        System.out.println(chunkCount + " chunks " + label + " validés");
+        logThroughput(label, success, start);
+        // Un chunk en échec interrompt l'insertion : aucune écriture en échec à ce stade
+        return 0;
+    }
+
+    /**
+     * Point de reprise du fichier : celui d'une ingestion interrompue si le fichier n'a pas changé depuis,
+     * un nouveau sinon. Null si le fichier source est inconnu ou illisible (ingestion sans reprise).
+     */
+    private IngestCheckpoint openCheckpoint(String label, String sourcePath) {
+        if (sourcePath == null || !Files.isRegularFile(Path.of(sourcePath))) {
+            System.out.println("Insertion " + label + " sans point de reprise (fichier source inconnu)");
+            return null;
+        }
+
+        String key = IngestFingerprintService.key(sourcePath);
+        Optional<IngestCheckpoint> interrupted = ingestCheckpointRepository.findById(key).filter(IngestCheckpoint::isRunning);
+        if (interrupted.isPresent()) {
+            IngestCheckpoint checkpoint = interrupted.get();
+            if (ingestFingerprintService.matches(sourcePath, checkpoint.getSourceSize(),
+                    checkpoint.getSourceLastModified(), checkpoint.getSourceSha256())) {
+                return checkpoint;
+            }
+            System.out.println("Point de reprise " + label + " ignoré: " + sourcePath + " a changé depuis l'ingestion interrompue");
+        }
 
-                    totalByDay.setPandemics(covidPandemic);
-                    totalByDay.setRegions(region);
+        try {
+            return new IngestCheckpoint(key, label, ingestFingerprintService.current(sourcePath));
+        } catch (IOException e) {
+            System.err.println("Empreinte de " + sourcePath + " illisible, insertion " + label + " sans point de reprise: " + e.getMessage());
+            return null;
+        }
+    }
 
-                    totalByDayRepository.save(totalByDay);
-                    success++;
-                } catch (Exception e) {
-                    System.err.println("Erreur lors de l'insertion des données COVID pour " + dto.getCountry()
-                            + " à la date " + dto.getDate() + ": " + e.getMessage());
+    /**
+     * Chargement natif par LOAD DATA LOCAL INFILE, par paquets de bulk-load-rows lignes.
+     * Les lignes passent par la même conversion (toRow) que le chemin JPA ; le nombre de lignes
+     * en base pour la pandémie est affiché en fin de chargement pour comparaison entre les modes.
+     */
+    private <T> int insertBulk(String label, Pandemics pandemic, Stream<T> data, Function<T, TotalByDayRow> toRow,
+                                IncrementalIngestFilter.Watermarks watermarks, boolean upsert,
+                                DeadLetterWriter.Session rejects) {
+        long start = System.nanoTime();
+        int chunkSize = Math.max(1, ingestProperties.getBulkLoadRows());
+        int success = 0, failed = 0, skipped = 0, writeFailed = 0;
+        List<TotalByDayRow> chunk = new ArrayList<>();
+
+        Iterator<T> iterator = data.iterator();
+        while (iterator.hasNext() || !chunk.isEmpty()) {
+            if (iterator.hasNext()) {
+                TotalByDayRow row = toRow.apply(iterator.next());
+                if (row == null) {
                     failed++;
+                } else if (!watermarks.isNew(row)) {
+                    skipped++;
+                } else {
+                    chunk.add(row);
                 }
-            } else {
-                System.err.println("Région non trouvée pour le pays: " + normalizedCountry);
-                failed++;
+                if (chunk.size() < chunkSize && iterator.hasNext()) {
+                    continue;
+                }
+            }
+
+            try {
+                long affected = totalByDayBulkLoader.load(chunk, upsert);
+                success += chunk.size();
+                if (!upsert && affected < chunk.size()) {
+                    // Doublons de clé ignorés par LOAD DATA LOCAL (comptés dans le récapitulatif des rejets)
+                    rejects.count(DeadLetterWriter.Reason.DUPLICATE_KEY, chunk.size() - affected);
+                    success -= (int) (chunk.size() - affected);
+                    failed += (int) (chunk.size() - affected);
+                }
+            } catch (Exception e) {
+                System.err.println("Erreur lors du chargement LOAD DATA de " + chunk.size() + " lignes " + label + ": " + e.getMessage());
+                rejects.rejectAll(DeadLetterWriter.Reason.WRITE_FAILED, chunk, e.getMessage());
+                writeFailed += chunk.size();
             }
+            chunk.clear();
+        }
+
+        logInsertResult(label, success, failed + writeFailed, skipped);
+        logThroughput(label, success, start);
+        System.out.println("Vérification " + label + ": " + totalByDayRepository.countByIdIdPandemics(pandemic.getIdPandemics())
+                + " lignes en base pour la pandémie");
+        return writeFailed;
+    }
+
+    private void logInsertResult(String label, int success, int failed, int skipped) {
+        System.out.println("Insertion des données " + label + " terminée. Succès: " + success + ", Échecs: " + failed
+                + (skipped > 0 ? ", Déjà chargées: " + skipped : ""));
+    }
+
+    private boolean isJdbcBatchMode() {
+        return writeMode() == IngestProperties.WriteMode.JDBC_BATCH;
+    }
+
+    /**
+     * Mode d'écriture effectif : l'entité JPA étant liée à total_by_day, les modes jpa et jpa-chunked
+     * passent en jdbc-batch pendant un rechargement dans la table fantôme
+     */
+    private IngestProperties.WriteMode writeMode() {
+        IngestProperties.WriteMode mode = ingestProperties.getWriteMode();
+        if (shadowTableReload.isActive()
+                && (mode == IngestProperties.WriteMode.JPA || mode == IngestProperties.WriteMode.JPA_CHUNKED)) {
+            return IngestProperties.WriteMode.JDBC_BATCH;
+        }
+        return mode;
+    }
+
+    /**
+     * Détermine si les lignes doivent être écrites en upsert : c'est le cas lorsque la pandémie
+     * possède déjà des données (ré-ingestion d'un fichier), sauf politique explicite
+     */
+    public boolean isUpsertRequired(Pandemics pandemic) {
+        if (shadowTableReload.isActive()) {
+            // Table fantôme vide : insertion seule
+            System.out.println("Écriture des données " + pandemic.getName() + " en insertion seule (table fantôme)");
+            return false;
+        }
+        boolean upsert = switch (ingestProperties.getInsertPolicy()) {
+            case INSERT_ONLY -> false;
+            case UPSERT -> true;
+            case AUTO -> totalByDayRepository.existsByIdIdPandemics(pandemic.getIdPandemics());
+        };
+        System.out.println("Écriture des données " + pandemic.getName() + " en " + (upsert ? "upsert" : "insertion seule"));
+        return upsert;
+    }
+
+    /**
+     * Écriture d'une ligne via JPA : persist direct (sans SELECT) pour une nouvelle ligne,
+     * INSERT ... ON DUPLICATE KEY UPDATE en cas de ré-ingestion
+     */
+    private void saveWithJpa(TotalByDayRow row, boolean upsert) {
+        if (upsert) {
+            totalByDayRepository.upsert(row.pandemicId(), row.regionId(), row.date(),
+                    row.caseCount(), row.death(), row.recovered(), row.newCases(), row.newDeaths());
+            return;
+        }
+
+        TotalByDay totalByDay = new TotalByDay();
+        totalByDay.setId(new TotalByDayId(row.pandemicId(), row.regionId(), row.date()));
+        totalByDay.setCaseCount(row.caseCount());
+        totalByDay.setDeath(row.death());
+        totalByDay.setRecovered(row.recovered());
+        totalByDay.setNewCases(row.newCases());
+        totalByDay.setNewDeaths(row.newDeaths());
+        totalByDay.setPandemics(entityManager.getReference(Pandemics.class, row.pandemicId()));
+        totalByDay.setRegions(entityManager.getReference(Regions.class, row.regionId()));
+        totalByDay.markNew();
+
+        totalByDayRepository.save(totalByDay);
+    }
+
+    /**
+     * Envoie un lot JDBC et retourne le nombre de lignes écrites (0 si le lot a échoué)
+     */
+    private int flushBatch(List<TotalByDayRow> batch, boolean upsert, String label, DeadLetterWriter.Session rejects) {
+        try {
+            return totalByDayBatchWriter.write(batch, upsert);
+        } catch (Exception e) {
+            System.err.println("Erreur lors de l'insertion d'un lot " + label + " de " + batch.size()
+                    + " lignes: " + e.getMessage());
+            rejects.rejectAll(DeadLetterWriter.Reason.WRITE_FAILED, batch, e.getMessage());
+            return 0;
         }
+    }
 
-        System.out.println("Insertion des données COVID quotidiennes terminée. Succès: " + success + ", Échecs: " + failed);
+    private void logThroughput(String label, int rows, long startNanos) {
+        double seconds = (System.nanoTime() - startNanos) / 1_000_000_000.0;
+        double rowsPerSecond = seconds > 0 ? rows / seconds : rows;
+        System.out.printf("Débit %s: %d lignes en %.2f s (%.0f lignes/s)%n", label, rows, seconds, rowsPerSecond);
     }
 
     /**
@@ -393,29 +828,7 @@ public class DataInsertionService {
     public void createCountriesWithContinents() {
         System.out.println("Création des pays avec leurs associations de continent...");
         
-        int count = 0;
-        for (Map.Entry<String, String> entry : countryToContinentMap.entrySet()) {
-            String countryName = entry.getKey();
-            String continentName = entry.getValue();
-
-            if (continentName != null && continentsMap.containsKey(continentName)) {
-                Continents continent = continentsMap.get(continentName);
-
-                Countries country = countriesRepository.findByName(countryName);
-                if (country == null) {
-                    country = new Countries();
-                    country.setName(countryName);
-                    country.setContinents(continent);
-                    country = countriesRepository.save(country);
-                    countriesMap.put(countryName, country);
-                    count++;
-                } else if (country.getContinents() == null) {
-                    country.setContinents(continent);
-                    countriesRepository.save(country);
-                    count++;
-                }
-            }
-        }
+        int count = referenceDataResolver.resolveCountries(countryToContinentMap);
 
         System.out.println(count + " pays créés ou mis à jour avec leurs associations de continent.");
     }
@@ -449,19 +862,26 @@ public class DataInsertionService {
         List<Pandemics> allPandemics = pandemicsRepository.findAll();
         result.put("pandemics", allPandemics);
         
+        // Cas, décès et régions touchées de toutes les pandémies en une seule requête
+        Map<Integer, PandemicTotals> totalsByPandemic = new HashMap<>();
+        for (PandemicTotals totals : totalByDayRepository.findTotalsPerPandemic()) {
+            totalsByPandemic.put(totals.getPandemicId(), totals);
+        }
+
         // Analyse par pandémie
         List<Map<String, Object>> pandemicStats = new ArrayList<>();
         for (Pandemics pandemic : allPandemics) {
             Map<String, Object> stats = new HashMap<>();
             stats.put("id", pandemic.getIdPandemics());
             stats.put("name", pandemic.getName());
+            PandemicTotals totals = totalsByPandemic.get(pandemic.getIdPandemics());
             
             // Nombre total de cas par pandémie
-            Long totalCases = totalByDayRepository.sumCasesByPandemic(pandemic.getIdPandemics());
+            Long totalCases = totals != null && totals.getTotalCases() != null ? totals.getTotalCases() : 0L;
             stats.put("totalCases", totalCases);
             
             // Nombre total de décès par pandémie
-            Long totalDeaths = totalByDayRepository.sumDeathsByPandemic(pandemic.getIdPandemics());
+            Long totalDeaths = totals != null && totals.getTotalDeaths() != null ? totals.getTotalDeaths() : 0L;
             stats.put("totalDeaths", totalDeaths);
             
             // Calcul du taux de mortalité
@@ -469,7 +889,7 @@ public class DataInsertionService {
             stats.put("mortalityRate", mortalityRate);
             
             // Nombre de pays/régions touchés
-            Long affectedRegions = totalByDayRepository.countDistinctRegionsByPandemic(pandemic.getIdPandemics());
+            Long affectedRegions = totals != null ? totals.getAffectedRegions() : 0L;
             stats.put("affectedRegions", affectedRegions);
             
             pandemicStats.add(stats);
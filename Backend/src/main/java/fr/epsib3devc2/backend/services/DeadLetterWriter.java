@@ -0,0 +1,177 @@
+package fr.epsib3devc2.backend.services;
+
+import fr.epsib3devc2.backend.config.IngestProperties;
+import fr.epsib3devc2.backend.dto.TotalByDayRow;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.SimpleDateFormat;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Date;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Fichier de rejet (dead-letter) des lignes d'ingestion écartées : une ligne CSV par rejet avec son motif,
+ * écrite au fil de l'eau sans exception ni log par ligne. Un récapitulatif des rejets par motif est
+ * affiché à la fin de chaque fichier ingéré.
+ */
+@Service
+public class DeadLetterWriter {
+
+    private static final String HEADER = "reason,country,region_id,date,detail";
+    private static final DateTimeFormatter FILE_TIMESTAMP = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
+    @Autowired
+    private IngestProperties ingestProperties;
+
+    /**
+     * Motif de rejet, écrit en première colonne du fichier
+     */
+    public enum Reason {
+        // Ligne CSV illisible (ignorée par la politique de skip du job batch)
+        PARSE_ERROR,
+        // Pandémie non initialisée en base
+        UNKNOWN_PANDEMIC,
+        MISSING_COUNTRY,
+        MISSING_DATE,
+        // Région introuvable et non créée
+        UNRESOLVED_REGION,
+        // Ligne ignorée par la base (clé déjà présente en insertion seule)
+        DUPLICATE_KEY,
+        // Lot ou transaction en échec à l'écriture
+        WRITE_FAILED
+    }
+
+    public Session open(String label) {
+        return new Session(label);
+    }
+
+    /**
+     * Rejets d'un fichier : le fichier CSV n'est créé qu'au premier rejet.
+     * Utilisable depuis plusieurs threads (normaliseurs et écrivains du pipeline).
+     */
+    public class Session implements AutoCloseable {
+
+        private final String label;
+        private final Map<Reason, AtomicLong> counts = new EnumMap<>(Reason.class);
+        private final SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd");
+        private Path path;
+        private BufferedWriter writer;
+        private boolean writeFailed;
+
+        private Session(String label) {
+            this.label = label;
+            for (Reason reason : Reason.values()) {
+                counts.put(reason, new AtomicLong());
+            }
+        }
+
+        public void reject(Reason reason, String country, Date date, String detail) {
+            counts.get(reason).incrementAndGet();
+            write(reason, country, null, date, detail);
+        }
+
+        public void reject(Reason reason, TotalByDayRow row, String detail) {
+            counts.get(reason).incrementAndGet();
+            write(reason, null, row.regionId(), row.date(), detail);
+        }
+
+        public void rejectAll(Reason reason, List<TotalByDayRow> rows, String detail) {
+            for (TotalByDayRow row : rows) {
+                reject(reason, row, detail);
+            }
+        }
+
+        /**
+         * Rejets comptés sans ligne identifiable (doublons ignorés par LOAD DATA par exemple)
+         */
+        public void count(Reason reason, long rows) {
+            counts.get(reason).addAndGet(rows);
+        }
+
+        public long total() {
+            return counts.values().stream().mapToLong(AtomicLong::get).sum();
+        }
+
+        public Map<Reason, Long> counts() {
+            Map<Reason, Long> result = new EnumMap<>(Reason.class);
+            counts.forEach((reason, count) -> {
+                if (count.get() > 0) {
+                    result.put(reason, count.get());
+                }
+            });
+            return result;
+        }
+
+        private synchronized void write(Reason reason, String country, Integer regionId, Date date, String detail) {
+            if (writeFailed) {
+                return;
+            }
+            try {
+                if (writer == null) {
+                    Path directory = Path.of(ingestProperties.getDeadLetterDir());
+                    Files.createDirectories(directory);
+                    path = directory.resolve(label.toLowerCase() + "-" + LocalDateTime.now().format(FILE_TIMESTAMP) + ".csv");
+                    writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8);
+                    writer.write(HEADER);
+                    writer.newLine();
+                }
+                writer.write(reason.name());
+                writer.write(',');
+                writer.write(escape(country));
+                writer.write(',');
+                writer.write(regionId != null ? regionId.toString() : "");
+                writer.write(',');
+                writer.write(date != null ? dateFormat.format(date) : "");
+                writer.write(',');
+                writer.write(escape(detail));
+                writer.newLine();
+            } catch (IOException e) {
+                // Les rejets restent comptés, seul le fichier est abandonné
+                writeFailed = true;
+                System.err.println("Impossible d'écrire le fichier de rejets " + label + ": " + e.getMessage());
+            }
+        }
+
+        private static String escape(String value) {
+            if (value == null) {
+                return "";
+            }
+            if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0) {
+                return value;
+            }
+            return '"' + value.replace("\"", "\"\"").replace('\n', ' ') + '"';
+        }
+
+        @Override
+        public synchronized void close() {
+            if (writer != null) {
+                try {
+                    writer.close();
+                } catch (IOException e) {
+                    System.err.println("Erreur à la fermeture du fichier de rejets " + label + ": " + e.getMessage());
+                }
+            }
+
+            long total = total();
+            if (total == 0) {
+                return;
+            }
+            String summary = counts().entrySet().stream()
+                    .map(entry -> entry.getKey() + "=" + entry.getValue())
+                    .collect(Collectors.joining(", "));
+            System.out.println("Rejets " + label + ": " + total + " lignes (" + summary + ")"
+                    + (path != null ? " -> " + path : ""));
+        }
+    }
+}
@@ -0,0 +1,292 @@
+package fr.epsib3devc2.backend.services;
+
+import fr.epsib3devc2.backend.config.IngestProperties;
+import fr.epsib3devc2.backend.dto.CovidDailyDto;
+import fr.epsib3devc2.backend.dto.SarsDto;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+/**
+ * Ingestion continue des fichiers CSV déposés dans ingest.watch-dir (NIO WatchService).
+ * Les événements d'un fichier sont regroupés (debounce) jusqu'à ce qu'il ne soit plus modifié,
+ * puis le fichier est confié à un pool borné de workers. L'ingestion est incrémentale : seuls les
+ * jours postérieurs aux dernières dates chargées sont écrits, et un fichier inchangé est ignoré.
+ */
+@Service
+public class DropDirectoryWatcher {
+
+    /**
+     * Jeu de données reconnu à partir du nom du fichier et de son en-tête
+     */
+    enum Dataset {
+        SARS, COVID_DAILY, COVID_SUMMARY, UNKNOWN
+    }
+
+    @Autowired
+    private DataInsertionService dataInsertionService;
+
+    @Autowired
+    private IngestPipeline ingestPipeline;
+
+    @Autowired
+    private ReadToCsv readToCsv;
+
+    @Autowired
+    private IngestFingerprintService ingestFingerprintService;
+
+    @Autowired
+    private PandemicIngestLocks pandemicIngestLocks;
+
+    @Autowired
+    private ShadowTableReload shadowTableReload;
+
+    @Autowired
+    private IngestProperties ingestProperties;
+
+    // Date du dernier événement reçu (nanosecondes) par fichier en attente de stabilisation
+    private final Map<Path, Long> pending = new ConcurrentHashMap<>();
+
+    private WatchService watchService;
+    private ScheduledExecutorService debouncer;
+    private ThreadPoolExecutor workers;
+    private volatile boolean referenceDataReady = false;
+
+    /**
+     * Démarre la surveillance ; les fichiers déjà présents sont examinés une première fois
+     */
+    public synchronized void start() throws IOException {
+        if (watchService != null) {
+            return;
+        }
+
+        Path directory = Path.of(ingestProperties.getWatchDir());
+        Files.createDirectories(directory);
+        int workerCount = Math.max(1, ingestProperties.getWatchWorkers());
+
+        watchService = directory.getFileSystem().newWatchService();
+        directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+        debouncer = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().name("ingest-watch-debounce").daemon().factory());
+        workers = new ThreadPoolExecutor(workerCount, workerCount, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, ingestProperties.getWatchQueueCapacity())),
+                Thread.ofPlatform().name("ingest-watch-", 0).daemon().factory());
+
+        Thread.ofPlatform().name("ingest-watch").daemon().start(() -> watch(directory));
+
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+            files.forEach(this::onEvent);
+        }
+        System.out.println("Surveillance du répertoire de dépôt " + directory.toAbsolutePath() + " (" + workerCount
+                + " workers, délai de stabilisation " + ingestProperties.getWatchDebounceMs() + " ms)");
+    }
+
+    private void watch(Path directory) {
+        try {
+            while (true) {
+                WatchKey key = watchService.take();
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    if (event.kind() != StandardWatchEventKinds.OVERFLOW) {
+                        onEvent(directory.resolve((Path) event.context()));
+                    }
+                }
+                if (!key.reset()) {
+                    System.err.println("Le répertoire de dépôt " + directory + " n'est plus accessible, surveillance arrêtée.");
+                    return;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ClosedWatchServiceException e) {
+            // Arrêt de l'application
+        }
+    }
+
+    private void onEvent(Path file) {
+        if (!isCsv(file)) {
+            return;
+        }
+        // Seul le premier événement programme une vérification, les suivants repoussent l'échéance
+        if (pending.put(file, System.nanoTime()) == null) {
+            schedule(file);
+        }
+    }
+
+    private void schedule(Path file) {
+        debouncer.schedule(() -> settle(file), ingestProperties.getWatchDebounceMs(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Confie le fichier aux workers s'il n'a plus été modifié depuis le délai de stabilisation
+     */
+    private void settle(Path file) {
+        Long lastEvent = pending.get(file);
+        if (lastEvent == null) {
+            return;
+        }
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - lastEvent);
+        if (elapsedMs < ingestProperties.getWatchDebounceMs()) {
+            schedule(file);
+            return;
+        }
+
+        if (!pending.remove(file, lastEvent)) {
+            // Nouvel événement entre-temps
+            schedule(file);
+            return;
+        }
+        try {
+            workers.execute(() -> ingest(file));
+        } catch (RejectedExecutionException e) {
+            // File des workers pleine : nouvelle tentative après le délai de stabilisation
+            pending.putIfAbsent(file, System.nanoTime());
+            schedule(file);
+        }
+    }
+
+    private void ingest(Path file) {
+        if (!Files.isRegularFile(file)) {
+            return;
+        }
+        String path = file.toString();
+        try {
+            Dataset dataset = detectDataset(file);
+            if (dataset == Dataset.UNKNOWN || dataset == Dataset.COVID_SUMMARY) {
+                System.out.println("Fichier déposé " + file.getFileName() + " ignoré (" + dataset + ")");
+                return;
+            }
+            if (ingestFingerprintService.isUnchanged(List.of(path))) {
+                return;
+            }
+
+            String pandemicName = dataset == Dataset.SARS ? DataNormalizationService.PANDEMIC_SARS : DataNormalizationService.PANDEMIC_COVID;
+            ReentrantLock lock = pandemicIngestLocks.forPandemic(pandemicName);
+            lock.lock();
+            try {
+                // Rechargement complet en cours : le fichier est repris après le délai de stabilisation
+                if (shadowTableReload.isActive()) {
+                    System.out.println("Rechargement complet en cours, ingestion de " + file.getFileName() + " reportée");
+                    pending.putIfAbsent(file, System.nanoTime());
+                    schedule(file);
+                    return;
+                }
+                System.out.println("Ingestion du fichier déposé " + file.getFileName() + " (" + dataset + ")");
+                ensureReferenceData();
+                long failed = dataset == Dataset.SARS ? ingestSars(path) : ingestCovidDaily(path);
+                // Fichier marqué comme ingéré seulement si toutes ses lignes valides ont été écrites
+                if (failed > 0) {
+                    System.err.println(failed + " lignes de " + file.getFileName() + " non écrites: le fichier sera réingéré à sa prochaine modification ou au prochain démarrage.");
+                } else {
+                    ingestFingerprintService.record(List.of(path));
+                }
+            } finally {
+                lock.unlock();
+            }
+        } catch (Exception e) {
+            System.err.println("Erreur lors de l'ingestion du fichier déposé " + file.getFileName() + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Retourne le nombre de lignes dont l'écriture a échoué
+     */
+    private long ingestSars(String path) throws IOException {
+        try (Stream<SarsDto> sarsData = readToCsv.streamSarsData(path)) {
+            if (ingestProperties.getEngine() == IngestProperties.Engine.PIPELINE) {
+                return ingestPipeline.ingestSars(sarsData, true);
+            }
+            return dataInsertionService.insertSarsData(sarsData, path, true);
+        }
+    }
+
+    private long ingestCovidDaily(String path) throws IOException {
+        try (Stream<CovidDailyDto> covidDailyData = readToCsv.streamCovidDailyData(path)) {
+            if (ingestProperties.getEngine() == IngestProperties.Engine.PIPELINE) {
+                return ingestPipeline.ingestCovidDaily(covidDailyData, true);
+            }
+            return dataInsertionService.insertCovidDailyData(covidDailyData, path, true);
+        }
+    }
+
+    /**
+     * Pandémies créées et caches de référence chargés (cas d'un démarrage sans ingestion, fichiers inchangés)
+     */
+    private synchronized void ensureReferenceData() {
+        if (!referenceDataReady) {
+            dataInsertionService.initializeDatabase();
+            referenceDataReady = true;
+        }
+    }
+
+    /**
+     * Type de pandémie d'après le nom du fichier, puis fichier quotidien ou de synthèse d'après l'en-tête
+     */
+    static Dataset detectDataset(Path file) throws IOException {
+        return detectDataset(file, file.getFileName().toString());
+    }
+
+    /**
+     * Variante pour un fichier temporaire : le type de pandémie est déduit du nom d'origine
+     */
+    static Dataset detectDataset(Path file, String fileName) throws IOException {
+        String header;
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(CompressedInput.open(file), StandardCharsets.UTF_8))) {
+            header = reader.readLine();
+        }
+        if (header == null) {
+            return Dataset.UNKNOWN;
+        }
+
+        String columns = header.toLowerCase(Locale.ROOT);
+        if (DataNormalizationService.PANDEMIC_SARS.equals(DataNormalizationService.determinePandemicType(fileName))
+                || columns.contains("cumulative number of case(s)")) {
+            return Dataset.SARS;
+        }
+        if (columns.contains("cumulative_total_cases")) {
+            return Dataset.COVID_DAILY;
+        }
+        if (columns.contains("total_confirmed")) {
+            return Dataset.COVID_SUMMARY;
+        }
+        return Dataset.UNKNOWN;
+    }
+
+    private static boolean isCsv(Path file) {
+        String name = file.getFileName().toString().toLowerCase(Locale.ROOT);
+        return name.endsWith(".csv") || name.endsWith(".csv.gz") || name.endsWith(".csv.zst");
+    }
+
+    @PreDestroy
+    public synchronized void stop() throws IOException {
+        if (watchService == null) {
+            return;
+        }
+        watchService.close();
+        debouncer.shutdownNow();
+        workers.shutdown();
+    }
+}
@@ -0,0 +1,86 @@
+package fr.epsib3devc2.backend.services;
+
+import fr.epsib3devc2.backend.config.IngestProperties;
+import fr.epsib3devc2.backend.dto.RegionLastDate;
+import fr.epsib3devc2.backend.dto.TotalByDayRow;
+import fr.epsib3devc2.backend.repositories.TotalByDayRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Ingestion incrémentale (ingest.incremental=true) : la dernière date chargée par région est lue en une
+ * seule requête au démarrage de l'ingestion d'un fichier, puis seules les lignes postérieures à cette date
+ * sont écrites. Chaque ingestion travaille sur sa propre photographie des dates (Watermarks) : les
+ * ingestions simultanées (démarrage, répertoire de dépôt, API) ne se remplacent pas leurs références.
+ */
+@Service
+public class IncrementalIngestFilter {
+
+    @Autowired
+    private TotalByDayRepository totalByDayRepository;
+
+    @Autowired
+    private IngestProperties ingestProperties;
+
+    /**
+     * Dates de référence d'une ingestion, figées à son démarrage
+     */
+    public static final class Watermarks {
+
+        /**
+         * Aucune date de référence : toutes les lignes sont nouvelles (hors mode incrémental)
+         */
+        public static final Watermarks NONE = new Watermarks(Map.of());
+
+        // Clé : (id_pandemics << 32) | id_regions
+        private final Map<Long, LocalDate> lastDates;
+
+        private Watermarks(Map<Long, LocalDate> lastDates) {
+            this.lastDates = lastDates;
+        }
+
+        /**
+         * Vrai si la ligne est postérieure à la dernière date chargée pour sa pandémie et sa région
+         */
+        public boolean isNew(TotalByDayRow row) {
+            LocalDate lastDate = lastDates.get(key(row.pandemicId(), row.regionId()));
+            return lastDate == null || row.date().toLocalDate().isAfter(lastDate);
+        }
+
+        public int size() {
+            return lastDates.size();
+        }
+    }
+
+    /**
+     * Dates de référence d'une pandémie selon ingest.incremental ; à prendre au démarrage de chaque ingestion
+     */
+    public Watermarks snapshot(Integer pandemicId) {
+        return snapshot(pandemicId, ingestProperties.isIncremental());
+    }
+
+    /**
+     * Dates de référence d'une pandémie, le mode incrémental étant imposé par l'appelant
+     * (répertoire de dépôt, toujours incrémental)
+     */
+    public Watermarks snapshot(Integer pandemicId, boolean incremental) {
+        if (!incremental) {
+            return Watermarks.NONE;
+        }
+
+        Map<Long, LocalDate> dates = new HashMap<>();
+        for (RegionLastDate lastDate : totalByDayRepository.findLastDatesByPandemic(pandemicId)) {
+            dates.put(key(lastDate.getPandemicId(), lastDate.getRegionId()), lastDate.getLastDate().toLocalDate());
+        }
+        System.out.println("Ingestion incrémentale: " + dates.size() + " régions déjà chargées pour la pandémie " + pandemicId);
+        return new Watermarks(Map.copyOf(dates));
+    }
+
+    private static long key(Integer pandemicId, Integer regionId) {
+        return ((long) pandemicId << 32) | (regionId & 0xFFFFFFFFL);
+    }
+}
@@ -0,0 +1,115 @@
+package fr.epsib3devc2.backend.services;
+
+import fr.epsib3devc2.backend.bo.IngestFileFingerprint;
+import fr.epsib3devc2.backend.repositories.IngestFileFingerprintRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Empreintes (taille, date de modification, SHA-256) des fichiers d'entrée, enregistrées après chaque
+ * ingestion réussie : au démarrage suivant, l'ingestion est ignorée si aucun fichier n'a changé.
+ * Le SHA-256 n'est recalculé que si la taille ou la date de modification diffère.
+ */
+@Service
+public class IngestFingerprintService {
+
+    @Autowired
+    private IngestFileFingerprintRepository fingerprintRepository;
+
+    /**
+     * Vrai si chaque fichier existe et correspond à l'empreinte de sa dernière ingestion
+     */
+    public boolean isUnchanged(List<String> paths) {
+        for (String path : paths) {
+            Optional<IngestFileFingerprint> stored = fingerprintRepository.findById(key(path));
+            if (stored.isEmpty() || !matches(Paths.get(path), stored.get())) {
+                System.out.println("Fichier nouveau ou modifié depuis la dernière ingestion: " + path);
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Vrai si le fichier existe et correspond à l'empreinte donnée (contenu identique)
+     */
+    public boolean matches(String path, long size, long lastModified, String sha256) {
+        return matches(Paths.get(path), new IngestFileFingerprint(key(path), size, lastModified, sha256));
+    }
+
+    /**
+     * Empreinte courante d'un fichier, sans l'enregistrer
+     */
+    public IngestFileFingerprint current(String path) throws IOException {
+        Path file = Paths.get(path);
+        return new IngestFileFingerprint(key(path), Files.size(file), Files.getLastModifiedTime(file).toMillis(), sha256(file));
+    }
+
+    private boolean matches(Path path, IngestFileFingerprint stored) {
+        try {
+            if (!Files.isRegularFile(path) || Files.size(path) != stored.getSize()) {
+                return false;
+            }
+            if (Files.getLastModifiedTime(path).toMillis() == stored.getLastModified()) {
+                return true;
+            }
+            // Fichier touché (copie, déploiement) : on compare le contenu
+            return sha256(path).equals(stored.getSha256());
+        } catch (IOException e) {
+            System.err.println("Impossible de vérifier l'empreinte de " + path + ": " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Enregistre l'empreinte courante des fichiers après une ingestion réussie (les fichiers absents sont ignorés)
+     */
+    public void record(List<String> paths) {
+        for (String path : paths) {
+            Path file = Paths.get(path);
+            if (!Files.isRegularFile(file)) {
+                continue;
+            }
+            try {
+                fingerprintRepository.save(current(path));
+            } catch (IOException e) {
+                System.err.println("Impossible d'enregistrer l'empreinte de " + path + ": " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Clé d'un fichier : chemin absolu normalisé
+     */
+    public static String key(String path) {
+        return Paths.get(path).toAbsolutePath().normalize().toString();
+    }
+
+    private static String sha256(Path path) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        try (InputStream in = new DigestInputStream(Files.newInputStream(path), digest)) {
+            byte[] buffer = new byte[64 * 1024];
+            while (in.read(buffer) != -1) {
+                // lecture seule : le digest est alimenté au fil du flux
+            }
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+}
@@ -0,0 +1,341 @@
+package fr.epsib3devc2.backend.services;
+
+import fr.epsib3devc2.backend.bo.Pandemics;
+import fr.epsib3devc2.backend.config.IngestProperties;
+import fr.epsib3devc2.backend.dto.CovidDailyDto;
+import fr.epsib3devc2.backend.dto.IngestPipelineStatus;
+import fr.epsib3devc2.backend.dto.SarsDto;
+import fr.epsib3devc2.backend.dto.TotalByDayRow;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * Ingestion d'un fichier quotidien en trois étapes concurrentes :
+ * parsing (lecture du flux CSV) -> normalisation (résolution des régions) -> écriture JDBC par lots.
+ * Les étapes communiquent par des files bornées de lots : quand l'écriture ralentit, les files se
+ * remplissent et bloquent le parsing, ce qui borne la mémoire à quelques lots par étape.
+ */
+@Service
+public class IngestPipeline {
+
+    @Autowired
+    private DataInsertionService dataInsertionService;
+
+    @Autowired
+    private ReferenceDataResolver referenceDataResolver;
+
+    @Autowired
+    private TotalByDayBatchWriter totalByDayBatchWriter;
+
+    @Autowired
+    private IncrementalIngestFilter incrementalIngestFilter;
+
+    @Autowired
+    private DeadLetterWriter deadLetterWriter;
+
+    @Autowired
+    private DailyDeltaService dailyDeltaService;
+
+    @Autowired
+    private ContinentSummaryService continentSummaryService;
+
+    @Autowired
+    private IngestProperties ingestProperties;
+
+    // Dernière exécution par fichier (SARS, COVID), en cours ou terminée
+    private final Map<String, PipelineRun> runs = new ConcurrentHashMap<>();
+
+    public long ingestSars(Stream<SarsDto> sarsData) {
+        return ingestSars(sarsData, ingestProperties.isIncremental());
+    }
+
+    public long ingestSars(Stream<SarsDto> sarsData, boolean incremental) {
+        return run("SARS", DataNormalizationService.PANDEMIC_SARS, dataInsertionService.withRegionsResolved(sarsData, SarsDto::getCountry),
+                dataInsertionService::toSarsRow, incremental);
+    }
+
+    public long ingestCovidDaily(Stream<CovidDailyDto> covidDailyData) {
+        return ingestCovidDaily(covidDailyData, ingestProperties.isIncremental());
+    }
+
+    public long ingestCovidDaily(Stream<CovidDailyDto> covidDailyData, boolean incremental) {
+        return run("COVID", DataNormalizationService.PANDEMIC_COVID, dataInsertionService.withRegionsResolved(covidDailyData, CovidDailyDto::getCountry),
+                dataInsertionService::toCovidDailyRow, incremental);
+    }
+
+    /**
+     * Exécute le pipeline sur un flux et attend la fin des trois étapes. En mode incrémental, les dates
+     * de référence sont lues au démarrage de l'exécution et lui sont propres.
+     *
+     * @return le nombre de lignes des lots dont l'écriture a échoué (les lignes invalides n'en font pas partie)
+     * @throws IllegalStateException si la pandémie n'existe pas, ou si la lecture ou la normalisation du fichier a échoué : les lignes déjà
+     *                               écrites restent en base, mais ni les écarts quotidiens ni la synthèse par
+     *                               continent ne sont recalculés, et l'appelant ne doit pas considérer le
+     *                               fichier comme ingéré
+     */
+    public <T> long run(String label, String pandemicName, Stream<T> source,
+                        BiFunction<T, DeadLetterWriter.Session, TotalByDayRow> toRow, boolean incremental) {
+        Pandemics pandemic = referenceDataResolver.pandemic(pandemicName);
+        if (pandemic == null) {
+            throw new IllegalStateException("La pandémie " + pandemicName + " n'a pas été initialisée.");
+        }
+
+        boolean upsert = dataInsertionService.isUpsertRequired(pandemic);
+        IncrementalIngestFilter.Watermarks watermarks = incrementalIngestFilter.snapshot(pandemic.getIdPandemics(), incremental);
+        int capacity = Math.max(1, ingestProperties.getPipelineQueueCapacity());
+        int normalizers = Math.max(1, ingestProperties.getPipelineNormalizers());
+        int writers = Math.max(1, ingestProperties.getPipelineWriters());
+
+        BlockingQueue<List<T>> parsed = new ArrayBlockingQueue<>(capacity);
+        BlockingQueue<List<TotalByDayRow>> normalized = new ArrayBlockingQueue<>(capacity);
+        // Marqueurs de fin de flux (comparés par identité)
+        List<T> parsedEnd = new ArrayList<>(0);
+        List<TotalByDayRow> normalizedEnd = new ArrayList<>(0);
+
+        PipelineRun run = new PipelineRun(label, parsed, normalized, capacity);
+        runs.put(label, run);
+        System.out.println("Pipeline " + label + ": " + normalizers + " normaliseur(s), " + writers
+                + " écrivain(s), files de " + capacity + " lots de " + ingestProperties.getBatchSize() + " lignes");
+
+        AtomicInteger activeNormalizers = new AtomicInteger(normalizers);
+        try (DeadLetterWriter.Session rejects = deadLetterWriter.open(label);
+             ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            Function<T, TotalByDayRow> converter = item -> toRow.apply(item, rejects);
+            executor.submit(() -> parse(run, source, parsed, parsedEnd, normalizers));
+            for (int i = 0; i < normalizers; i++) {
+                executor.submit(() -> normalize(run, converter, watermarks, parsed, parsedEnd, normalized, normalizedEnd,
+                        activeNormalizers, writers));
+            }
+            for (int i = 0; i < writers; i++) {
+                executor.submit(() -> write(run, normalized, normalizedEnd, upsert, rejects));
+            }
+        }
+
+        if (run.error != null) {
+            run.finish();
+            System.err.println("Pipeline " + label + " en échec après " + run.write.items.get() + " lignes écrites: "
+                    + run.error.getMessage());
+            throw new IllegalStateException("Ingestion " + label + " interrompue: " + run.error.getMessage(), run.error);
+        }
+
+        dailyDeltaService.refresh(pandemic, label);
+        continentSummaryService.refresh(pandemic.getIdPandemics(), label);
+        run.finish();
+        IngestPipelineStatus status = run.status();
+        System.out.println("Insertion des données " + label + " terminée. Succès: " + run.write.items.get()
+                + ", Échecs: " + run.failed.get() + (run.skipped.get() > 0 ? ", Déjà chargées: " + run.skipped.get() : ""));
+        for (IngestPipelineStatus.Stage stage : status.stages()) {
+            System.out.printf("Débit %s/%s: %d lignes (%.0f lignes/s)%n",
+                    label, stage.name(), stage.items(), stage.itemsPerSecond());
+        }
+        return run.writeFailed.get();
+    }
+
+    private <T> void parse(PipelineRun run, Stream<T> source, BlockingQueue<List<T>> out, List<T> end, int consumers) {
+        try {
+            ReadToCsv.forEachChunk(source, ingestProperties.getBatchSize(), chunk -> {
+                put(out, chunk);
+                run.parse.items.addAndGet(chunk.size());
+            });
+        } catch (RuntimeException e) {
+            System.err.println("Erreur de lecture du fichier " + run.label + ": " + e.getMessage());
+            run.fail(e);
+        } finally {
+            run.parse.finish();
+            for (int i = 0; i < consumers; i++) {
+                put(out, end);
+            }
+        }
+    }
+
+    private <T> void normalize(PipelineRun run, Function<T, TotalByDayRow> toRow,
+                               IncrementalIngestFilter.Watermarks watermarks, BlockingQueue<List<T>> in, List<T> inEnd,
+                               BlockingQueue<List<TotalByDayRow>> out, List<TotalByDayRow> outEnd,
+                               AtomicInteger activeNormalizers, int consumers) {
+        try {
+            List<T> chunk;
+            while ((chunk = take(in)) != inEnd) {
+                // Après un échec, les lots restants sont seulement consommés pour ne pas bloquer le parsing
+                if (run.error != null) {
+                    continue;
+                }
+                try {
+                    normalizeChunk(run, toRow, watermarks, chunk, out);
+                } catch (RuntimeException e) {
+                    System.err.println("Erreur de normalisation d'un lot " + run.label + ": " + e.getMessage());
+                    run.fail(e);
+                }
+            }
+        } finally {
+            // Le dernier normaliseur termine le flux pour les écrivains
+            if (activeNormalizers.decrementAndGet() == 0) {
+                run.normalize.finish();
+                for (int i = 0; i < consumers; i++) {
+                    put(out, outEnd);
+                }
+            }
+        }
+    }
+
+    private <T> void normalizeChunk(PipelineRun run, Function<T, TotalByDayRow> toRow,
+                                    IncrementalIngestFilter.Watermarks watermarks, List<T> chunk,
+                                    BlockingQueue<List<TotalByDayRow>> out) {
+        List<TotalByDayRow> rows = new ArrayList<>(chunk.size());
+        for (T item : chunk) {
+            TotalByDayRow row = toRow.apply(item);
+            if (row == null) {
+                run.failed.incrementAndGet();
+            } else if (!watermarks.isNew(row)) {
+                run.skipped.incrementAndGet();
+            } else {
+                rows.add(row);
+            }
+        }
+        if (!rows.isEmpty()) {
+            put(out, rows);
+        }
+        run.normalize.items.addAndGet(chunk.size());
+    }
+
+    private void write(PipelineRun run, BlockingQueue<List<TotalByDayRow>> in, List<TotalByDayRow> end,
+                       boolean upsert, DeadLetterWriter.Session rejects) {
+        List<TotalByDayRow> rows;
+        while ((rows = take(in)) != end) {
+            try {
+                run.write.items.addAndGet(totalByDayBatchWriter.write(rows, upsert));
+            } catch (Exception e) {
+                System.err.println("Erreur lors de l'insertion d'un lot " + run.label + " de " + rows.size()
+                        + " lignes: " + e.getMessage());
+                rejects.rejectAll(DeadLetterWriter.Reason.WRITE_FAILED, rows, e.getMessage());
+                run.failed.addAndGet(rows.size());
+                run.writeFailed.addAndGet(rows.size());
+            }
+        }
+        run.write.finish();
+    }
+
+    private static <E> void put(BlockingQueue<E> queue, E element) {
+        try {
+            queue.put(element);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Pipeline d'ingestion interrompu", e);
+        }
+    }
+
+    private static <E> E take(BlockingQueue<E> queue) {
+        try {
+            return queue.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Pipeline d'ingestion interrompu", e);
+        }
+    }
+
+    /**
+     * État des exécutions du pipeline (en cours ou terminées), par fichier
+     */
+    public List<IngestPipelineStatus> status() {
+        return runs.values().stream().map(PipelineRun::status).toList();
+    }
+
+    /**
+     * État d'une exécution, null si aucune exécution ne porte ce libellé
+     */
+    public IngestPipelineStatus status(String label) {
+        PipelineRun run = runs.get(label);
+        return run != null ? run.status() : null;
+    }
+
+    /**
+     * Oublie une exécution terminée (libellés propres à un dépôt de fichier)
+     */
+    public void forget(String label) {
+        runs.remove(label);
+    }
+
+    /**
+     * Compteurs d'une étape ; le débit est calculé depuis le démarrage du pipeline
+     */
+    private static class StageMetrics {
+        private final String name;
+        private final AtomicLong items = new AtomicLong();
+        private volatile long endNanos;
+
+        StageMetrics(String name) {
+            this.name = name;
+        }
+
+        void finish() {
+            endNanos = System.nanoTime();
+        }
+
+        IngestPipelineStatus.Stage status(long startNanos, BlockingQueue<?> input, int capacity) {
+            long end = endNanos != 0 ? endNanos : System.nanoTime();
+            double seconds = (end - startNanos) / 1_000_000_000.0;
+            long count = items.get();
+            return new IngestPipelineStatus.Stage(name, count, seconds > 0 ? count / seconds : count,
+                    input != null ? input.size() : 0, input != null ? capacity : 0);
+        }
+    }
+
+    private static class PipelineRun {
+        private final String label;
+        private final BlockingQueue<?> parsedQueue;
+        private final BlockingQueue<?> normalizedQueue;
+        private final int capacity;
+        private final long startNanos = System.nanoTime();
+        private volatile long endNanos;
+
+        private final StageMetrics parse = new StageMetrics("parsing");
+        private final StageMetrics normalize = new StageMetrics("normalisation");
+        private final StageMetrics write = new StageMetrics("écriture");
+        private final AtomicLong failed = new AtomicLong();
+        // Part des échecs due à un lot refusé par la base (hors lignes invalides)
+        private final AtomicLong writeFailed = new AtomicLong();
+        private final AtomicLong skipped = new AtomicLong();
+        // Première erreur de lecture ou de normalisation : l'exécution est en échec
+        private volatile RuntimeException error;
+
+        PipelineRun(String label, BlockingQueue<?> parsedQueue, BlockingQueue<?> normalizedQueue, int capacity) {
+            this.label = label;
+            this.parsedQueue = parsedQueue;
+            this.normalizedQueue = normalizedQueue;
+            this.capacity = capacity;
+        }
+
+        void finish() {
+            endNanos = System.nanoTime();
+        }
+
+        synchronized void fail(RuntimeException e) {
+            if (error == null) {
+                error = e;
+            }
+        }
+
+        IngestPipelineStatus status() {
+            long end = endNanos != 0 ? endNanos : System.nanoTime();
+            String state = endNanos == 0 ? "EN_COURS" : error != null ? "ECHEC" : "TERMINE";
+            return new IngestPipelineStatus(label, state, failed.get(),
+                    (end - startNanos) / 1_000_000_000.0,
+                    List.of(parse.status(startNanos, null, capacity),
+                            normalize.status(startNanos, parsedQueue, capacity),
+                            write.status(startNanos, normalizedQueue, capacity)));
+        }
+    }
+}
@@ -0,0 +1,201 @@
+package fr.epsib3devc2.backend.services;
+
+import fr.epsib3devc2.backend.config.IngestProperties;
+import fr.epsib3devc2.backend.dto.CovidDailyDto;
+import fr.epsib3devc2.backend.dto.IngestJobStatus;
+import fr.epsib3devc2.backend.dto.IngestPipelineStatus;
+import fr.epsib3devc2.backend.dto.SarsDto;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+/**
+ * Ingestion asynchrone des fichiers CSV déposés par l'API : le fichier multipart est déplacé sur disque
+ * (transferTo, sans copie en mémoire), puis lu en flux par le pipeline d'ingestion sur un pool borné.
+ * Le thread de la requête rend immédiatement l'identifiant du job ; l'avancement est lu dans les
+ * compteurs du pipeline.
+ */
+@Service
+public class IngestUploadService {
+
+    private static final String STATE_QUEUED = "EN_ATTENTE";
+    private static final String STATE_FAILED = "ECHEC";
+    private static final int HISTORY_SIZE = 100;
+    private static final String RELOAD_IN_PROGRESS = "Rechargement complet en cours, réessayer plus tard";
+
+    @Autowired
+    private IngestPipeline ingestPipeline;
+
+    @Autowired
+    private DataInsertionService dataInsertionService;
+
+    @Autowired
+    private ReadToCsv readToCsv;
+
+    @Autowired
+    private IngestProperties ingestProperties;
+
+    @Autowired
+    private PandemicIngestLocks pandemicIngestLocks;
+
+    @Autowired
+    private ShadowTableReload shadowTableReload;
+
+    private ThreadPoolExecutor executor;
+
+    // Derniers jobs (les plus anciens sont oubliés, ainsi que leur exécution du pipeline)
+    private final Map<String, UploadJob> jobs = Collections.synchronizedMap(new LinkedHashMap<>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, UploadJob> eldest) {
+            if (size() > HISTORY_SIZE) {
+                ingestPipeline.forget(eldest.getValue().label());
+                return true;
+            }
+            return false;
+        }
+    });
+
+    private static class UploadJob {
+        private final String id;
+        private final String fileName;
+        private final DropDirectoryWatcher.Dataset dataset;
+        private volatile String error;
+
+        UploadJob(String id, String fileName, DropDirectoryWatcher.Dataset dataset) {
+            this.id = id;
+            this.fileName = fileName;
+            this.dataset = dataset;
+        }
+
+        String label() {
+            return "UPLOAD-" + id;
+        }
+    }
+
+    /**
+     * Enregistre le fichier et planifie son ingestion.
+     *
+     * @return l'identifiant du job
+     * @throws IllegalArgumentException si le fichier n'est ni un fichier SARS ni un fichier COVID quotidien
+     * @throws RejectedExecutionException si trop d'ingestions sont déjà en attente
+     * @throws IllegalStateException pendant un rechargement complet par table fantôme
+     */
+    public String submit(MultipartFile file) throws IOException {
+        if (shadowTableReload.isActive()) {
+            throw new IllegalStateException(RELOAD_IN_PROGRESS);
+        }
+        String fileName = file.getOriginalFilename() != null ? Path.of(file.getOriginalFilename()).getFileName().toString() : "upload.csv";
+        Path tempFile = Files.createTempFile("ingest-upload-", ".csv");
+        try {
+            file.transferTo(tempFile);
+            DropDirectoryWatcher.Dataset dataset = DropDirectoryWatcher.detectDataset(tempFile, fileName);
+            if (dataset != DropDirectoryWatcher.Dataset.SARS && dataset != DropDirectoryWatcher.Dataset.COVID_DAILY) {
+                throw new IllegalArgumentException("Fichier " + fileName + " non reconnu (" + dataset
+                        + "), fichier SARS ou COVID quotidien attendu");
+            }
+
+            UploadJob job = new UploadJob(UUID.randomUUID().toString(), fileName, dataset);
+            jobs.put(job.id, job);
+            try {
+                executor().execute(() -> run(job, tempFile));
+            } catch (RejectedExecutionException e) {
+                jobs.remove(job.id);
+                throw e;
+            }
+            System.out.println("Fichier déposé " + fileName + " (" + file.getSize() + " octets) planifié: job " + job.id);
+            return job.id;
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(tempFile);
+            throw e;
+        }
+    }
+
+    private void run(UploadJob job, Path tempFile) {
+        String path = tempFile.toString();
+        String pandemicName = job.dataset == DropDirectoryWatcher.Dataset.SARS
+                ? DataNormalizationService.PANDEMIC_SARS : DataNormalizationService.PANDEMIC_COVID;
+        // Même verrou que le répertoire de dépôt ; l'ingestion est incrémentale (dates lues sous le verrou)
+        ReentrantLock lock = pandemicIngestLocks.forPandemic(pandemicName);
+        lock.lock();
+        try {
+            // Job planifié avant le début d'un rechargement : ses lignes iraient dans la table fantôme
+            if (shadowTableReload.isActive()) {
+                throw new IllegalStateException(RELOAD_IN_PROGRESS);
+            }
+            dataInsertionService.initializeDatabase();
+            if (job.dataset == DropDirectoryWatcher.Dataset.SARS) {
+                try (Stream<SarsDto> sarsData = readToCsv.streamSarsData(path)) {
+                    ingestPipeline.run(job.label(), pandemicName, sarsData, dataInsertionService::toSarsRow, true);
+                }
+            } else {
+                try (Stream<CovidDailyDto> covidDailyData = readToCsv.streamCovidDailyData(path)) {
+                    ingestPipeline.run(job.label(), pandemicName, covidDailyData, dataInsertionService::toCovidDailyRow, true);
+                }
+            }
+        } catch (Exception e) {
+            System.err.println("Erreur lors de l'ingestion du fichier déposé " + job.fileName + ": " + e.getMessage());
+            job.error = e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+        } finally {
+            lock.unlock();
+            try {
+                Files.deleteIfExists(tempFile);
+            } catch (IOException e) {
+                System.err.println("Impossible de supprimer le fichier temporaire " + tempFile + ": " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Avancement d'un job, null si l'identifiant est inconnu
+     */
+    public IngestJobStatus status(String id) {
+        UploadJob job = jobs.get(id);
+        if (job == null) {
+            return null;
+        }
+
+        IngestPipelineStatus run = ingestPipeline.status(job.label());
+        String state = job.error != null ? STATE_FAILED : run != null ? run.state() : STATE_QUEUED;
+        if (run == null) {
+            return new IngestJobStatus(job.id, job.fileName, job.dataset.name(), state, job.error, 0, 0, 0, 0, 0);
+        }
+
+        // Étapes du pipeline : parsing, normalisation, écriture
+        IngestPipelineStatus.Stage parse = run.stages().get(0);
+        IngestPipelineStatus.Stage write = run.stages().get(run.stages().size() - 1);
+        return new IngestJobStatus(job.id, job.fileName, job.dataset.name(), state, job.error,
+                parse.items(), write.items(), run.failed(), write.itemsPerSecond(), run.elapsedSeconds());
+    }
+
+    private synchronized ThreadPoolExecutor executor() {
+        if (executor == null) {
+            int workers = Math.max(1, ingestProperties.getUploadWorkers());
+            executor = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+                    new ArrayBlockingQueue<>(Math.max(1, ingestProperties.getUploadQueueCapacity())),
+                    Thread.ofPlatform().name("ingest-upload-", 0).daemon().factory());
+        }
+        return executor;
+    }
+
+    @PreDestroy
+    public synchronized void stop() {
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
+}
@@ -0,0 +1,426 @@
+package fr.epsib3devc2.backend.services;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Parseur CSV minimal travaillant directement sur le fichier projeté en mémoire (NIO).
+ * Chaque ligne est découpée en bornes d'octets ; les nombres et les dates sont lus
+ * sans créer de String intermédiaire. Gère les champs entre guillemets ("Hong Kong SAR, China")
+ * et les fins de ligne LF ou CRLF.
+ */
+public class MappedCsvParser implements Closeable {
+
+    private static final ZoneId ZONE = ZoneId.systemDefault();
+
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final int limit;
+    private int position;
+
+    // Bornes [start, end[ des champs de la ligne courante
+    private int[] starts = new int[16];
+    private int[] ends = new int[16];
+    private boolean[] escaped = new boolean[16];
+    private int fieldCount;
+
+    private final Map<String, Integer> header = new HashMap<>();
+
+    // Table d'internement des colonnes à faible cardinalité (pays) : adressage ouvert, comparaison des octets
+    // directement dans le fichier projeté, taille bornée (au-delà de MAX_CACHED valeurs, plus de mise en cache)
+    private static final int CACHE_SLOTS = 1024;
+    static final int MAX_CACHED = CACHE_SLOTS / 2;
+    private final CachedString[] stringCache = new CachedString[CACHE_SLOTS];
+    private int cachedCount;
+
+    private record CachedString(int hash, byte[] bytes, String value) {
+    }
+
+    private MappedCsvParser(FileChannel channel) throws IOException {
+        this.channel = channel;
+        long size = channel.size();
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException("Fichier trop volumineux pour une projection unique: " + size + " octets");
+        }
+        this.buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        this.limit = (int) size;
+        skipBom();
+        readHeader();
+    }
+
+    public static MappedCsvParser open(Path path) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            return new MappedCsvParser(channel);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    private void skipBom() {
+        if (limit >= 3 && (buffer.get(0) & 0xFF) == 0xEF && (buffer.get(1) & 0xFF) == 0xBB && (buffer.get(2) & 0xFF) == 0xBF) {
+            position = 3;
+        }
+    }
+
+    private void readHeader() throws IOException {
+        if (!nextRecord()) {
+            throw new IOException("Fichier CSV vide");
+        }
+        for (int i = 0; i < fieldCount; i++) {
+            header.put(string(i).trim().toLowerCase(), i);
+        }
+    }
+
+    /**
+     * Index de la colonne portant ce nom dans l'en-tête (insensible à la casse), -1 si absente
+     */
+    public int column(String name) {
+        return header.getOrDefault(name.toLowerCase(), -1);
+    }
+
+    public int requireColumn(String name) throws IOException {
+        int index = column(name);
+        if (index < 0) {
+            throw new IOException("Colonne absente de l'en-tête CSV: " + name);
+        }
+        return index;
+    }
+
+    /**
+     * Avance jusqu'à la ligne suivante non vide ; retourne false en fin de fichier
+     */
+    public boolean nextRecord() {
+        int p = position;
+        while (p < limit && (buffer.get(p) == '\n' || buffer.get(p) == '\r')) {
+            p++;
+        }
+        if (p >= limit) {
+            position = limit;
+            fieldCount = 0;
+            return false;
+        }
+
+        int n = 0;
+        while (true) {
+            if (n == starts.length) {
+                starts = Arrays.copyOf(starts, n * 2);
+                ends = Arrays.copyOf(ends, n * 2);
+                escaped = Arrays.copyOf(escaped, n * 2);
+            }
+
+            // Espaces de début ignorés, comme withIgnoreLeadingWhiteSpace(true) côté opencsv
+            while (p < limit && buffer.get(p) == ' ') {
+                p++;
+            }
+
+            if (p < limit && buffer.get(p) == '"') {
+                p++;
+                int start = p;
+                boolean hasEscapedQuote = false;
+                while (p < limit) {
+                    if (buffer.get(p) == '"') {
+                        if (p + 1 < limit && buffer.get(p + 1) == '"') {
+                            hasEscapedQuote = true;
+                            p += 2;
+                            continue;
+                        }
+                        break;
+                    }
+                    p++;
+                }
+                starts[n] = start;
+                ends[n] = p;
+                escaped[n] = hasEscapedQuote;
+                // Guillemet fermant puis éventuels caractères jusqu'au séparateur
+                while (p < limit && !isDelimiter(buffer.get(p))) {
+                    p++;
+                }
+            } else {
+                int start = p;
+                while (p < limit && !isDelimiter(buffer.get(p))) {
+                    p++;
+                }
+                starts[n] = start;
+                ends[n] = p;
+                escaped[n] = false;
+            }
+            n++;
+
+            if (p >= limit) {
+                break;
+            }
+            byte c = buffer.get(p++);
+            if (c == ',') {
+                continue;
+            }
+            if (c == '\r' && p < limit && buffer.get(p) == '\n') {
+                p++;
+            }
+            break;
+        }
+
+        position = p;
+        fieldCount = n;
+        return true;
+    }
+
+    private static boolean isDelimiter(byte b) {
+        return b == ',' || b == '\n' || b == '\r';
+    }
+
+    public int fieldCount() {
+        return fieldCount;
+    }
+
+    public boolean isBlank(int col) {
+        if (col < 0 || col >= fieldCount) {
+            return true;
+        }
+        for (int p = starts[col]; p < ends[col]; p++) {
+            if (buffer.get(p) != ' ') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Valeur textuelle du champ ; null si la colonne est absente de la ligne
+     */
+    public String string(int col) {
+        if (col < 0 || col >= fieldCount) {
+            return null;
+        }
+        byte[] bytes = new byte[ends[col] - starts[col]];
+        buffer.get(starts[col], bytes);
+
+        String value = new String(bytes, StandardCharsets.UTF_8);
+        return escaped[col] ? value.replace("\"\"", "\"") : value;
+    }
+
+    /**
+     * Variante de string() pour les colonnes dont les valeurs se répètent (noms de pays) : la même
+     * instance de String est rendue pour les mêmes octets, sans allocation lorsque la valeur est connue
+     */
+    public String cachedString(int col) {
+        if (col < 0 || col >= fieldCount || escaped[col]) {
+            return string(col);
+        }
+        int start = starts[col];
+        int end = ends[col];
+        int hash = 1;
+        for (int p = start; p < end; p++) {
+            hash = 31 * hash + buffer.get(p);
+        }
+
+        int slot = (hash ^ (hash >>> 16)) & (CACHE_SLOTS - 1);
+        CachedString cached;
+        while ((cached = stringCache[slot]) != null) {
+            if (cached.hash() == hash && sameBytes(cached.bytes(), start, end)) {
+                return cached.value();
+            }
+            slot = (slot + 1) & (CACHE_SLOTS - 1);
+        }
+
+        byte[] bytes = new byte[end - start];
+        buffer.get(start, bytes);
+        String value = new String(bytes, StandardCharsets.UTF_8);
+        if (cachedCount < MAX_CACHED) {
+            stringCache[slot] = new CachedString(hash, bytes, value);
+            cachedCount++;
+        }
+        return value;
+    }
+
+    private boolean sameBytes(byte[] bytes, int start, int end) {
+        if (bytes.length != end - start) {
+            return false;
+        }
+        for (int i = 0; i < bytes.length; i++) {
+            if (bytes[i] != buffer.get(start + i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Entier lu octet par octet ; une éventuelle partie décimale ("7690.0") est ignorée
+     */
+    public long parseLong(int col) {
+        int p = starts[col];
+        int end = trimmedEnd(col);
+        while (p < end && buffer.get(p) == ' ') {
+            p++;
+        }
+        boolean negative = false;
+        if (p < end && (buffer.get(p) == '-' || buffer.get(p) == '+')) {
+            negative = buffer.get(p) == '-';
+            p++;
+        }
+        if (p >= end) {
+            throw new NumberFormatException("Valeur numérique vide");
+        }
+
+        long value = 0;
+        for (; p < end; p++) {
+            byte c = buffer.get(p);
+            if (c >= '0' && c <= '9') {
+                value = value * 10 + (c - '0');
+            } else if (c == '.') {
+                break;
+            } else {
+                throw new NumberFormatException("Valeur entière invalide: " + string(col));
+            }
+        }
+        return negative ? -value : value;
+    }
+
+    public int parseInt(int col) {
+        return Math.toIntExact(parseLong(col));
+    }
+
+    /**
+     * Décimal simple (signe, partie entière, partie fractionnaire) ; les autres formes
+     * (exposant...) sont déléguées à Double.parseDouble
+     */
+    public double parseDouble(int col) {
+        int p = starts[col];
+        int end = trimmedEnd(col);
+        while (p < end && buffer.get(p) == ' ') {
+            p++;
+        }
+        boolean negative = false;
+        if (p < end && (buffer.get(p) == '-' || buffer.get(p) == '+')) {
+            negative = buffer.get(p) == '-';
+            p++;
+        }
+        if (p >= end) {
+            throw new NumberFormatException("Valeur numérique vide");
+        }
+
+        long integerPart = 0;
+        long fraction = 0;
+        long divisor = 1;
+        boolean inFraction = false;
+        for (; p < end; p++) {
+            byte c = buffer.get(p);
+            if (c >= '0' && c <= '9') {
+                if (inFraction) {
+                    if (divisor < 1_000_000_000_000_000L) {
+                        fraction = fraction * 10 + (c - '0');
+                        divisor *= 10;
+                    }
+                } else {
+                    integerPart = integerPart * 10 + (c - '0');
+                }
+            } else if (c == '.' && !inFraction) {
+                inFraction = true;
+            } else {
+                return Double.parseDouble(string(col).trim());
+            }
+        }
+        double value = integerPart + (double) fraction / divisor;
+        return negative ? -value : value;
+    }
+
+    /**
+     * Date au format yyyy-M-d ou yyyy-MM-dd, à minuit dans le fuseau local (comme @CsvDate)
+     */
+    public Date parseDate(int col) {
+        int p = starts[col];
+        int end = trimmedEnd(col);
+        int[] parts = new int[3];
+        int part = 0;
+        boolean digits = false;
+        for (; p < end; p++) {
+            byte c = buffer.get(p);
+            if (c >= '0' && c <= '9') {
+                parts[part] = parts[part] * 10 + (c - '0');
+                digits = true;
+            } else if (c == '-' && part < 2 && digits) {
+                part++;
+                digits = false;
+            } else if (c != ' ') {
+                throw new IllegalArgumentException("Date invalide: " + string(col));
+            }
+        }
+        if (part != 2 || !digits) {
+            throw new IllegalArgumentException("Date invalide: " + string(col));
+        }
+        LocalDate date = LocalDate.of(parts[0], parts[1], parts[2]);
+        return Date.from(date.atStartOfDay(ZONE).toInstant());
+    }
+
+    private int trimmedEnd(int col) {
+        int end = ends[col];
+        while (end > starts[col] && buffer.get(end - 1) == ' ') {
+            end--;
+        }
+        return end;
+    }
+
+    /**
+     * Flux des lignes converties par le mapper ; la fermeture du flux ferme le fichier
+     */
+    public <T> Stream<T> stream(Function<MappedCsvParser, T> mapper) {
+        Iterator<T> iterator = new Iterator<>() {
+            private boolean ready;
+            private boolean hasNext;
+
+            @Override
+            public boolean hasNext() {
+                if (!ready) {
+                    hasNext = nextRecord();
+                    ready = true;
+                }
+                return hasNext;
+            }
+
+            @Override
+            public T next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                ready = false;
+                return mapper.apply(MappedCsvParser.this);
+            }
+        };
+
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED | Spliterator.NONNULL), false)
+                .onClose(this::closeQuietly);
+    }
+
+    private void closeQuietly() {
+        try {
+            close();
+        } catch (IOException e) {
+            System.err.println("Erreur lors de la fermeture du fichier CSV: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,128 @@
+package fr.epsib3devc2.backend.services;
+
+import fr.epsib3devc2.backend.dto.CovidDailyDto;
+import fr.epsib3devc2.backend.dto.CovidDto;
+import fr.epsib3devc2.backend.dto.SarsDto;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Lecture des trois fichiers de pandémies avec MappedCsvParser, sans la réflexion d'opencsv.
+ * Les colonnes lues sont celles déclarées par @CsvBindByName dans les DTO.
+ */
+@Service
+public class MappedCsvReader {
+
+    public List<SarsDto> readSarsData(String path) throws IOException {
+        try (Stream<SarsDto> stream = streamSarsData(path)) {
+            return stream.collect(Collectors.toList());
+        }
+    }
+
+    public List<CovidDto> readCovidData(String path) throws IOException {
+        try (Stream<CovidDto> stream = streamCovidData(path)) {
+            return stream.collect(Collectors.toList());
+        }
+    }
+
+    public List<CovidDailyDto> readCovidDailyData(String path) throws IOException {
+        try (Stream<CovidDailyDto> stream = streamCovidDailyData(path)) {
+            return stream.collect(Collectors.toList());
+        }
+    }
+
+    public Stream<SarsDto> streamSarsData(String path) throws IOException {
+        MappedCsvParser parser = MappedCsvParser.open(Paths.get(path));
+        try {
+            int date = parser.requireColumn("Date");
+            int country = parser.requireColumn("Country");
+            int totalCases = parser.requireColumn("Cumulative number of case(s)");
+            int deaths = parser.requireColumn("Number of deaths");
+            int recovered = parser.requireColumn("Number recovered");
+
+            return parser.stream(p -> {
+                SarsDto dto = new SarsDto();
+                dto.setDate(p.isBlank(date) ? null : p.parseDate(date));
+                dto.setCountry(p.cachedString(country));
+                dto.setTotalCases(p.isBlank(totalCases) ? 0 : p.parseInt(totalCases));
+                dto.setDeaths(p.isBlank(deaths) ? 0 : p.parseInt(deaths));
+                dto.setRecovered(p.isBlank(recovered) ? 0 : p.parseInt(recovered));
+                return dto;
+            });
+        } catch (IOException | RuntimeException e) {
+            parser.close();
+            throw e;
+        }
+    }
+
+    public Stream<CovidDto> streamCovidData(String path) throws IOException {
+        MappedCsvParser parser = MappedCsvParser.open(Paths.get(path));
+        try {
+            int country = parser.requireColumn("country");
+            int continent = parser.requireColumn("continent");
+            int totalConfirmed = parser.requireColumn("total_confirmed");
+            int totalDeaths = parser.requireColumn("total_deaths");
+            int totalRecovered = parser.requireColumn("total_recovered");
+            int activeCases = parser.requireColumn("active_cases");
+            int seriousOrCritical = parser.requireColumn("serious_or_critical");
+            int casesPerMillion = parser.requireColumn("total_cases_per_1m_population");
+            int deathsPerMillion = parser.requireColumn("total_deaths_per_1m_population");
+            int totalTests = parser.requireColumn("total_tests");
+            int testsPerMillion = parser.requireColumn("total_tests_per_1m_population");
+            int population = parser.requireColumn("population");
+
+            return parser.stream(p -> {
+                CovidDto dto = new CovidDto();
+                dto.setCountry(p.string(country));
+                dto.setContinent(p.string(continent));
+                dto.setTotalConfirmed(p.isBlank(totalConfirmed) ? null : p.parseInt(totalConfirmed));
+                dto.setTotalDeaths(p.isBlank(totalDeaths) ? null : p.parseDouble(totalDeaths));
+                dto.setTotalRecovered(p.isBlank(totalRecovered) ? null : p.parseDouble(totalRecovered));
+                dto.setActiveCases(p.isBlank(activeCases) ? null : p.parseDouble(activeCases));
+                dto.setSeriousOrCritical(p.isBlank(seriousOrCritical) ? null : p.parseDouble(seriousOrCritical));
+                dto.setCasesPerMillion(p.isBlank(casesPerMillion) ? null : p.parseDouble(casesPerMillion));
+                dto.setDeathsPerMillion(p.isBlank(deathsPerMillion) ? null : p.parseDouble(deathsPerMillion));
+                dto.setTotalTests(p.isBlank(totalTests) ? null : p.parseDouble(totalTests));
+                dto.setTestsPerMillion(p.isBlank(testsPerMillion) ? null : p.parseDouble(testsPerMillion));
+                dto.setPopulation(p.isBlank(population) ? null : p.parseLong(population));
+                return dto;
+            });
+        } catch (IOException | RuntimeException e) {
+            parser.close();
+            throw e;
+        }
+    }
+
+    public Stream<CovidDailyDto> streamCovidDailyData(String path) throws IOException {
+        MappedCsvParser parser = MappedCsvParser.open(Paths.get(path));
+        try {
+            int date = parser.requireColumn("date");
+            int country = parser.requireColumn("country");
+            int cumulativeTotalCases = parser.requireColumn("cumulative_total_cases");
+            int dailyNewCases = parser.requireColumn("daily_new_cases");
+            int activeCases = parser.requireColumn("active_cases");
+            int cumulativeTotalDeaths = parser.requireColumn("cumulative_total_deaths");
+            int dailyNewDeaths = parser.requireColumn("daily_new_deaths");
+
+            return parser.stream(p -> {
+                CovidDailyDto dto = new CovidDailyDto();
+                dto.setDate(p.isBlank(date) ? null : p.parseDate(date));
+                dto.setCountry(p.cachedString(country));
+                dto.setCumulativeTotalCases(p.isBlank(cumulativeTotalCases) ? null : p.parseDouble(cumulativeTotalCases));
+                dto.setDailyNewCases(p.isBlank(dailyNewCases) ? null : p.string(dailyNewCases));
+                dto.setActiveCases(p.isBlank(activeCases) ? null : p.parseDouble(activeCases));
+                dto.setCumulativeTotalDeaths(p.isBlank(cumulativeTotalDeaths) ? null : p.parseDouble(cumulativeTotalDeaths));
+                dto.setDailyNewDeaths(p.isBlank(dailyNewDeaths) ? null : p.string(dailyNewDeaths));
+                return dto;
+            });
+        } catch (IOException | RuntimeException e) {
+            parser.close();
+            throw e;
+        }
+    }
+}
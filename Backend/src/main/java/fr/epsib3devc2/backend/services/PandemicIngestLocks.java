@@ -0,0 +1,22 @@
+package fr.epsib3devc2.backend.services;
+
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Verrous d'ingestion par pandémie, partagés par l'ingestion de démarrage, le répertoire de dépôt et
+ * les fichiers déposés par l'API : une seule ingestion à la fois par pandémie, de sorte que les dates de
+ * référence incrémentales lues au démarrage d'une ingestion restent valables jusqu'à sa fin.
+ */
+@Service
+public class PandemicIngestLocks {
+
+    private final Map<String, ReentrantLock> locks = new ConcurrentHashMap<>();
+
+    public ReentrantLock forPandemic(String pandemicName) {
+        return locks.computeIfAbsent(pandemicName, name -> new ReentrantLock());
+    }
+}
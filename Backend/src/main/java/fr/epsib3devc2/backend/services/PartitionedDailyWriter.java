@@ -0,0 +1,164 @@
+package fr.epsib3devc2.backend.services;
+
+import fr.epsib3devc2.backend.config.IngestProperties;
+import fr.epsib3devc2.backend.dto.TotalByDayRow;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Écriture des séries quotidiennes partitionnées par (pandémie, région) : chaque partition est
+ * triée dans l'ordre de la clé primaire (id_pandemics, id_regions, date_by_day) puis écrite par
+ * un worker dans sa propre transaction. L'échec d'une région n'annule pas les autres.
+ * Les lignes sont regroupées par région dans un tampon borné ; quand il est plein, toutes les
+ * partitions tamponnées sont confiées aux workers (une région peut donc donner plusieurs partitions).
+ * Les partitions d'une même région sont écrites l'une après l'autre, dans l'ordre du flux : deux workers
+ * n'écrivent jamais en même temps les lignes d'une région.
+ */
+@Service
+public class PartitionedDailyWriter {
+
+    private static final Comparator<TotalByDayRow> PRIMARY_KEY_ORDER = Comparator
+            .comparing(TotalByDayRow::pandemicId)
+            .thenComparing(TotalByDayRow::regionId)
+            .thenComparing(TotalByDayRow::date);
+
+    @Autowired
+    private TotalByDayBatchWriter totalByDayBatchWriter;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private IngestProperties ingestProperties;
+
+    private record PartitionKey(Integer pandemicId, Integer regionId) {
+    }
+
+    public Session open(String label, boolean upsert, DeadLetterWriter.Session rejects) {
+        return new Session(label, upsert, rejects);
+    }
+
+    /**
+     * Session d'écriture d'un fichier : les lignes sont ajoutées dans l'ordre du flux,
+     * la fermeture attend la fin de toutes les partitions
+     */
+    public class Session implements AutoCloseable {
+
+        private final String label;
+        private final boolean upsert;
+        private final DeadLetterWriter.Session rejects;
+        private final ExecutorService executor;
+        private final TransactionTemplate transactionTemplate;
+        // Nombre de partitions en mémoire (en cours d'écriture ou en attente) : borne le tas
+        private final Semaphore pending;
+
+        private final AtomicInteger written = new AtomicInteger();
+        private final AtomicInteger failed = new AtomicInteger();
+        private final AtomicInteger failedPartitions = new AtomicInteger();
+
+        // Dernière partition confiée aux workers pour chaque région : la suivante démarre après elle
+        private final Map<PartitionKey, CompletableFuture<Void>> lastWrites = new HashMap<>();
+
+        private final int maxBufferedRows;
+        private Map<PartitionKey, List<TotalByDayRow>> buffer = new LinkedHashMap<>();
+        private int bufferedRows;
+
+        private Session(String label, boolean upsert, DeadLetterWriter.Session rejects) {
+            int parallelism = Math.max(1, ingestProperties.getWriterParallelism());
+            this.label = label;
+            this.upsert = upsert;
+            this.rejects = rejects;
+            this.executor = Executors.newFixedThreadPool(parallelism);
+            this.pending = new Semaphore(parallelism * 2);
+            this.maxBufferedRows = Math.max(1, ingestProperties.getBatchSize()) * parallelism * 4;
+            this.transactionTemplate = new TransactionTemplate(transactionManager);
+            this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+            System.out.println("Écriture " + label + " partitionnée par région sur " + parallelism + " workers");
+        }
+
+        public void add(TotalByDayRow row) {
+            buffer.computeIfAbsent(new PartitionKey(row.pandemicId(), row.regionId()), key -> new ArrayList<>()).add(row);
+            if (++bufferedRows >= maxBufferedRows) {
+                flush();
+            }
+        }
+
+        private void flush() {
+            Map<PartitionKey, List<TotalByDayRow>> partitions = buffer;
+            buffer = new LinkedHashMap<>();
+            bufferedRows = 0;
+            partitions.forEach(this::submit);
+        }
+
+        private void submit(PartitionKey key, List<TotalByDayRow> partition) {
+            pending.acquireUninterruptibly();
+            Runnable write = () -> {
+                try {
+                    writePartition(partition);
+                } finally {
+                    pending.release();
+                }
+            };
+            lastWrites.compute(key, (k, previous) -> previous == null
+                    ? CompletableFuture.runAsync(write, executor)
+                    : previous.thenRunAsync(write, executor));
+        }
+
+        private void writePartition(List<TotalByDayRow> partition) {
+            partition.sort(PRIMARY_KEY_ORDER);
+            int batchSize = Math.max(1, ingestProperties.getBatchSize());
+            try {
+                int count = transactionTemplate.execute(status -> {
+                    int total = 0;
+                    for (int from = 0; from < partition.size(); from += batchSize) {
+                        List<TotalByDayRow> batch = partition.subList(from, Math.min(from + batchSize, partition.size()));
+                        total += totalByDayBatchWriter.write(batch, upsert);
+                    }
+                    return total;
+                });
+                written.addAndGet(count);
+            } catch (Exception e) {
+                // Seule la transaction de cette région est annulée
+                System.err.println("Erreur lors de l'insertion des données " + label + " de la région "
+                        + partition.get(0).regionId() + " (" + partition.size() + " lignes): " + e.getMessage());
+                rejects.rejectAll(DeadLetterWriter.Reason.WRITE_FAILED, partition, e.getMessage());
+                failed.addAndGet(partition.size());
+                failedPartitions.incrementAndGet();
+            }
+        }
+
+        public int getWritten() {
+            return written.get();
+        }
+
+        public int getFailed() {
+            return failed.get();
+        }
+
+        @Override
+        public void close() {
+            flush();
+            // Les partitions chaînées ne sont confiées à l'executor qu'à la fin de la précédente : attendues avant son arrêt
+            CompletableFuture.allOf(lastWrites.values().toArray(CompletableFuture[]::new)).join();
+            executor.close();
+            if (failedPartitions.get() > 0) {
+                System.err.println(failedPartitions.get() + " partition(s) " + label + " en échec, les autres régions sont validées.");
+            }
+        }
+    }
+}
@@ -1,27 +1,52 @@
 package fr.epsib3devc2.backend.services;
 
-import com.opencsv.CSVReader;
+import com.opencsv.CSVParser;
+import com.opencsv.bean.CsvToBean;
 import com.opencsv.bean.CsvToBeanBuilder;
 import com.opencsv.bean.HeaderColumnNameMappingStrategy;
-import com.opencsv.exceptions.CsvValidationException;
+import com.opencsv.exceptions.CsvException;
 import fr.epsib3devc2.backend.dto.CovidDto;
 import fr.epsib3devc2.backend.dto.CovidDailyDto;
 import fr.epsib3devc2.backend.dto.SarsDto;
+import fr.epsib3devc2.backend.config.IngestProperties;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileReader;
 import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Iterator;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 @Service
 public class ReadToCsv {
 
+    // Taille maximale de l'en-tête et de la première ligne relus avant rembobinage
+    private static final int HEADER_MARK_LIMIT = 64 * 1024;
+
+    @Autowired
+    private IngestProperties ingestProperties;
+
+    @Autowired
+    private MappedCsvReader mappedCsvReader;
+
+    @Autowired
+    private DeadLetterWriter deadLetterWriter;
+
     public static List<String> readAllLines(String path) throws IOException {
         Path filePath = Paths.get(path);
         verifyFile(filePath);
@@ -40,58 +65,74 @@ public class ReadToCsv {
         System.out.println("Taille du fichier: " + file.length() + " octets");
     }
 
-    private void displayCsvHeaders(String path, String fileType) throws IOException {
+    /**
+     * Ouvre le fichier CSV une seule fois : l'en-tête et la première ligne sont affichés,
+     * puis le lecteur est rembobiné (mark/reset) pour le parsing.
+     * Les fichiers gzip ou zstd sont décompressés en flux.
+     * Retourne null avec le parseur projeté, qui ouvre lui-même le fichier.
+     */
+    private BufferedReader openCsv(String path, String fileType) throws IOException {
         Path filePath = Paths.get(path);
         verifyFile(filePath);
-        
-        try (CSVReader reader = new CSVReader(new FileReader(path))) {
-            String[] headers = reader.readNext();
-            if (headers != null) {
-                System.out.println(fileType + " CSV Headers (" + headers.length + "): " + Arrays.toString(headers));
-                
-                String[] firstRow = reader.readNext();
-                if (firstRow != null) {
-                    System.out.println(fileType + " First Data Row (" + firstRow.length + "): " + Arrays.toString(firstRow));
-                    
-                    System.out.println(fileType + " Headers-Values Pairing:");
-                    for (int i = 0; i < Math.min(headers.length, firstRow.length); i++) {
-                        System.out.println("  " + headers[i] + " = " + firstRow[i]);
-                    }
+        CompressedInput.Format format = CompressedInput.detect(filePath);
+        if (format != CompressedInput.Format.NONE) {
+            System.out.println(fileType + ": fichier compressé " + format + ", décompression en flux"
+                    + (isMappedParser() ? " (parseur opencsv, le parseur projeté exige un fichier non compressé)" : ""));
+        } else if (isMappedParser()) {
+            return null;
+        }
+
+        BufferedReader reader = new BufferedReader(
+                new InputStreamReader(CompressedInput.open(filePath), StandardCharsets.UTF_8), HEADER_MARK_LIMIT);
+        try {
+            displayCsvHeaders(reader, fileType);
+            return reader;
+        } catch (IOException | RuntimeException e) {
+            reader.close();
+            throw e;
+        }
+    }
+
+    private void displayCsvHeaders(BufferedReader reader, String fileType) throws IOException {
+        reader.mark(HEADER_MARK_LIMIT);
+        CSVParser parser = new CSVParser();
+
+        String headerLine = reader.readLine();
+        if (headerLine != null) {
+            String[] headers = parser.parseLine(headerLine);
+            System.out.println(fileType + " CSV Headers (" + headers.length + "): " + Arrays.toString(headers));
+
+            String firstLine = reader.readLine();
+            if (firstLine != null) {
+                String[] firstRow = parser.parseLine(firstLine);
+                System.out.println(fileType + " First Data Row (" + firstRow.length + "): " + Arrays.toString(firstRow));
+
+                System.out.println(fileType + " Headers-Values Pairing:");
+                for (int i = 0; i < Math.min(headers.length, firstRow.length); i++) {
+                    System.out.println("  " + headers[i] + " = " + firstRow[i]);
                 }
             }
-        } catch (CsvValidationException e) {
-            System.err.println("Erreur de validation CSV: " + e.getMessage());
         }
+        reader.reset();
     }
 
     public List<SarsDto> readSarsData(String path) throws IOException {
         System.out.println("\n=== LECTURE DES DONNÉES SARS ===");
-        displayCsvHeaders(path, "SARS");
-
-        try (FileReader reader = new FileReader(path)) {
-            HeaderColumnNameMappingStrategy<SarsDto> strategy = new HeaderColumnNameMappingStrategy<>();
-            strategy.setType(SarsDto.class);
-            
-            List<SarsDto> data = new CsvToBeanBuilder<SarsDto>(reader)
-                    .withMappingStrategy(strategy)
-                    .withSeparator(',')
-                    .withSkipLines(0)
-                    .withIgnoreLeadingWhiteSpace(true)
-                    .withIgnoreEmptyLine(true)
-                    .build()
-                    .parse();
+        BufferedReader reader = openCsv(path, "SARS");
 
-            // Validation et nettoyage des données
-            List<SarsDto> validData = data.stream()
-                    .filter(dto -> dto.getCountry() != null && !dto.getCountry().isEmpty())
-                    .collect(Collectors.toList());
+        long start = System.nanoTime();
+        try {
+            List<SarsDto> data = reader == null
+                    ? mappedCsvReader.readSarsData(path)
+                    : parseWithOpenCsv(reader, SarsDto.class);
+            logParseTime("SARS", data.size(), start);
 
+            // Les lignes incomplètes sont conservées : rejetées à l'insertion avec leur motif (fichier de rejets)
             System.out.println("Total des enregistrements SARS lus: " + data.size());
-            System.out.println("Enregistrements SARS valides: " + validData.size());
             
-            if (!validData.isEmpty()) {
-                SarsDto first = validData.get(0);
-                System.out.println("Premier SarsDto valide: ");
+            if (!data.isEmpty()) {
+                SarsDto first = data.get(0);
+                System.out.println("Premier SarsDto: ");
                 System.out.println("  date = " + first.getDate());
                 System.out.println("  country = " + first.getCountry());
                 System.out.println("  totalCases = " + first.getTotalCases());
@@ -99,7 +140,7 @@ public class ReadToCsv {
                 System.out.println("  recovered = " + first.getRecovered());
             }
             
-            return validData;
+            return data;
         } catch (Exception e) {
             System.err.println("Erreur lors du parsing des données SARS: " + e.getMessage());
             e.printStackTrace();
@@ -109,25 +150,26 @@ public class ReadToCsv {
 
     public List<CovidDto> readCovidData(String path) throws IOException {
         System.out.println("\n=== LECTURE DES DONNÉES COVID SUMMARY ===");
-        displayCsvHeaders(path, "COVID Summary");
+        BufferedReader reader = openCsv(path, "COVID Summary");
 
-        try (FileReader reader = new FileReader(path)) {
-            HeaderColumnNameMappingStrategy<CovidDto> strategy = new HeaderColumnNameMappingStrategy<>();
-            strategy.setType(CovidDto.class);
-            
-            List<CovidDto> data = new CsvToBeanBuilder<CovidDto>(reader)
-                    .withMappingStrategy(strategy)
-                    .withSeparator(',')
-                    .withSkipLines(0)
-                    .withIgnoreLeadingWhiteSpace(true)
-                    .withIgnoreEmptyLine(true)
-                    .build()
-                    .parse();
+        long start = System.nanoTime();
+        try {
+            List<CovidDto> data = reader == null
+                    ? mappedCsvReader.readCovidData(path)
+                    : parseWithOpenCsv(reader, CovidDto.class);
+            logParseTime("COVID", data.size(), start);
 
-            // Validation et nettoyage des données
-            List<CovidDto> validData = data.stream()
-                    .filter(dto -> dto.getCountry() != null && !dto.getCountry().isEmpty())
-                    .collect(Collectors.toList());
+            // Les pays sans nom sont écartés des données de référence et enregistrés dans le fichier de rejets
+            List<CovidDto> validData = new ArrayList<>(data.size());
+            try (DeadLetterWriter.Session rejects = deadLetterWriter.open("COVID_SUMMARY")) {
+                for (CovidDto dto : data) {
+                    if (dto.getCountry() == null || dto.getCountry().isEmpty()) {
+                        rejects.reject(DeadLetterWriter.Reason.MISSING_COUNTRY, dto.getCountry(), null, dto.getContinent());
+                    } else {
+                        validData.add(dto);
+                    }
+                }
+            }
 
             System.out.println("Total des enregistrements COVID lus: " + data.size());
             System.out.println("Enregistrements COVID valides: " + validData.size());
@@ -152,32 +194,21 @@ public class ReadToCsv {
 
     public List<CovidDailyDto> readCovidDailyData(String path) throws IOException {
         System.out.println("\n=== LECTURE DES DONNÉES COVID DAILY ===");
-        displayCsvHeaders(path, "COVID Daily");
+        BufferedReader reader = openCsv(path, "COVID Daily");
 
-        try (FileReader reader = new FileReader(path)) {
-            HeaderColumnNameMappingStrategy<CovidDailyDto> strategy = new HeaderColumnNameMappingStrategy<>();
-            strategy.setType(CovidDailyDto.class);
-            
-            List<CovidDailyDto> data = new CsvToBeanBuilder<CovidDailyDto>(reader)
-                    .withMappingStrategy(strategy)
-                    .withSeparator(',')
-                    .withSkipLines(0) // Ne pas sauter l'en-tête
-                    .withIgnoreLeadingWhiteSpace(true)
-                    .withIgnoreEmptyLine(true)
-                    .build()
-                    .parse();
-
-            // Validation et nettoyage des données
-            List<CovidDailyDto> validData = data.stream()
-                    .filter(dto -> dto.getCountry() != null && !dto.getCountry().isEmpty() && dto.getDate() != null)
-                    .collect(Collectors.toList());
+        long start = System.nanoTime();
+        try {
+            List<CovidDailyDto> data = reader == null
+                    ? mappedCsvReader.readCovidDailyData(path)
+                    : parseWithOpenCsv(reader, CovidDailyDto.class);
+            logParseTime("COVID Daily", data.size(), start);
 
+            // Les lignes incomplètes sont conservées : rejetées à l'insertion avec leur motif (fichier de rejets)
             System.out.println("Total des enregistrements COVID Daily lus: " + data.size());
-            System.out.println("Enregistrements COVID Daily valides: " + validData.size());
             
-            if (!validData.isEmpty()) {
-                CovidDailyDto first = validData.get(0);
-                System.out.println("Premier CovidDailyDto valide: ");
+            if (!data.isEmpty()) {
+                CovidDailyDto first = data.get(0);
+                System.out.println("Premier CovidDailyDto: ");
                 System.out.println("  date = " + first.getDate());
                 System.out.println("  country = " + first.getCountry());
                 System.out.println("  cumulativeTotalCases = " + first.getCumulativeTotalCases());
@@ -187,11 +218,150 @@ public class ReadToCsv {
                 System.out.println("  dailyNewDeaths = " + first.getDailyNewDeaths());
             }
             
-            return validData;
+            return data;
         } catch (Exception e) {
             System.err.println("Erreur lors du parsing des données COVID Daily: " + e.getMessage());
             e.printStackTrace();
             throw new IOException("Échec du parsing des données COVID Daily", e);
         }
     }
+
+    /**
+     * Lecture en flux des données SARS : les lignes sont converties une à une au fil de la consommation.
+     * Le flux doit être fermé (try-with-resources) pour libérer le fichier.
+     */
+    public Stream<SarsDto> streamSarsData(String path) throws IOException {
+        System.out.println("\n=== LECTURE EN FLUX DES DONNÉES SARS ===");
+        BufferedReader reader = openCsv(path, "SARS");
+
+        // Pas de filtrage ici : les lignes sans pays ou sans date sont rejetées à la conversion
+        // (MISSING_COUNTRY, MISSING_DATE dans le fichier de rejets)
+        return reader == null
+                ? mappedCsvReader.streamSarsData(path)
+                : streamBeans(reader, path, "SARS", SarsDto.class);
+    }
+
+    /**
+     * Lecture en flux des données COVID quotidiennes (voir streamSarsData)
+     */
+    public Stream<CovidDailyDto> streamCovidDailyData(String path) throws IOException {
+        System.out.println("\n=== LECTURE EN FLUX DES DONNÉES COVID DAILY ===");
+        BufferedReader reader = openCsv(path, "COVID Daily");
+
+        return reader == null
+                ? mappedCsvReader.streamCovidDailyData(path)
+                : streamBeans(reader, path, "COVID_DAILY", CovidDailyDto.class);
+    }
+
+    /**
+     * Parcourt un flux par paquets de taille bornée : seul le paquet en cours est conservé en mémoire
+     */
+    public static <T> void forEachChunk(Stream<T> stream, int chunkSize, Consumer<List<T>> consumer) {
+        List<T> chunk = new ArrayList<>(chunkSize);
+        Iterator<T> iterator = stream.iterator();
+        while (iterator.hasNext()) {
+            chunk.add(iterator.next());
+            if (chunk.size() >= chunkSize) {
+                consumer.accept(chunk);
+                chunk = new ArrayList<>(chunkSize);
+            }
+        }
+        if (!chunk.isEmpty()) {
+            consumer.accept(chunk);
+        }
+    }
+
+    private boolean isMappedParser() {
+        return ingestProperties.getParser() == IngestProperties.Parser.MAPPED;
+    }
+
+    private void logParseTime(String fileType, int rows, long startNanos) {
+        long elapsedMs = (System.nanoTime() - startNanos) / 1_000_000;
+        System.out.println("Parsing " + fileType + " (" + ingestProperties.getParser() + "): " + rows + " lignes en " + elapsedMs + " ms");
+    }
+
+    private <T> List<T> parseWithOpenCsv(Reader source, Class<T> type) throws IOException {
+        try (Reader reader = source) {
+            HeaderColumnNameMappingStrategy<T> strategy = new HeaderColumnNameMappingStrategy<>();
+            strategy.setType(type);
+
+            return new CsvToBeanBuilder<T>(reader)
+                    .withMappingStrategy(strategy)
+                    .withSeparator(',')
+                    .withSkipLines(0)
+                    .withIgnoreLeadingWhiteSpace(true)
+                    .withIgnoreEmptyLine(true)
+                    .build()
+                    .parse();
+        }
+    }
+
+    /**
+     * Les lignes illisibles (date ou nombre mal formé) sont ignorées par opencsv au lieu d'interrompre
+     * le flux, et écrites au fil de la lecture dans le fichier de rejets (PARSE_ERROR)
+     */
+    private <T> Stream<T> streamBeans(Reader reader, String path, String label, Class<T> type) throws IOException {
+        DeadLetterWriter.Session rejects = deadLetterWriter.open(label + "_PARSE");
+        try {
+            HeaderColumnNameMappingStrategy<T> strategy = new HeaderColumnNameMappingStrategy<>();
+            strategy.setType(type);
+
+            CsvToBean<T> csvToBean = new CsvToBeanBuilder<T>(reader)
+                    .withMappingStrategy(strategy)
+                    .withSeparator(',')
+                    .withSkipLines(0)
+                    .withIgnoreLeadingWhiteSpace(true)
+                    .withIgnoreEmptyLine(true)
+                    .withThrowExceptions(false)
+                    .build();
+
+            Iterator<T> beans = csvToBean.iterator();
+            Iterator<T> iterator = new Iterator<>() {
+                @Override
+                public boolean hasNext() {
+                    boolean hasNext = beans.hasNext();
+                    rejectCaptured(csvToBean, rejects);
+                    return hasNext;
+                }
+
+                @Override
+                public T next() {
+                    T bean = beans.next();
+                    rejectCaptured(csvToBean, rejects);
+                    return bean;
+                }
+            };
+
+            return StreamSupport.stream(
+                            Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED | Spliterator.NONNULL),
+                            false)
+                    .onClose(() -> {
+                        rejects.close();
+                        try {
+                            reader.close();
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    });
+        } catch (RuntimeException e) {
+            rejects.close();
+            reader.close();
+            throw new IOException("Échec de l'ouverture du flux CSV " + path, e);
+        }
+    }
+
+    /**
+     * Vide la liste des exceptions capturées par opencsv dans le fichier de rejets : seules les lignes
+     * illisibles depuis le dernier appel restent en mémoire
+     */
+    private static void rejectCaptured(CsvToBean<?> csvToBean, DeadLetterWriter.Session rejects) {
+        List<CsvException> captured = csvToBean.getCapturedExceptions();
+        if (captured.isEmpty()) {
+            return;
+        }
+        for (CsvException e : captured) {
+            rejects.reject(DeadLetterWriter.Reason.PARSE_ERROR, null, null, "ligne " + e.getLineNumber() + ": " + e.getMessage());
+        }
+        captured.clear();
+    }
 }
\ No newline at end of file
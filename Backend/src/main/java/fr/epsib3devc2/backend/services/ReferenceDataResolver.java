@@ -0,0 +1,299 @@
+package fr.epsib3devc2.backend.services;
+
+import fr.epsib3devc2.backend.bo.Continents;
+import fr.epsib3devc2.backend.bo.Countries;
+import fr.epsib3devc2.backend.bo.Pandemics;
+import fr.epsib3devc2.backend.bo.Regions;
+import fr.epsib3devc2.backend.repositories.ContinentsRepository;
+import fr.epsib3devc2.backend.repositories.CountriesRepository;
+import fr.epsib3devc2.backend.repositories.PandemicsRepository;
+import fr.epsib3devc2.backend.repositories.RegionsRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Cache des données de référence (continents, régions, pays, pandémies) indexées par nom.
+ * Chaque table est chargée en une seule requête, les lignes manquantes sont créées par lot
+ * avec saveAll, puis les boucles d'insertion résolvent les identifiants en mémoire.
+ * <p>
+ * Les créations sont validées dans leur propre transaction à l'intérieur du verrou du cache
+ * (TransactionTemplate en REQUIRES_NEW) : un autre thread ne peut pas lire le cache avant la validation,
+ * et le cache n'est complété qu'avec des lignes validées.
+ */
+@Service
+public class ReferenceDataResolver {
+
+    @Autowired
+    private ContinentsRepository continentsRepository;
+
+    @Autowired
+    private RegionsRepository regionsRepository;
+
+    @Autowired
+    private CountriesRepository countriesRepository;
+
+    @Autowired
+    private PandemicsRepository pandemicsRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final Map<String, Continents> continents = new ConcurrentHashMap<>();
+    private final Map<String, Regions> regions = new ConcurrentHashMap<>();
+    private final Map<String, Countries> countries = new ConcurrentHashMap<>();
+    private final Map<String, Pandemics> pandemics = new ConcurrentHashMap<>();
+
+    private volatile boolean loaded = false;
+
+    /**
+     * Charge les quatre tables de référence (une requête par table) si ce n'est pas déjà fait
+     */
+    public synchronized void load() {
+        if (loaded) {
+            return;
+        }
+
+        Map<String, Continents> loadedContinents = new HashMap<>();
+        Map<String, Regions> loadedRegions = new HashMap<>();
+        Map<String, Countries> loadedCountries = new HashMap<>();
+        Map<String, Pandemics> loadedPandemics = new HashMap<>();
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        readOnly.executeWithoutResult(status -> {
+            continentsRepository.findAll().forEach(c -> loadedContinents.putIfAbsent(c.getName(), c));
+            regionsRepository.findAllWithContinent().forEach(r -> loadedRegions.putIfAbsent(r.getName(), r));
+            countriesRepository.findAllWithContinent().forEach(c -> loadedCountries.putIfAbsent(c.getName(), c));
+            pandemicsRepository.findAll().forEach(p -> loadedPandemics.putIfAbsent(p.getName(), p));
+        });
+        replace(continents, loadedContinents);
+        replace(regions, loadedRegions);
+        replace(countries, loadedCountries);
+        replace(pandemics, loadedPandemics);
+        loaded = true;
+
+        System.out.println("Données de référence chargées: " + continents.size() + " continents, "
+                + regions.size() + " régions, " + countries.size() + " pays, " + pandemics.size() + " pandémies.");
+    }
+
+    /**
+     * Relit les quatre tables : les lignes supprimées ou recréées hors de ce service (autre processus,
+     * rechargement) ne sont plus résolues avec un identifiant périmé. Le cache n'est jamais vidé :
+     * les lectures concurrentes trouvent l'ancienne ou la nouvelle ligne.
+     */
+    public synchronized void invalidate() {
+        loaded = false;
+        load();
+    }
+
+    private static <T> void replace(Map<String, T> cache, Map<String, T> loaded) {
+        cache.putAll(loaded);
+        cache.keySet().retainAll(loaded.keySet());
+    }
+
+    /**
+     * Crée en un seul lot les pandémies absentes de la base
+     */
+    public synchronized void resolvePandemics(Collection<String> names) {
+        load();
+
+        List<Pandemics> missing = new ArrayList<>();
+        for (String name : names) {
+            if (!pandemics.containsKey(name) && missing.stream().noneMatch(p -> p.getName().equals(name))) {
+                Pandemics pandemic = new Pandemics();
+                pandemic.setName(name);
+                missing.add(pandemic);
+            }
+        }
+
+        inNewTransaction(() -> pandemicsRepository.saveAll(missing)).forEach(p -> {
+            pandemics.put(p.getName(), p);
+            System.out.println("Pandémie créée: " + p.getName() + " avec ID: " + p.getIdPandemics());
+        });
+    }
+
+    /**
+     * Crée en un seul lot les continents absents de la base
+     */
+    public synchronized void resolveContinents(Collection<String> names) {
+        load();
+
+        List<Continents> missing = new ArrayList<>();
+        for (String name : names) {
+            if (!continents.containsKey(name) && missing.stream().noneMatch(c -> c.getName().equals(name))) {
+                Continents continent = new Continents();
+                continent.setName(name);
+                missing.add(continent);
+            }
+        }
+
+        inNewTransaction(() -> continentsRepository.saveAll(missing)).forEach(c -> {
+            continents.put(c.getName(), c);
+            System.out.println("Continent créé: " + c.getName() + " avec ID: " + c.getIdContinents());
+        });
+    }
+
+    /**
+     * Crée en un seul lot les régions absentes et complète le continent des régions existantes qui n'en ont pas
+     *
+     * @param names               noms de régions déjà normalisés
+     * @param countryToContinent  association pays-continent issue du fichier de synthèse
+     */
+    public synchronized void resolveRegions(Collection<String> names, Map<String, String> countryToContinent) {
+        load();
+
+        Map<String, Regions> toSave = new LinkedHashMap<>();
+        for (String name : names) {
+            Continents continent = continentFor(name, countryToContinent);
+            Regions region = regions.get(name);
+
+            if (region == null && !toSave.containsKey(name)) {
+                region = new Regions();
+                region.setName(name);
+                region.setContinent(continent);
+                toSave.put(name, region);
+            } else if (region != null && region.getContinent() == null && continent != null) {
+                // Copie : l'instance en cache n'est modifiée qu'après validation
+                Regions updated = new Regions();
+                updated.setIdRegions(region.getIdRegions());
+                updated.setName(name);
+                updated.setContinent(continent);
+                toSave.put(name, updated);
+                System.out.println("Continent ajouté à la région existante: " + name);
+            }
+        }
+        if (toSave.isEmpty()) {
+            return;
+        }
+
+        inNewTransaction(() -> regionsRepository.saveAll(toSave.values())).forEach(r -> regions.put(r.getName(), r));
+        if (!toSave.isEmpty()) {
+            System.out.println(toSave.size() + " régions créées ou mises à jour.");
+        }
+    }
+
+    /**
+     * Retourne la région portant ce nom, en la créant si elle n'existe pas encore. Les fichiers quotidiens
+     * créent leurs régions par paquets (DataInsertionService.withRegionsResolved) : ce chemin unitaire ne
+     * sert qu'en dernier recours. La région est validée avant d'être visible des autres threads.
+     */
+    public Regions resolveRegion(String name, Map<String, String> countryToContinent) {
+        Regions region = regions.get(name);
+        if (region != null) {
+            return region;
+        }
+
+        synchronized (this) {
+            load();
+            region = regions.get(name);
+            if (region == null) {
+                Regions created = new Regions();
+                created.setName(name);
+                created.setContinent(continentFor(name, countryToContinent));
+                region = inNewTransaction(() -> regionsRepository.save(created));
+                regions.put(name, region);
+                System.out.println("Région créée: " + name + " avec ID: " + region.getIdRegions());
+            }
+            return region;
+        }
+    }
+
+    /**
+     * Crée en un seul lot les pays absents et complète le continent des pays existants qui n'en ont pas
+     *
+     * @return le nombre de pays créés ou mis à jour
+     */
+    public synchronized int resolveCountries(Map<String, String> countryToContinent) {
+        load();
+
+        List<Countries> toSave = new ArrayList<>();
+        for (Map.Entry<String, String> entry : countryToContinent.entrySet()) {
+            Continents continent = entry.getValue() != null ? continents.get(entry.getValue()) : null;
+            if (continent == null) {
+                continue;
+            }
+
+            Countries country = countries.get(entry.getKey());
+            if (country == null) {
+                country = new Countries();
+                country.setName(entry.getKey());
+                country.setContinents(continent);
+                toSave.add(country);
+            } else if (country.getContinents() == null) {
+                Countries updated = new Countries();
+                updated.setIdCountries(country.getIdCountries());
+                updated.setName(country.getName());
+                updated.setContinents(continent);
+                toSave.add(updated);
+            }
+        }
+        if (toSave.isEmpty()) {
+            return 0;
+        }
+
+        inNewTransaction(() -> countriesRepository.saveAll(toSave)).forEach(c -> countries.put(c.getName(), c));
+        return toSave.size();
+    }
+
+    /**
+     * Écriture validée avant le retour, même si l'appelant est déjà dans une transaction : appelé sous le
+     * verrou du cache, celui-ci n'est relâché qu'une fois les lignes visibles en base
+     */
+    private <R> R inNewTransaction(java.util.function.Supplier<R> work) {
+        TransactionTemplate template = new TransactionTemplate(transactionManager);
+        template.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        return template.execute(status -> work.get());
+    }
+
+    private Continents continentFor(String regionName, Map<String, String> countryToContinent) {
+        String continentName = countryToContinent.get(regionName);
+        return continentName != null ? continents.get(continentName) : null;
+    }
+
+    public Pandemics pandemic(String name) {
+        return pandemics.get(name);
+    }
+
+    public Continents continent(String name) {
+        return continents.get(name);
+    }
+
+    public Regions region(String name) {
+        return regions.get(name);
+    }
+
+    /**
+     * Identifiant de la région portant ce nom normalisé, null si inconnue
+     */
+    public Integer regionId(String name) {
+        Regions region = regions.get(name);
+        return region != null ? region.getIdRegions() : null;
+    }
+
+    public Integer pandemicId(String name) {
+        Pandemics pandemic = pandemics.get(name);
+        return pandemic != null ? pandemic.getIdPandemics() : null;
+    }
+
+    public int continentCount() {
+        return continents.size();
+    }
+
+    public int regionCount() {
+        return regions.size();
+    }
+
+    public long regionsWithContinentCount() {
+        return regions.values().stream().filter(r -> r.getContinent() != null).count();
+    }
+}
@@ -0,0 +1,153 @@
+package fr.epsib3devc2.backend.services;
+
+import fr.epsib3devc2.backend.config.IngestProperties;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Rechargement de total_by_day sans interruption : les séries quotidiennes sont écrites dans une table
+ * fantôme (CREATE TABLE ... LIKE, mêmes index, clés étrangères recréées), validée puis substituée à la
+ * table en service par un RENAME TABLE atomique. Pendant le chargement, l'API lit les données précédentes, complètes et sans
+ * verrou d'écriture.
+ * La table cible est commune à tous les écrivains : les fichiers déposés (API, répertoire de dépôt) sont refusés pendant
+ * le rechargement, faute de quoi leurs lignes iraient dans la table fantôme.
+ */
+@Service
+public class ShadowTableReload {
+
+    public static final String TABLE = "total_by_day";
+    private static final String SHADOW_TABLE = "total_by_day_shadow";
+    private static final String OLD_TABLE = "total_by_day_old";
+
+    // Clés étrangères de la table en service, que CREATE TABLE ... LIKE ne recopie pas
+    private static final String FOREIGN_KEYS_SQL =
+            "SELECT COLUMN_NAME, REFERENCED_TABLE_NAME, REFERENCED_COLUMN_NAME FROM information_schema.KEY_COLUMN_USAGE " +
+            "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = ? AND REFERENCED_TABLE_NAME IS NOT NULL";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private IngestProperties ingestProperties;
+
+    @Autowired
+    private PandemicIngestLocks pandemicIngestLocks;
+
+    private volatile boolean active = false;
+
+    /**
+     * Table dans laquelle les écrivains JDBC insèrent les lignes quotidiennes
+     */
+    public String targetTable() {
+        return active ? SHADOW_TABLE : TABLE;
+    }
+
+    public boolean isActive() {
+        return active;
+    }
+
+    /**
+     * Crée une table fantôme vide (une éventuelle table d'un rechargement interrompu est supprimée).
+     * Attend la fin des ingestions de fichiers déposés en cours, qui écrivent dans la table en service.
+     */
+    public synchronized void begin() {
+        ReentrantLock sarsLock = pandemicIngestLocks.forPandemic(DataNormalizationService.PANDEMIC_SARS);
+        ReentrantLock covidLock = pandemicIngestLocks.forPandemic(DataNormalizationService.PANDEMIC_COVID);
+        sarsLock.lock();
+        covidLock.lock();
+        try {
+            jdbcTemplate.execute("DROP TABLE IF EXISTS " + SHADOW_TABLE);
+            jdbcTemplate.execute("DROP TABLE IF EXISTS " + OLD_TABLE);
+            jdbcTemplate.execute("CREATE TABLE " + SHADOW_TABLE + " LIKE " + TABLE);
+            copyForeignKeys();
+            active = true;
+        } finally {
+            covidLock.unlock();
+            sarsLock.unlock();
+        }
+        System.out.println("Rechargement dans la table fantôme " + SHADOW_TABLE + ", " + TABLE + " reste en service");
+    }
+
+    /**
+     * Recrée sur la table fantôme (encore vide) les clés étrangères de la table en service ; leurs noms
+     * générés (total_by_day_shadow_ibfk_N) suivent la table lors du RENAME
+     */
+    private void copyForeignKeys() {
+        List<String> constraints = jdbcTemplate.query(FOREIGN_KEYS_SQL,
+                (rs, rowNum) -> "ADD FOREIGN KEY (" + rs.getString(1) + ") REFERENCES "
+                        + rs.getString(2) + " (" + rs.getString(3) + ")",
+                TABLE);
+        if (!constraints.isEmpty()) {
+            jdbcTemplate.execute("ALTER TABLE " + SHADOW_TABLE + " " + String.join(", ", constraints));
+        }
+    }
+
+    /**
+     * Valide la table fantôme puis l'échange avec la table en service.
+     * Retourne false (table fantôme supprimée, données en service conservées) si la validation échoue.
+     */
+    public synchronized boolean swap() {
+        if (!active) {
+            return false;
+        }
+
+        // Statistiques d'index à jour avant la mise en service
+        jdbcTemplate.execute("ANALYZE TABLE " + SHADOW_TABLE);
+
+        Map<Integer, Long> live = countByPandemic(TABLE);
+        Map<Integer, Long> shadow = countByPandemic(SHADOW_TABLE);
+        String error = validate(live, shadow);
+        if (error != null) {
+            System.err.println("Table fantôme rejetée, " + TABLE + " conservée: " + error);
+            abort();
+            return false;
+        }
+
+        // Les deux renommages sont appliqués en une seule instruction atomique
+        jdbcTemplate.execute("RENAME TABLE " + TABLE + " TO " + OLD_TABLE + ", " + SHADOW_TABLE + " TO " + TABLE);
+        active = false;
+        jdbcTemplate.execute("DROP TABLE IF EXISTS " + OLD_TABLE);
+        System.out.println("Table " + TABLE + " remplacée: " + shadow.values().stream().mapToLong(Long::longValue).sum()
+                + " lignes (précédemment " + live.values().stream().mapToLong(Long::longValue).sum() + ")");
+        return true;
+    }
+
+    /**
+     * Abandonne le rechargement : la table fantôme est supprimée
+     */
+    public synchronized void abort() {
+        active = false;
+        jdbcTemplate.execute("DROP TABLE IF EXISTS " + SHADOW_TABLE);
+    }
+
+    /**
+     * Chaque pandémie présente en service doit avoir au moins shadow-min-ratio de ses lignes dans la table fantôme
+     */
+    private String validate(Map<Integer, Long> live, Map<Integer, Long> shadow) {
+        if (shadow.isEmpty()) {
+            return "aucune ligne chargée";
+        }
+        for (Map.Entry<Integer, Long> entry : live.entrySet()) {
+            long loaded = shadow.getOrDefault(entry.getKey(), 0L);
+            if (loaded < entry.getValue() * ingestProperties.getShadowMinRatio()) {
+                return "pandémie " + entry.getKey() + ": " + loaded + " lignes chargées pour " + entry.getValue() + " en service";
+            }
+        }
+        return null;
+    }
+
+    private Map<Integer, Long> countByPandemic(String table) {
+        Map<Integer, Long> counts = new HashMap<>();
+        jdbcTemplate.query("SELECT id_pandemics, COUNT(*) FROM " + table + " GROUP BY id_pandemics",
+                rs -> {
+                    counts.put(rs.getInt(1), rs.getLong(2));
+                });
+        return counts;
+    }
+}
@@ -0,0 +1,57 @@
+package fr.epsib3devc2.backend.services;
+
+import fr.epsib3devc2.backend.dto.TotalByDayRow;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.sql.Types;
+import java.util.List;
+
+/**
+ * Écriture par lots des lignes total_by_day via JDBC, sans passer par le contexte de persistance JPA.
+ * Avec MariaDB Connector/J 3.x, les lots sont envoyés en un seul échange grâce à useBulkStmts=true
+ * (équivalent de rewriteBatchedStatements des anciens pilotes).
+ */
+@Service
+public class TotalByDayBatchWriter {
+
+    // %s : table cible (total_by_day, ou la table fantôme pendant un rechargement)
+    private static final String INSERT_SQL =
+            "INSERT INTO %s (id_pandemics, id_regions, date_by_day, case_count, death, recovered, new_cases, new_deaths) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+
+    // Les écarts sont remis à leur valeur source (NULL le plus souvent) : la ligne redevient en attente de calcul
+    private static final String UPSERT_SQL = INSERT_SQL +
+            " ON DUPLICATE KEY UPDATE case_count = VALUES(case_count), death = VALUES(death), recovered = VALUES(recovered)," +
+            " new_cases = VALUES(new_cases), new_deaths = VALUES(new_deaths)";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ShadowTableReload shadowTableReload;
+
+    /**
+     * Insère les lignes en un seul lot JDBC et retourne le nombre de lignes envoyées.
+     * En mode upsert, les lignes déjà présentes (même pandémie, région et date) sont mises à jour.
+     */
+    public int write(List<TotalByDayRow> rows, boolean upsert) {
+        if (rows.isEmpty()) {
+            return 0;
+        }
+
+        String sql = String.format(upsert ? UPSERT_SQL : INSERT_SQL, shadowTableReload.targetTable());
+        jdbcTemplate.batchUpdate(sql, rows, rows.size(), (ps, row) -> {
+            ps.setInt(1, row.pandemicId());
+            ps.setInt(2, row.regionId());
+            ps.setDate(3, row.date());
+            ps.setInt(4, row.caseCount());
+            ps.setInt(5, row.death());
+            ps.setInt(6, row.recovered());
+            ps.setObject(7, row.newCases(), Types.INTEGER);
+            ps.setObject(8, row.newDeaths(), Types.INTEGER);
+        });
+        return rows.size();
+    }
+}
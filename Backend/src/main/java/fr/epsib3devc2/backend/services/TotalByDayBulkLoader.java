@@ -0,0 +1,75 @@
+package fr.epsib3devc2.backend.services;
+
+import fr.epsib3devc2.backend.dto.TotalByDayRow;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Statement;
+import java.util.List;
+
+/**
+ * Chargement de total_by_day avec LOAD DATA LOCAL INFILE : les lignes déjà résolues en identifiants
+ * sont sérialisées en TSV dans un tampon mémoire, transmis au serveur par le pilote MariaDB
+ * (setLocalInfileInputStream) sans fichier temporaire. Nécessite local_infile=ON côté serveur.
+ */
+@Service
+public class TotalByDayBulkLoader {
+
+    // %s : table cible (total_by_day, ou la table fantôme pendant un rechargement)
+    private static final String COLUMNS = " INTO TABLE %s (id_pandemics, id_regions, date_by_day, case_count, death, recovered, new_cases, new_deaths)";
+
+    // Avec LOCAL, les doublons de clé sont ignorés ; REPLACE les met à jour (ré-ingestion)
+    private static final String LOAD_SQL = "LOAD DATA LOCAL INFILE 'total_by_day.tsv' IGNORE" + COLUMNS;
+    private static final String REPLACE_SQL = "LOAD DATA LOCAL INFILE 'total_by_day.tsv' REPLACE" + COLUMNS;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ShadowTableReload shadowTableReload;
+
+    /**
+     * Charge les lignes en une instruction LOAD DATA et retourne le nombre de lignes affectées
+     * (en mode REPLACE, une ligne remplacée compte double, le résultat n'est donc pas comparé au nombre envoyé)
+     */
+    public long load(List<TotalByDayRow> rows, boolean replace) {
+        if (rows.isEmpty()) {
+            return 0;
+        }
+
+        byte[] tsv = toTsv(rows);
+        String sql = String.format(replace ? REPLACE_SQL : LOAD_SQL, shadowTableReload.targetTable());
+        Long affected = jdbcTemplate.execute((ConnectionCallback<Long>) connection -> {
+            try (Statement statement = connection.createStatement()) {
+                statement.unwrap(org.mariadb.jdbc.Statement.class)
+                        .setLocalInfileInputStream(new ByteArrayInputStream(tsv));
+                return statement.executeLargeUpdate(sql);
+            }
+        });
+        return affected != null ? affected : 0;
+    }
+
+    private static byte[] toTsv(List<TotalByDayRow> rows) {
+        StringBuilder tsv = new StringBuilder(rows.size() * 40);
+        for (TotalByDayRow row : rows) {
+            tsv.append(row.pandemicId()).append('\t')
+                    .append(row.regionId()).append('\t')
+                    .append(row.date()).append('\t')
+                    .append(row.caseCount()).append('\t')
+                    .append(row.death()).append('\t')
+                    .append(row.recovered()).append('\t')
+                    .append(nullable(row.newCases())).append('\t')
+                    .append(nullable(row.newDeaths())).append('\n');
+        }
+        return tsv.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    // NULL au format LOAD DATA
+    private static String nullable(Integer value) {
+        return value != null ? value.toString() : "\\N";
+    }
+}
@@ -0,0 +1,35 @@
+package fr.epsib3devc2.backend;
+
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.MariaDBContainer;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.utility.MountableFile;
+
+/**
+ * Base MariaDB jetable (Testcontainers) créée au démarrage par src/Data/script.sql et partagée par les tests SQL.
+ * Les tests sont ignorés si Docker n'est pas disponible.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+public abstract class AbstractMariaDbTest {
+
+    private static final MariaDBContainer<?> MARIADB = new MariaDBContainer<>("mariadb:11.4")
+            .withCopyFileToContainer(MountableFile.forHostPath("src/Data/script.sql"), "/docker-entrypoint-initdb.d/script.sql")
+            // LOAD DATA LOCAL INFILE (écriture bulk-load)
+            .withCommand("--local-infile=1")
+            .withUrlParam("allowLocalInfile", "true")
+            .withUrlParam("useBulkStmts", "true");
+
+    static {
+        MARIADB.start();
+    }
+
+    @DynamicPropertySource
+    static void datasource(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", MARIADB::getJdbcUrl);
+        registry.add("spring.datasource.username", MARIADB::getUsername);
+        registry.add("spring.datasource.password", MARIADB::getPassword);
+    }
+}
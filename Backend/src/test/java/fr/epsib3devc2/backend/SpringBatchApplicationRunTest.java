@@ -0,0 +1,183 @@
+package fr.epsib3devc2.backend;
+
+import fr.epsib3devc2.backend.batch.IngestJobLauncher;
+import fr.epsib3devc2.backend.config.IngestProperties;
+import fr.epsib3devc2.backend.services.ContinentSummaryService;
+import fr.epsib3devc2.backend.services.DataInsertionService;
+import fr.epsib3devc2.backend.services.DropDirectoryWatcher;
+import fr.epsib3devc2.backend.services.IngestFingerprintService;
+import fr.epsib3devc2.backend.services.PandemicIngestLocks;
+import fr.epsib3devc2.backend.services.ReadToCsv;
+import fr.epsib3devc2.backend.services.ReferenceDataResolver;
+import fr.epsib3devc2.backend.services.ShadowTableReload;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.stubbing.Answer;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class SpringBatchApplicationRunTest {
+
+    @Mock
+    private DataInsertionService dataInsertionService;
+
+    @Mock
+    private ReadToCsv readToCsv;
+
+    @Spy
+    private IngestProperties ingestProperties = new IngestProperties();
+
+    @Mock
+    private IngestJobLauncher ingestJobLauncher;
+
+    @Mock
+    private IngestFingerprintService ingestFingerprintService;
+
+    @Mock
+    private ShadowTableReload shadowTableReload;
+
+    @Mock
+    private ReferenceDataResolver referenceDataResolver;
+
+    @Mock
+    private DropDirectoryWatcher dropDirectoryWatcher;
+
+    @Mock
+    private ContinentSummaryService continentSummaryService;
+
+    @Spy
+    private PandemicIngestLocks pandemicIngestLocks = new PandemicIngestLocks();
+
+    @InjectMocks
+    private SpringBatchApplication application;
+
+    @Test
+    void readsTheThreeFilesConcurrentlyAndInsertsOnceReferenceDataIsReady() throws Exception {
+        // Le fichier de synthèse n'est rendu qu'après l'ouverture des deux fichiers quotidiens :
+        // une lecture séquentielle attendrait jusqu'au délai
+        CountDownLatch dailyFilesOpened = new CountDownLatch(2);
+        AtomicBoolean concurrent = new AtomicBoolean();
+        when(readToCsv.readCovidData(any())).thenAnswer(invocation -> {
+            concurrent.set(dailyFilesOpened.await(5, TimeUnit.SECONDS));
+            return List.of();
+        });
+        Answer<Stream<?>> openDailyFile = invocation -> {
+            dailyFilesOpened.countDown();
+            return Stream.empty();
+        };
+        doAnswer(openDailyFile).when(readToCsv).streamSarsData(any());
+        doAnswer(openDailyFile).when(readToCsv).streamCovidDailyData(any());
+
+        application.run();
+
+        assertTrue(concurrent.get());
+        verify(referenceDataResolver).invalidate();
+        InOrder sars = inOrder(dataInsertionService);
+        sars.verify(dataInsertionService).prepareRegions(any(), any(), any());
+        sars.verify(dataInsertionService).insertSarsData(any(Stream.class), any());
+        InOrder daily = inOrder(dataInsertionService);
+        daily.verify(dataInsertionService).prepareRegions(any(), any(), any());
+        daily.verify(dataInsertionService).insertCovidDailyData(any(Stream.class), any());
+        daily.verify(dataInsertionService).createCountriesWithContinents();
+        verify(ingestFingerprintService).record(anyList());
+        assertEquals(0, application.getExitCode());
+    }
+
+    @Test
+    void exitsWithFailureCodeWhenADailyIngestFails() throws Exception {
+        when(readToCsv.readCovidData(any())).thenReturn(List.of());
+        when(readToCsv.streamSarsData(any())).thenReturn(Stream.empty());
+        when(readToCsv.streamCovidDailyData(any())).thenThrow(new IOException("fichier introuvable"));
+
+        application.run();
+
+        assertEquals(1, application.getExitCode());
+        verify(ingestFingerprintService, never()).record(anyList());
+    }
+
+    @Test
+    void keepsTheFingerprintsWhenRowsCouldNotBeWritten() throws Exception {
+        when(readToCsv.readCovidData(any())).thenReturn(List.of());
+        when(readToCsv.streamSarsData(any())).thenReturn(Stream.empty());
+        when(readToCsv.streamCovidDailyData(any())).thenReturn(Stream.empty());
+        when(dataInsertionService.insertCovidDailyData(any(Stream.class), any())).thenReturn(3);
+
+        application.run();
+
+        verify(ingestFingerprintService, never()).record(anyList());
+    }
+
+    @Test
+    void keepsTheFingerprintsWhenTheSummaryCannotBeRead() throws Exception {
+        when(readToCsv.readCovidData(any())).thenThrow(new IOException("fichier introuvable"));
+        when(readToCsv.streamSarsData(any())).thenReturn(Stream.empty());
+        when(readToCsv.streamCovidDailyData(any())).thenReturn(Stream.empty());
+
+        application.run();
+
+        verify(ingestFingerprintService, never()).record(anyList());
+    }
+
+    @Test
+    void serveModeNeverReadsTheInputFiles() throws Exception {
+        ingestProperties.setMode(IngestProperties.RuntimeMode.SERVE);
+
+        application.run();
+
+        verifyNoInteractions(readToCsv, dataInsertionService, ingestFingerprintService, ingestJobLauncher);
+    }
+
+    @Test
+    void refusesShadowReloadWithTheBatchEngine() throws Exception {
+        ingestProperties.setShadowReload(true);
+        ingestProperties.setEngine(IngestProperties.Engine.BATCH);
+
+        application.run();
+
+        assertEquals(1, application.getExitCode());
+        verifyNoInteractions(readToCsv, ingestJobLauncher, shadowTableReload);
+    }
+
+    @Test
+    void readsTheRuntimeModeFromTheCommandLine() {
+        assertEquals(IngestProperties.RuntimeMode.SERVE, IngestProperties.RuntimeMode.fromArgs(new String[]{"--mode=serve"}));
+        assertEquals(IngestProperties.RuntimeMode.ALL, IngestProperties.RuntimeMode.fromArgs(new String[]{"--force-reload"}));
+    }
+
+    @Test
+    void skipsTheIngestWhenTheInputFilesAreUnchanged() throws Exception {
+        when(ingestFingerprintService.isUnchanged(anyList())).thenReturn(true);
+
+        application.run();
+
+        verifyNoInteractions(readToCsv, dataInsertionService);
+    }
+
+    @Test
+    void reloadsUnchangedFilesWithForceReload() throws Exception {
+        when(readToCsv.readCovidData(any())).thenReturn(List.of());
+        when(readToCsv.streamSarsData(any())).thenReturn(Stream.empty());
+        when(readToCsv.streamCovidDailyData(any())).thenReturn(Stream.empty());
+
+        application.run("--force-reload");
+
+        verify(ingestFingerprintService, never()).isUnchanged(anyList());
+        verify(dataInsertionService).insertSarsData(any(Stream.class), any());
+    }
+}
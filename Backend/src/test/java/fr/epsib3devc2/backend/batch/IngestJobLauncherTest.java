@@ -0,0 +1,113 @@
+package fr.epsib3devc2.backend.batch;
+
+import fr.epsib3devc2.backend.config.IngestProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.Job;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobInstance;
+import org.springframework.batch.core.JobParameters;
+import org.springframework.batch.core.JobParametersBuilder;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.explore.JobExplorer;
+import org.springframework.batch.core.launch.JobLauncher;
+import org.springframework.batch.core.repository.JobRepository;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class IngestJobLauncherTest {
+
+    @Mock
+    private JobLauncher jobLauncher;
+
+    @Mock
+    private JobExplorer jobExplorer;
+
+    @Mock
+    private JobRepository jobRepository;
+
+    @Mock
+    private Job pandemicIngestJob;
+
+    @Spy
+    private IngestProperties ingestProperties = new IngestProperties();
+
+    @InjectMocks
+    private IngestJobLauncher ingestJobLauncher;
+
+    private final JobInstance instance = new JobInstance(1L, PandemicIngestJobConfig.JOB_NAME);
+
+    @BeforeEach
+    void setUp() {
+        ingestProperties.setSummaryFile("summary.csv");
+        ingestProperties.setSarsFile("sars.csv");
+        ingestProperties.setDailyFile("daily.csv");
+    }
+
+    @Test
+    void restartsTheFailedExecutionWithItsParameters() throws Exception {
+        JobExecution failed = lastExecution(parameters("daily.csv"), BatchStatus.FAILED);
+        when(jobLauncher.run(eq(pandemicIngestJob), any())).thenReturn(failed);
+
+        ingestJobLauncher.launch();
+
+        verify(jobLauncher).run(pandemicIngestJob, failed.getJobParameters());
+        verify(jobRepository, never()).update(any(JobExecution.class));
+    }
+
+    @Test
+    void marksAnExecutionLeftRunningByACrashAsFailedBeforeRestartingIt() throws Exception {
+        JobExecution crashed = lastExecution(parameters("daily.csv"), BatchStatus.STARTED);
+        StepExecution step = crashed.createStepExecution("sarsStep");
+        step.setStatus(BatchStatus.STARTED);
+        when(jobLauncher.run(eq(pandemicIngestJob), any())).thenReturn(crashed);
+
+        ingestJobLauncher.launch();
+
+        assertEquals(BatchStatus.FAILED, step.getStatus());
+        verify(jobRepository).update(step);
+        verify(jobRepository).update(crashed);
+        verify(jobLauncher).run(pandemicIngestJob, crashed.getJobParameters());
+    }
+
+    @Test
+    void startsANewInstanceWhenTheFilesChanged() throws Exception {
+        JobExecution failed = lastExecution(parameters("old-daily.csv"), BatchStatus.FAILED);
+        when(jobLauncher.run(eq(pandemicIngestJob), any())).thenReturn(failed);
+
+        ingestJobLauncher.launch();
+
+        ArgumentCaptor<JobParameters> launched = ArgumentCaptor.forClass(JobParameters.class);
+        verify(jobLauncher).run(eq(pandemicIngestJob), launched.capture());
+        assertEquals("daily.csv", launched.getValue().getString("dailyFile"));
+        assertNotNull(launched.getValue().getLong("run.id"));
+    }
+
+    private JobExecution lastExecution(JobParameters parameters, BatchStatus status) {
+        JobExecution execution = new JobExecution(instance, 5L, parameters);
+        execution.setStatus(status);
+        when(jobExplorer.getLastJobInstance(PandemicIngestJobConfig.JOB_NAME)).thenReturn(instance);
+        when(jobExplorer.getLastJobExecution(instance)).thenReturn(execution);
+        return execution;
+    }
+
+    private static JobParameters parameters(String dailyFile) {
+        return new JobParametersBuilder()
+                .addString("summaryFile", "summary.csv")
+                .addString("sarsFile", "sars.csv")
+                .addString("dailyFile", dailyFile)
+                .addLong("run.id", 1L)
+                .toJobParameters();
+    }
+}
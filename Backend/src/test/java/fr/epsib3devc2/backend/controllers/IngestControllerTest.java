@@ -0,0 +1,99 @@
+package fr.epsib3devc2.backend.controllers;
+
+import fr.epsib3devc2.backend.config.IngestProperties;
+import fr.epsib3devc2.backend.services.IngestUploadService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.util.unit.DataSize;
+
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@ExtendWith(MockitoExtension.class)
+class IngestControllerTest {
+
+    @Mock
+    private IngestUploadService ingestUploadService;
+
+    @Spy
+    private IngestProperties ingestProperties = new IngestProperties();
+
+    @InjectMocks
+    private IngestController ingestController;
+
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        mockMvc = MockMvcBuilders.standaloneSetup(ingestController).build();
+    }
+
+    @Test
+    void acceptsAnUploadAndReturnsTheJobId() throws Exception {
+        when(ingestUploadService.submit(any())).thenReturn("42");
+
+        mockMvc.perform(multipart("/api/ingest/uploads").file(file()))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.jobId").value("42"));
+    }
+
+    @Test
+    void answersServiceUnavailableWhenTheQueueIsFull() throws Exception {
+        when(ingestUploadService.submit(any())).thenThrow(new RejectedExecutionException());
+
+        mockMvc.perform(multipart("/api/ingest/uploads").file(file()))
+                .andExpect(status().isServiceUnavailable());
+    }
+
+    @Test
+    void answersServiceUnavailableDuringAShadowReload() throws Exception {
+        when(ingestUploadService.submit(any())).thenThrow(new IllegalStateException("Rechargement complet en cours"));
+
+        mockMvc.perform(multipart("/api/ingest/uploads").file(file()))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(jsonPath("$.error").value("Rechargement complet en cours"));
+    }
+
+    @Test
+    void refusesUploadsInServeMode() throws Exception {
+        ingestProperties.setMode(IngestProperties.RuntimeMode.SERVE);
+
+        mockMvc.perform(multipart("/api/ingest/uploads").file(file()))
+                .andExpect(status().isForbidden());
+        verifyNoInteractions(ingestUploadService);
+    }
+
+    @Test
+    void answersPayloadTooLargeBeyondTheUploadLimit() throws Exception {
+        ingestProperties.setUploadMaxSize(DataSize.ofBytes(4));
+
+        mockMvc.perform(multipart("/api/ingest/uploads").file(file()))
+                .andExpect(status().isPayloadTooLarge());
+        verifyNoInteractions(ingestUploadService);
+    }
+
+    @Test
+    void answersNotFoundForAnUnknownJob() throws Exception {
+        mockMvc.perform(get("/api/ingest/jobs/inconnu"))
+                .andExpect(status().isNotFound());
+    }
+
+    private static MockMultipartFile file() {
+        return new MockMultipartFile("file", "covid_daily.csv", "text/csv", "date,country\n".getBytes());
+    }
+}
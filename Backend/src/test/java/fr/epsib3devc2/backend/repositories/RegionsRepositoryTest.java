@@ -0,0 +1,39 @@
+package fr.epsib3devc2.backend.repositories;
+
+import fr.epsib3devc2.backend.AbstractMariaDbTest;
+import fr.epsib3devc2.backend.dto.RegionDataCount;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+class RegionsRepositoryTest extends AbstractMariaDbTest {
+
+    @Autowired
+    private RegionsRepository regionsRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void countsTheRowsOfEveryRegionAcrossPandemics() {
+        jdbcTemplate.update("INSERT INTO continents (id_continents, name) VALUES (1, 'Europe')");
+        // Région sans continent ni données
+        jdbcTemplate.update("INSERT INTO regions (id_regions, name, id_continents) VALUES (10, 'France', 1), (11, 'Italy', 1), (12, 'Unknown', NULL)");
+        jdbcTemplate.update("INSERT INTO pandemics (id_pandemics, name) VALUES (1, 'COVID'), (2, 'SARS')");
+        jdbcTemplate.update("INSERT INTO total_by_day (id_pandemics, id_regions, date_by_day, case_count, death, recovered) VALUES " +
+                "(1, 10, '2020-03-01', 10, 1, 5), (1, 10, '2020-03-02', 12, 1, 6), (2, 10, '2003-03-17', 1, 0, 0), (1, 11, '2020-03-01', 7, 0, 1)");
+
+        List<RegionDataCount> regions = regionsRepository.findAllWithContinentAndDataCount();
+
+        assertEquals(List.of("10 France 1 Europe 3", "11 Italy 1 Europe 1", "12 Unknown null null 0"), regions.stream()
+                .map(region -> region.getRegionId() + " " + region.getRegionName() + " " + region.getContinentId() + " "
+                        + region.getContinentName() + " " + region.getDataCount())
+                .toList());
+    }
+}
@@ -0,0 +1,96 @@
+package fr.epsib3devc2.backend.repositories;
+
+import fr.epsib3devc2.backend.AbstractMariaDbTest;
+import fr.epsib3devc2.backend.dto.PandemicTotals;
+import fr.epsib3devc2.backend.dto.RegionLatestStats;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+class TotalByDayRepositoryTest extends AbstractMariaDbTest {
+
+    @Autowired
+    private TotalByDayRepository totalByDayRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("INSERT INTO regions (id_regions, name) VALUES (10, 'France'), (11, 'Italy')");
+        jdbcTemplate.update("INSERT INTO pandemics (id_pandemics, name) VALUES (1, 'COVID'), (2, 'SARS')");
+        jdbcTemplate.update("INSERT INTO total_by_day (id_pandemics, id_regions, date_by_day, case_count, death, recovered) " +
+                "VALUES (1, 10, '2020-03-01', 10, 1, 5), (1, 10, '2020-03-03', 30, 3, 20), (1, 11, '2020-03-02', 7, 0, 1), " +
+                // Ligne d'une autre pandémie, plus récente : ne doit pas être retenue pour COVID
+                "(2, 11, '2020-03-05', 99, 9, 9)");
+    }
+
+    @Test
+    void findsTheLatestRowOfEachRegion() {
+        List<RegionLatestStats> latest = totalByDayRepository.findLatestPerRegionByPandemic(1);
+
+        assertEquals(List.of("10 France 2020-03-03 30/3/20", "11 Italy 2020-03-02 7/0/1"), latest.stream()
+                .map(row -> row.getRegionId() + " " + row.getRegionName() + " " + row.getDate() + " "
+                        + row.getCaseCount() + "/" + row.getDeath() + "/" + row.getRecovered())
+                .toList());
+    }
+
+    @Test
+    void findsTheLatestRowOfSelectedRegionsOnly() {
+        List<RegionLatestStats> latest = totalByDayRepository.findLatestPerRegionByPandemicAndRegionIds(1, List.of(11));
+
+        assertEquals(List.of(11), latest.stream().map(RegionLatestStats::getRegionId).toList());
+        assertEquals(List.of(1), latest.stream().map(RegionLatestStats::getPandemicId).toList());
+    }
+
+    @Test
+    void findsTheLatestSnapshotOfOneRegion() {
+        RegionLatestStats snapshot = totalByDayRepository.findLatestSnapshot(1, 10).orElseThrow();
+
+        assertEquals(Date.valueOf("2020-03-03"), snapshot.getDate());
+        assertEquals(30, snapshot.getCaseCount());
+        assertTrue(totalByDayRepository.findLatestSnapshot(2, 10).isEmpty());
+    }
+
+    @Test
+    void aggregatesTheTotalsOfEveryPandemicInOneQuery() {
+        Map<Integer, PandemicTotals> totals = totalByDayRepository.findTotalsPerPandemic().stream()
+                .collect(Collectors.toMap(PandemicTotals::getPandemicId, Function.identity()));
+
+        assertEquals(2, totals.size());
+        assertEquals(List.of(47L, 4L, 2L), List.of(totals.get(1).getTotalCases(), totals.get(1).getTotalDeaths(),
+                totals.get(1).getAffectedRegions()));
+        assertEquals(List.of(99L, 9L, 1L), List.of(totals.get(2).getTotalCases(), totals.get(2).getTotalDeaths(),
+                totals.get(2).getAffectedRegions()));
+    }
+
+    @Test
+    void upsertInsertsNewRowAndUpdatesExistingOne() {
+        totalByDayRepository.upsert(1, 10, Date.valueOf("2020-03-03"), 31, 4, 21, null, null);
+        totalByDayRepository.upsert(1, 10, Date.valueOf("2020-03-04"), 40, 4, 25, null, null);
+
+        Map<String, Object> updated = jdbcTemplate.queryForMap(
+                "SELECT case_count, death, recovered FROM total_by_day WHERE id_regions = 10 AND date_by_day = '2020-03-03'");
+        assertEquals(Map.of("case_count", 31, "death", 4, "recovered", 21), updated);
+        assertEquals(4, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM total_by_day WHERE id_pandemics = 1", Integer.class));
+    }
+
+    @Test
+    void tellsWhetherAPandemicAlreadyHasData() {
+        jdbcTemplate.update("DELETE FROM total_by_day WHERE id_pandemics = 2");
+
+        assertTrue(totalByDayRepository.existsByIdIdPandemics(1));
+        assertFalse(totalByDayRepository.existsByIdIdPandemics(2));
+    }
+}
@@ -0,0 +1,60 @@
+package fr.epsib3devc2.backend.services;
+
+import com.github.luben.zstd.ZstdOutputStream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CompressedInputTest {
+
+    private static final String CSV = "country,date,cases\nFrance,2020-03-01,12\nItaly,2020-03-01,34\n";
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void detectsAndReadsPlainFile() throws IOException {
+        Path file = dir.resolve("data.csv");
+        Files.writeString(file, CSV, StandardCharsets.UTF_8);
+
+        assertEquals(CompressedInput.Format.NONE, CompressedInput.detect(file));
+        assertEquals(CSV, read(file));
+    }
+
+    @Test
+    void detectsAndReadsGzipWhateverTheExtension() throws IOException {
+        Path file = dir.resolve("data.csv");
+        try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(file))) {
+            out.write(CSV.getBytes(StandardCharsets.UTF_8));
+        }
+
+        assertEquals(CompressedInput.Format.GZIP, CompressedInput.detect(file));
+        assertEquals(CSV, read(file));
+    }
+
+    @Test
+    void detectsAndReadsZstd() throws IOException {
+        Path file = dir.resolve("data.csv.zst");
+        try (OutputStream out = new ZstdOutputStream(Files.newOutputStream(file))) {
+            out.write(CSV.getBytes(StandardCharsets.UTF_8));
+        }
+
+        assertEquals(CompressedInput.Format.ZSTD, CompressedInput.detect(file));
+        assertEquals(CSV, read(file));
+    }
+
+    private static String read(Path file) throws IOException {
+        try (InputStream in = CompressedInput.open(file)) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+}
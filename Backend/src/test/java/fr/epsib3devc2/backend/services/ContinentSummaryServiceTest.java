@@ -0,0 +1,89 @@
+package fr.epsib3devc2.backend.services;
+
+import fr.epsib3devc2.backend.AbstractMariaDbTest;
+import fr.epsib3devc2.backend.bo.ContinentPandemicSummary;
+import fr.epsib3devc2.backend.config.IngestProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@Import({ContinentSummaryService.class, ShadowTableReload.class, PandemicIngestLocks.class, IngestProperties.class})
+class ContinentSummaryServiceTest extends AbstractMariaDbTest {
+
+    @Autowired
+    private ContinentSummaryService continentSummaryService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        // Océanie : continent sans région
+        jdbcTemplate.update("INSERT INTO continents (id_continents, name) VALUES (1, 'Europe'), (2, 'Asia'), (3, 'Oceania')");
+        jdbcTemplate.update("INSERT INTO regions (id_regions, name, id_continents) VALUES (10, 'France', 1), (11, 'Italy', 1), (20, 'China', 2)");
+        jdbcTemplate.update("INSERT INTO pandemics (id_pandemics, name) VALUES (1, 'COVID'), (2, 'SARS')");
+        insertDays("(1, 10, '2020-03-01', 10, 1, 5), (1, 10, '2020-03-03', 30, 3, 20), (1, 11, '2020-03-02', 7, 0, 1), "
+                + "(1, 20, '2020-03-01', 50, 5, 40), (2, 20, '2003-03-17', 4, 1, 0)");
+    }
+
+    @Test
+    void buildsOneRowPerContinentFromTheLatestAndCumulatedValues() {
+        continentSummaryService.refresh(1, "COVID");
+
+        // continent : dernières valeurs (cas/décès/guérisons), régions touchées, cumuls (cas/décès), dernière date
+        assertEquals(List.of(
+                "Europe 37/3/21 2 47/4 2020-03-03",
+                "Asia 50/5/40 1 50/5 2020-03-01",
+                "Oceania 0/0/0 0 0/0 null"), describe(continentSummaryService.findByPandemic(1)));
+    }
+
+    @Test
+    void refreshReplacesOnlyThePandemicRows() {
+        continentSummaryService.refresh(1, "COVID");
+        continentSummaryService.refresh(2, "SARS");
+        insertDays("(1, 20, '2020-03-02', 60, 6, 45)");
+
+        continentSummaryService.refresh(1, "COVID");
+
+        assertEquals("Asia 60/6/45 1 110/11 2020-03-02", describe(continentSummaryService.findByPandemic(1)).get(1));
+        assertEquals("Asia 4/1/0 1 4/1 2003-03-17", describe(continentSummaryService.findByPandemic(2)).get(1));
+    }
+
+    @Test
+    void readsNeverBuildTheSummary() {
+        assertTrue(continentSummaryService.findAll().isEmpty());
+        assertTrue(continentSummaryService.findByPandemic(1).isEmpty());
+    }
+
+    @Test
+    void ensureBuiltOnlyBuildsThePandemicsWithoutRows() {
+        continentSummaryService.refresh(2, "SARS");
+        insertDays("(2, 10, '2003-03-18', 2, 0, 0)");
+
+        continentSummaryService.ensureBuilt();
+
+        assertEquals("Europe 37/3/21 2 47/4 2020-03-03", describe(continentSummaryService.findByPandemic(1)).get(0));
+        // SARS déjà construite : la nouvelle ligne n'est pas prise en compte
+        assertEquals("Europe 0/0/0 0 0/0 null", describe(continentSummaryService.findByPandemic(2)).get(0));
+    }
+
+    private void insertDays(String values) {
+        jdbcTemplate.update("INSERT INTO total_by_day (id_pandemics, id_regions, date_by_day, case_count, death, recovered) VALUES " + values);
+    }
+
+    private static List<String> describe(List<ContinentPandemicSummary> rows) {
+        return rows.stream()
+                .map(row -> row.getContinentName() + " " + row.getLatestCases() + "/" + row.getLatestDeaths() + "/"
+                        + row.getLatestRecovered() + " " + row.getAffectedRegions() + " " + row.getCumulatedCases() + "/"
+                        + row.getCumulatedDeaths() + " " + row.getLastDate())
+                .toList();
+    }
+}
@@ -0,0 +1,103 @@
+package fr.epsib3devc2.backend.services;
+
+import fr.epsib3devc2.backend.AbstractMariaDbTest;
+import fr.epsib3devc2.backend.bo.Pandemics;
+import fr.epsib3devc2.backend.config.IngestProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@JdbcTest
+@Import({DailyDeltaService.class, ShadowTableReload.class, PandemicIngestLocks.class, IngestProperties.class})
+class DailyDeltaServiceTest extends AbstractMariaDbTest {
+
+    @Autowired
+    private DailyDeltaService dailyDeltaService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final Pandemics covid = pandemic(1, DataNormalizationService.PANDEMIC_COVID);
+    private final Pandemics sars = pandemic(2, DataNormalizationService.PANDEMIC_SARS);
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("INSERT INTO regions (id_regions, name) VALUES (10, 'China'), (11, 'Singapore')");
+        jdbcTemplate.update("INSERT INTO pandemics (id_pandemics, name) VALUES (1, 'COVID'), (2, 'SARS')");
+    }
+
+    @Test
+    void computesTheDeltasOfEachRegionFromTheCumulativeValues() {
+        insertDays("(2, 10, '2003-03-17', 1, 0, 0), (2, 10, '2003-03-18', 3, 0, 1), (2, 10, '2003-03-19', 6, 1, 1), "
+                + "(2, 11, '2003-03-18', 2, 0, 0)");
+
+        assertEquals(4, dailyDeltaService.refresh(sars, "SARS"));
+
+        // Première ligne d'une région : écart par rapport à zéro
+        assertEquals(List.of(1, 0, 0), deltas(2, 10, "2003-03-17"));
+        assertEquals(List.of(2, 0, 1), deltas(2, 10, "2003-03-18"));
+        assertEquals(List.of(3, 1, 0), deltas(2, 10, "2003-03-19"));
+        assertEquals(List.of(2, 0, 0), deltas(2, 11, "2003-03-18"));
+    }
+
+    @Test
+    void updatesOnlyPendingRowsFromTheLastEarlierRow() {
+        insertDays("(2, 10, '2003-03-17', 1, 0, 0), (2, 10, '2003-03-18', 3, 0, 1), (2, 10, '2003-03-19', 6, 1, 1)");
+        // Lignes déjà calculées (valeurs repères) : seule la dernière est en attente
+        jdbcTemplate.update("UPDATE total_by_day SET new_cases = 100, new_deaths = 100, new_recovered = 100 WHERE date_by_day < '2003-03-19'");
+
+        assertEquals(1, dailyDeltaService.refresh(sars, "SARS"));
+
+        assertEquals(List.of(100, 100, 100), deltas(2, 10, "2003-03-18"));
+        // Amorce : la ligne du 18 (3 cas, 0 décès, 1 guérison)
+        assertEquals(List.of(3, 1, 0), deltas(2, 10, "2003-03-19"));
+    }
+
+    @Test
+    void keepsCovidDailyValuesAndLeavesRecoveredEmpty() {
+        insertDays("(1, 10, '2020-03-01', 10, 1, 5), (1, 10, '2020-03-02', 15, 1, 7)");
+        // daily_new_cases fourni par le fichier pour le premier jour, daily_new_deaths absent
+        jdbcTemplate.update("UPDATE total_by_day SET new_cases = 8 WHERE date_by_day = '2020-03-01'");
+
+        dailyDeltaService.refresh(covid, "COVID");
+
+        assertEquals(Arrays.asList(8, 1, null), deltas(1, 10, "2020-03-01"));
+        assertEquals(Arrays.asList(5, 0, null), deltas(1, 10, "2020-03-02"));
+    }
+
+    @Test
+    void leavesOtherPandemicsAndComputedRowsUntouched() {
+        insertDays("(2, 10, '2003-03-17', 1, 0, 0), (1, 10, '2020-03-01', 10, 1, 5)");
+
+        assertEquals(1, dailyDeltaService.refresh(sars, "SARS"));
+        assertEquals(0, dailyDeltaService.refresh(sars, "SARS"));
+
+        assertEquals(Arrays.asList(null, null, null), deltas(1, 10, "2020-03-01"));
+    }
+
+    private void insertDays(String values) {
+        jdbcTemplate.update("INSERT INTO total_by_day (id_pandemics, id_regions, date_by_day, case_count, death, recovered) VALUES " + values);
+    }
+
+    private List<Integer> deltas(int pandemicId, int regionId, String date) {
+        return jdbcTemplate.queryForObject("SELECT new_cases, new_deaths, new_recovered FROM total_by_day " +
+                        "WHERE id_pandemics = ? AND id_regions = ? AND date_by_day = ?",
+                (rs, i) -> Arrays.asList((Integer) rs.getObject(1), (Integer) rs.getObject(2), (Integer) rs.getObject(3)),
+                pandemicId, regionId, date);
+    }
+
+    private static Pandemics pandemic(int id, String name) {
+        Pandemics pandemic = new Pandemics();
+        pandemic.setIdPandemics(id);
+        pandemic.setName(name);
+        return pandemic;
+    }
+}
@@ -0,0 +1,181 @@
+package fr.epsib3devc2.backend.services;
+
+import fr.epsib3devc2.backend.AbstractMariaDbTest;
+import fr.epsib3devc2.backend.bo.IngestCheckpoint;
+import fr.epsib3devc2.backend.config.IngestProperties;
+import fr.epsib3devc2.backend.dto.SarsDto;
+import fr.epsib3devc2.backend.repositories.IngestCheckpointRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Date;
+import java.util.List;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Écriture jpa-chunked : chaque chunk est validé avec son point de reprise, hors transaction de test
+ */
+@DataJpaTest
+@Import({DataInsertionService.class, ReferenceDataResolver.class, TotalByDayBatchWriter.class, IncrementalIngestFilter.class,
+        DeadLetterWriter.class, ShadowTableReload.class, PandemicIngestLocks.class, IngestFingerprintService.class,
+        DailyDeltaService.class, ContinentSummaryService.class, IngestProperties.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class DataInsertionServiceCheckpointTest extends AbstractMariaDbTest {
+
+    @TempDir
+    Path dir;
+
+    @MockitoBean
+    private PartitionedDailyWriter partitionedDailyWriter;
+
+    @MockitoBean
+    private TotalByDayBulkLoader totalByDayBulkLoader;
+
+    @Autowired
+    private DataInsertionService dataInsertionService;
+
+    @Autowired
+    private IngestCheckpointRepository ingestCheckpointRepository;
+
+    @Autowired
+    private IngestFingerprintService ingestFingerprintService;
+
+    @Autowired
+    private IngestProperties ingestProperties;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    // Fichier source : le point de reprise est lié à son chemin et à son empreinte
+    private String path;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        ingestProperties.setWriteMode(IngestProperties.WriteMode.JPA_CHUNKED);
+        ingestProperties.setBatchSize(2);
+
+        // Identifiants fixes : le cache du résolveur, chargé une seule fois, reste valable d'un test à l'autre
+        jdbcTemplate.update("INSERT INTO regions (id_regions, name) VALUES (10, 'France')");
+        jdbcTemplate.update("INSERT INTO pandemics (id_pandemics, name) VALUES (1, ?), (2, ?)",
+                DataNormalizationService.PANDEMIC_SARS, DataNormalizationService.PANDEMIC_COVID);
+        dataInsertionService.initializeDatabase();
+
+        Path file = dir.resolve("sars_2003.csv");
+        Files.writeString(file, "Date,Country,Cumulative number of case(s)\n");
+        path = file.toString();
+    }
+
+    @AfterEach
+    void cleanUp() {
+        ingestProperties.setInsertPolicy(IngestProperties.InsertPolicy.AUTO);
+        for (String table : new String[]{"total_by_day", "continent_pandemic_summary", "ingest_checkpoint", "regions", "pandemics"}) {
+            jdbcTemplate.update("DELETE FROM " + table);
+        }
+    }
+
+    @Test
+    void commitsEachChunkAndCompletesTheCheckpoint() {
+        dataInsertionService.insertSarsData(sarsRows(), path);
+
+        assertEquals(List.of(17, 18, 19, 20, 21, 22), loadedDays());
+        IngestCheckpoint checkpoint = checkpoint();
+        assertEquals(IngestCheckpoint.STATUS_COMPLETED, checkpoint.getStatus());
+        assertEquals(6, checkpoint.getRowsProcessed());
+        assertEquals(6, checkpoint.getRowsWritten());
+        assertEquals(3, checkpoint.getChunkCount());
+    }
+
+    @Test
+    void resumesAfterTheLastCommittedChunkOfAnUnchangedFile() throws IOException {
+        // Ingestion interrompue après deux chunks : les quatre premières lignes ne sont pas relues
+        interruptedCheckpoint(ingestFingerprintService.current(path).getSize());
+
+        dataInsertionService.insertSarsData(sarsRows(), path);
+
+        assertEquals(List.of(21, 22), loadedDays());
+        IngestCheckpoint checkpoint = checkpoint();
+        assertEquals(IngestCheckpoint.STATUS_COMPLETED, checkpoint.getStatus());
+        assertEquals(6, checkpoint.getRowsWritten());
+        assertEquals(3, checkpoint.getChunkCount());
+    }
+
+    @Test
+    void keepsTheCheckpointAtTheLastCommittedChunkWhenAChunkFails() {
+        // Insertion seule : la ligne déjà présente fait échouer le deuxième chunk (19, 20)
+        ingestProperties.setInsertPolicy(IngestProperties.InsertPolicy.INSERT_ONLY);
+        jdbcTemplate.update("INSERT INTO total_by_day (id_pandemics, id_regions, date_by_day, case_count, death, recovered) " +
+                "VALUES (1, 10, '2003-03-19', 19, 0, 0)");
+
+        assertThrows(IllegalStateException.class, () -> dataInsertionService.insertSarsData(sarsRows(), path));
+
+        assertEquals(List.of(17, 18, 19), loadedDays());
+        IngestCheckpoint checkpoint = checkpoint();
+        assertEquals(IngestCheckpoint.STATUS_RUNNING, checkpoint.getStatus());
+        assertEquals(2, checkpoint.getRowsProcessed());
+        assertEquals(2, checkpoint.getRowsWritten());
+        assertEquals(1, checkpoint.getChunkCount());
+    }
+
+    @Test
+    void startsOverWhenTheFileChanged() throws IOException {
+        interruptedCheckpoint(ingestFingerprintService.current(path).getSize() + 1);
+
+        dataInsertionService.insertSarsData(sarsRows(), path);
+
+        assertEquals(6, loadedDays().size());
+        assertEquals(6, checkpoint().getRowsProcessed());
+    }
+
+    @Test
+    void startsOverAfterACompletedRun() {
+        dataInsertionService.insertSarsData(sarsRows(), path);
+        jdbcTemplate.update("DELETE FROM total_by_day");
+
+        dataInsertionService.insertSarsData(sarsRows(), path);
+
+        assertEquals(6, loadedDays().size());
+    }
+
+    private void interruptedCheckpoint(long sourceSize) throws IOException {
+        IngestCheckpoint interrupted = new IngestCheckpoint(IngestFingerprintService.key(path), "SARS",
+                ingestFingerprintService.current(path));
+        interrupted.setSourceSize(sourceSize);
+        interrupted.setRowsProcessed(4);
+        interrupted.setRowsWritten(4);
+        interrupted.setChunkCount(2);
+        ingestCheckpointRepository.save(interrupted);
+    }
+
+    private IngestCheckpoint checkpoint() {
+        return ingestCheckpointRepository.findById(IngestFingerprintService.key(path)).orElseThrow();
+    }
+
+    private static Stream<SarsDto> sarsRows() {
+        return IntStream.rangeClosed(17, 22).mapToObj(day -> {
+            SarsDto dto = new SarsDto();
+            dto.setDate(Date.valueOf("2003-03-" + day));
+            dto.setCountry("France");
+            dto.setTotalCases(day);
+            return dto;
+        });
+    }
+
+    private List<Integer> loadedDays() {
+        return jdbcTemplate.queryForList("SELECT DAY(date_by_day) FROM total_by_day ORDER BY date_by_day", Integer.class);
+    }
+}
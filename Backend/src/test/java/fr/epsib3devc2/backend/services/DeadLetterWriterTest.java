@@ -0,0 +1,85 @@
+package fr.epsib3devc2.backend.services;
+
+import fr.epsib3devc2.backend.config.IngestProperties;
+import fr.epsib3devc2.backend.dto.TotalByDayRow;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DeadLetterWriterTest {
+
+    @TempDir
+    Path dir;
+
+    private final DeadLetterWriter deadLetterWriter = new DeadLetterWriter();
+
+    @BeforeEach
+    void setUp() {
+        IngestProperties ingestProperties = new IngestProperties();
+        ingestProperties.setDeadLetterDir(dir.toString());
+        ReflectionTestUtils.setField(deadLetterWriter, "ingestProperties", ingestProperties);
+    }
+
+    @Test
+    void writesOneEscapedLinePerRejectInAFileNamedAfterTheLabel() throws IOException {
+        try (DeadLetterWriter.Session rejects = deadLetterWriter.open("SARS")) {
+            rejects.reject(DeadLetterWriter.Reason.MISSING_DATE, "Hong Kong SAR, China", null, "date \"vide\"");
+            rejects.reject(DeadLetterWriter.Reason.WRITE_FAILED,
+                    new TotalByDayRow(1, 42, Date.valueOf("2003-03-17"), 10, 1, 0), "Deadlock");
+        }
+
+        Path file = singleFile();
+        assertTrue(file.getFileName().toString().matches("sars-.*\\.csv"), file.toString());
+        assertEquals(List.of(
+                "reason,country,region_id,date,detail",
+                "MISSING_DATE,\"Hong Kong SAR, China\",,,\"date \"\"vide\"\"\"",
+                "WRITE_FAILED,,42,2003-03-17,Deadlock"), Files.readAllLines(file, StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void createsNoFileWithoutRejects() throws IOException {
+        deadLetterWriter.open("SARS").close();
+
+        try (Stream<Path> files = Files.list(dir)) {
+            assertEquals(0, files.count());
+        }
+    }
+
+    @Test
+    void countsRejectsPerReason() {
+        try (DeadLetterWriter.Session rejects = deadLetterWriter.open("COVID")) {
+            rejects.reject(DeadLetterWriter.Reason.MISSING_COUNTRY, null, null, null);
+            rejects.rejectAll(DeadLetterWriter.Reason.WRITE_FAILED, List.of(
+                    new TotalByDayRow(1, 1, Date.valueOf("2020-03-01"), 1, 0, 0),
+                    new TotalByDayRow(1, 1, Date.valueOf("2020-03-02"), 2, 0, 0)), "timeout");
+            // Doublons comptés sans ligne dans le fichier
+            rejects.count(DeadLetterWriter.Reason.DUPLICATE_KEY, 5);
+
+            assertEquals(8, rejects.total());
+            assertEquals(Map.of(
+                    DeadLetterWriter.Reason.MISSING_COUNTRY, 1L,
+                    DeadLetterWriter.Reason.WRITE_FAILED, 2L,
+                    DeadLetterWriter.Reason.DUPLICATE_KEY, 5L), rejects.counts());
+        }
+    }
+
+    private Path singleFile() throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            List<Path> all = files.toList();
+            assertEquals(1, all.size());
+            return all.get(0);
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package fr.epsib3devc2.backend.services;
+
+import fr.epsib3devc2.backend.config.IngestProperties;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class DropDirectoryWatcherTest {
+
+    private static final String DAILY_HEADER = "date,country,cumulative_total_cases,daily_new_cases,active_cases,cumulative_total_deaths,daily_new_deaths\n";
+    private static final String SUMMARY_HEADER = "country,continent,total_confirmed,total_deaths,total_recovered\n";
+    private static final long DEBOUNCE_MS = 300;
+
+    @TempDir
+    Path dir;
+
+    @Mock
+    private DataInsertionService dataInsertionService;
+
+    @Mock
+    private IngestPipeline ingestPipeline;
+
+    @Mock
+    private ReadToCsv readToCsv;
+
+    @Mock
+    private IngestFingerprintService ingestFingerprintService;
+
+    @Spy
+    private IngestProperties ingestProperties = new IngestProperties();
+
+    @Spy
+    private PandemicIngestLocks pandemicIngestLocks = new PandemicIngestLocks();
+
+    @Mock
+    private ShadowTableReload shadowTableReload;
+
+    @InjectMocks
+    private DropDirectoryWatcher dropDirectoryWatcher;
+
+    private Path watchDir;
+
+    @BeforeEach
+    void setUp() {
+        watchDir = dir.resolve("inbox");
+        ingestProperties.setWatchDir(watchDir.toString());
+        ingestProperties.setWatchDebounceMs(DEBOUNCE_MS);
+        ingestProperties.setEngine(IngestProperties.Engine.PIPELINE);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        dropDirectoryWatcher.stop();
+    }
+
+    @Test
+    void detectsTheDatasetFromTheFileNameAndHeader() throws IOException {
+        assertEquals(DropDirectoryWatcher.Dataset.SARS, DropDirectoryWatcher.detectDataset(write("sars_2003.csv", "Date,Country\n")));
+        assertEquals(DropDirectoryWatcher.Dataset.COVID_DAILY, DropDirectoryWatcher.detectDataset(write("daily.csv", DAILY_HEADER)));
+        assertEquals(DropDirectoryWatcher.Dataset.COVID_SUMMARY, DropDirectoryWatcher.detectDataset(write("summary.csv", SUMMARY_HEADER)));
+        assertEquals(DropDirectoryWatcher.Dataset.UNKNOWN, DropDirectoryWatcher.detectDataset(write("empty.csv", "")));
+    }
+
+    @Test
+    void detectsTheDatasetOfACompressedFile() throws IOException {
+        Path gzip = dir.resolve("daily.csv.gz");
+        try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(gzip))) {
+            out.write((DAILY_HEADER + "2020-03-01,France,12,2,10,0,0\n").getBytes(StandardCharsets.UTF_8));
+        }
+
+        assertEquals(DropDirectoryWatcher.Dataset.COVID_DAILY, DropDirectoryWatcher.detectDataset(gzip));
+    }
+
+    @Test
+    void ingestsOnceAfterTheFileStopsChanging() throws Exception {
+        when(readToCsv.streamCovidDailyData(anyString())).thenAnswer(invocation -> Stream.empty());
+        dropDirectoryWatcher.start();
+
+        // Écriture en plusieurs fois, chaque écart restant sous le délai de stabilisation
+        Path file = watchDir.resolve("covid_daily.csv");
+        Files.writeString(file, DAILY_HEADER, StandardCharsets.UTF_8);
+        for (int day = 1; day <= 4; day++) {
+            Thread.sleep(DEBOUNCE_MS / 3);
+            Files.writeString(file, "2020-03-0" + day + ",France," + day + ",1,0,0,0\n", StandardCharsets.UTF_8,
+                    StandardOpenOption.APPEND);
+        }
+
+        verify(ingestPipeline, timeout(5_000)).ingestCovidDaily(any(), eq(true));
+        Thread.sleep(DEBOUNCE_MS * 3);
+        verify(ingestPipeline, times(1)).ingestCovidDaily(any(), eq(true));
+        verify(ingestFingerprintService).record(List.of(file.toString()));
+    }
+
+    @Test
+    void doesNotRecordAFileWithRowsThatCouldNotBeWritten() throws Exception {
+        when(readToCsv.streamCovidDailyData(anyString())).thenAnswer(invocation -> Stream.empty());
+        when(ingestPipeline.ingestCovidDaily(any(), eq(true))).thenReturn(3L);
+        dropDirectoryWatcher.start();
+
+        write(watchDir, "covid_daily.csv", DAILY_HEADER);
+
+        verify(ingestPipeline, timeout(5_000)).ingestCovidDaily(any(), eq(true));
+        Thread.sleep(DEBOUNCE_MS);
+        verify(ingestFingerprintService, never()).record(any());
+    }
+
+    @Test
+    void defersDroppedFilesDuringAShadowReload() throws Exception {
+        when(readToCsv.streamCovidDailyData(anyString())).thenAnswer(invocation -> Stream.empty());
+        // Rechargement en cours au premier essai, terminé au suivant
+        when(shadowTableReload.isActive()).thenReturn(true, false);
+        dropDirectoryWatcher.start();
+
+        Path file = write(watchDir, "covid_daily.csv", DAILY_HEADER);
+
+        verify(ingestFingerprintService, timeout(5_000)).record(List.of(file.toString()));
+        verify(shadowTableReload, times(2)).isActive();
+        verify(ingestPipeline, times(1)).ingestCovidDaily(any(), eq(true));
+    }
+
+    @Test
+    void skipsUnchangedAndSummaryFiles() throws Exception {
+        Files.createDirectories(watchDir);
+        Path unchanged = write(watchDir, "covid_daily.csv", DAILY_HEADER);
+        Path summary = write(watchDir, "summary.csv", SUMMARY_HEADER);
+        when(ingestFingerprintService.isUnchanged(List.of(unchanged.toString()))).thenReturn(true);
+
+        // Fichiers déjà présents : examinés au démarrage
+        dropDirectoryWatcher.start();
+
+        verify(ingestFingerprintService, timeout(5_000)).isUnchanged(List.of(unchanged.toString()));
+        Thread.sleep(DEBOUNCE_MS * 2);
+        verify(ingestFingerprintService, never()).isUnchanged(List.of(summary.toString()));
+        verify(ingestFingerprintService, never()).record(any());
+        verifyNoInteractions(ingestPipeline, readToCsv, dataInsertionService);
+    }
+
+    private Path write(String name, String content) throws IOException {
+        return write(dir, name, content);
+    }
+
+    private static Path write(Path directory, String name, String content) throws IOException {
+        Path file = directory.resolve(name);
+        Files.writeString(file, content, StandardCharsets.UTF_8);
+        return file;
+    }
+}
@@ -0,0 +1,90 @@
+package fr.epsib3devc2.backend.services;
+
+import fr.epsib3devc2.backend.config.IngestProperties;
+import fr.epsib3devc2.backend.dto.RegionLastDate;
+import fr.epsib3devc2.backend.dto.TotalByDayRow;
+import fr.epsib3devc2.backend.repositories.TotalByDayRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.sql.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class IncrementalIngestFilterTest {
+
+    @Mock
+    private TotalByDayRepository totalByDayRepository;
+
+    @Mock
+    private IngestProperties ingestProperties;
+
+    @InjectMocks
+    private IncrementalIngestFilter incrementalIngestFilter;
+
+    @Test
+    void keepsOnlyRowsAfterTheLastLoadedDateOfTheirRegion() {
+        when(totalByDayRepository.findLastDatesByPandemic(1)).thenReturn(List.of(lastDate(1, 10, "2020-03-05")));
+
+        IncrementalIngestFilter.Watermarks watermarks = incrementalIngestFilter.snapshot(1, true);
+
+        assertFalse(watermarks.isNew(row(1, 10, "2020-03-04")));
+        assertFalse(watermarks.isNew(row(1, 10, "2020-03-05")));
+        assertTrue(watermarks.isNew(row(1, 10, "2020-03-06")));
+        // Région jamais chargée : tout est nouveau
+        assertTrue(watermarks.isNew(row(1, 11, "2020-01-01")));
+    }
+
+    @Test
+    void keepsEachSnapshotUnchangedByLaterRuns() {
+        when(totalByDayRepository.findLastDatesByPandemic(1))
+                .thenReturn(List.of(lastDate(1, 10, "2020-03-05")))
+                .thenReturn(List.of(lastDate(1, 10, "2020-03-10")));
+
+        IncrementalIngestFilter.Watermarks first = incrementalIngestFilter.snapshot(1, true);
+        IncrementalIngestFilter.Watermarks second = incrementalIngestFilter.snapshot(1, true);
+
+        assertTrue(first.isNew(row(1, 10, "2020-03-06")));
+        assertFalse(second.isNew(row(1, 10, "2020-03-06")));
+    }
+
+    @Test
+    void keepsEveryRowWithoutQueryingWhenNotIncremental() {
+        when(ingestProperties.isIncremental()).thenReturn(false);
+
+        IncrementalIngestFilter.Watermarks watermarks = incrementalIngestFilter.snapshot(1);
+
+        assertSame(IncrementalIngestFilter.Watermarks.NONE, watermarks);
+        assertTrue(watermarks.isNew(row(1, 10, "2000-01-01")));
+        verifyNoInteractions(totalByDayRepository);
+    }
+
+    private static TotalByDayRow row(int pandemicId, int regionId, String date) {
+        return new TotalByDayRow(pandemicId, regionId, Date.valueOf(date), 0, 0, 0);
+    }
+
+    private static RegionLastDate lastDate(int pandemicId, int regionId, String date) {
+        return new RegionLastDate() {
+            @Override
+            public Integer getPandemicId() {
+                return pandemicId;
+            }
+
+            @Override
+            public Integer getRegionId() {
+                return regionId;
+            }
+
+            @Override
+            public Date getLastDate() {
+                return Date.valueOf(date);
+            }
+        };
+    }
+}
@@ -0,0 +1,87 @@
+package fr.epsib3devc2.backend.services;
+
+import fr.epsib3devc2.backend.bo.IngestFileFingerprint;
+import fr.epsib3devc2.backend.repositories.IngestFileFingerprintRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class IngestFingerprintServiceTest {
+
+    @TempDir
+    Path dir;
+
+    @Mock
+    private IngestFileFingerprintRepository fingerprintRepository;
+
+    @InjectMocks
+    private IngestFingerprintService ingestFingerprintService;
+
+    // Table ingest_file_fingerprint simulée
+    private final Map<String, IngestFileFingerprint> stored = new HashMap<>();
+
+    private Path file;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        lenient().when(fingerprintRepository.save(any())).thenAnswer(invocation -> {
+            IngestFileFingerprint fingerprint = invocation.getArgument(0);
+            stored.put(fingerprint.getPath(), fingerprint);
+            return fingerprint;
+        });
+        lenient().when(fingerprintRepository.findById(any()))
+                .thenAnswer(invocation -> Optional.ofNullable(stored.get(invocation.<String>getArgument(0))));
+
+        file = dir.resolve("sars.csv");
+        Files.writeString(file, "Date,Country\n2003-03-17,France\n");
+        Files.setLastModifiedTime(file, FileTime.from(Instant.parse("2024-01-01T00:00:00Z")));
+    }
+
+    @Test
+    void reportsUnknownFileAsChanged() {
+        assertFalse(ingestFingerprintService.isUnchanged(List.of(file.toString())));
+    }
+
+    @Test
+    void keepsFileUnchangedWhenOnlyItsModificationTimeMoved() throws IOException {
+        ingestFingerprintService.record(List.of(file.toString()));
+        // Copie ou déploiement : même contenu, nouvelle date de modification
+        Files.setLastModifiedTime(file, FileTime.from(Instant.parse("2024-06-01T00:00:00Z")));
+
+        assertTrue(ingestFingerprintService.isUnchanged(List.of(file.toString())));
+    }
+
+    @Test
+    void detectsContentChangeOfSameSize() throws IOException {
+        ingestFingerprintService.record(List.of(file.toString()));
+        Files.writeString(file, "Date,Country\n2003-03-18,France\n");
+
+        assertFalse(ingestFingerprintService.isUnchanged(List.of(file.toString())));
+    }
+
+    @Test
+    void skipsMissingFilesWhenRecording() {
+        ingestFingerprintService.record(List.of(dir.resolve("absent.csv").toString()));
+
+        verify(fingerprintRepository, never()).save(any());
+    }
+}
@@ -0,0 +1,166 @@
+package fr.epsib3devc2.backend.services;
+
+import fr.epsib3devc2.backend.bo.Pandemics;
+import fr.epsib3devc2.backend.config.IngestProperties;
+import fr.epsib3devc2.backend.dto.IngestPipelineStatus;
+import fr.epsib3devc2.backend.dto.TotalByDayRow;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.sql.Date;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.function.BiFunction;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class IngestPipelineTest {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(10);
+
+    @Mock
+    private DataInsertionService dataInsertionService;
+
+    @Mock
+    private ReferenceDataResolver referenceDataResolver;
+
+    @Mock
+    private TotalByDayBatchWriter totalByDayBatchWriter;
+
+    @Mock
+    private IncrementalIngestFilter incrementalIngestFilter;
+
+    @Mock
+    private DeadLetterWriter deadLetterWriter;
+
+    @Mock
+    private DeadLetterWriter.Session rejects;
+
+    @Mock
+    private DailyDeltaService dailyDeltaService;
+
+    @Mock
+    private ContinentSummaryService continentSummaryService;
+
+    @Spy
+    private IngestProperties ingestProperties = new IngestProperties();
+
+    @InjectMocks
+    private IngestPipeline ingestPipeline;
+
+    @BeforeEach
+    void setUp() {
+        // Files d'un seul lot et plusieurs consommateurs par étape : chaque marqueur de fin doit atteindre chacun d'eux
+        ingestProperties.setBatchSize(2);
+        ingestProperties.setPipelineQueueCapacity(1);
+        ingestProperties.setPipelineNormalizers(3);
+        ingestProperties.setPipelineWriters(2);
+
+        Pandemics covid = new Pandemics();
+        covid.setIdPandemics(1);
+        covid.setName(DataNormalizationService.PANDEMIC_COVID);
+        lenient().when(referenceDataResolver.pandemic(DataNormalizationService.PANDEMIC_COVID)).thenReturn(covid);
+        lenient().when(incrementalIngestFilter.snapshot(any(), anyBoolean())).thenReturn(IncrementalIngestFilter.Watermarks.NONE);
+        lenient().when(deadLetterWriter.open(anyString())).thenReturn(rejects);
+        lenient().when(totalByDayBatchWriter.write(anyList(), anyBoolean()))
+                .thenAnswer(invocation -> invocation.<List<TotalByDayRow>>getArgument(0).size());
+    }
+
+    @Test
+    void writesEveryNormalizedRow() {
+        // L'élément 7 est rejeté par la normalisation : la ligne est comptée en échec
+        assertTimeoutPreemptively(TIMEOUT, () -> ingestPipeline.run("COVID", DataNormalizationService.PANDEMIC_COVID,
+                IntStream.range(0, 25).boxed(), (day, session) -> day == 7 ? null : row(day), false));
+
+        IngestPipelineStatus status = status("COVID");
+        assertEquals("TERMINE", status.state());
+        assertEquals(1, status.failed());
+        assertEquals(List.of(25L, 25L, 24L), status.stages().stream().map(IngestPipelineStatus.Stage::items).toList());
+        verify(dailyDeltaService).refresh(any(), eq("COVID"));
+    }
+
+    @Test
+    void failsTheRunWithoutRefreshingWhenTheFileCannotBeRead() {
+        Stream<Integer> source = IntStream.iterate(0, day -> day + 1).boxed().map(day -> {
+            if (day == 10) {
+                throw new IllegalArgumentException("ligne illisible");
+            }
+            return day;
+        });
+
+        IllegalStateException error = assertTimeoutPreemptively(TIMEOUT, () -> assertThrows(IllegalStateException.class,
+                () -> ingestPipeline.run("COVID", DataNormalizationService.PANDEMIC_COVID, source, (day, session) -> row(day), false)));
+
+        assertTrue(error.getMessage().contains("ligne illisible"));
+        assertEquals("ECHEC", status("COVID").state());
+        verifyNoInteractions(dailyDeltaService, continentSummaryService);
+    }
+
+    @Test
+    void drainsTheParserAndFailsTheRunWhenNormalizationFails() {
+        // Beaucoup plus de lots que de places dans les files : le parsing ne doit pas rester bloqué après l'échec
+        BiFunction<Integer, DeadLetterWriter.Session, TotalByDayRow> toRow = (day, session) -> {
+            if (day == 5) {
+                throw new IllegalStateException("région introuvable");
+            }
+            return row(day);
+        };
+
+        assertTimeoutPreemptively(TIMEOUT, () -> assertThrows(IllegalStateException.class,
+                () -> ingestPipeline.run("COVID", DataNormalizationService.PANDEMIC_COVID, IntStream.range(0, 1000).boxed(), toRow, false)));
+
+        IngestPipelineStatus status = status("COVID");
+        assertEquals("ECHEC", status.state());
+        assertEquals(1000, status.stages().get(0).items());
+        verifyNoInteractions(dailyDeltaService, continentSummaryService);
+    }
+
+    @Test
+    void countsTheRowsOfAFailedBatch() {
+        when(totalByDayBatchWriter.write(anyList(), anyBoolean())).thenAnswer(invocation -> {
+            List<TotalByDayRow> rows = invocation.getArgument(0);
+            if (rows.stream().anyMatch(row -> row.caseCount() == 4)) {
+                throw new IllegalStateException("Lock wait timeout exceeded");
+            }
+            return rows.size();
+        });
+
+        long writeFailed = assertTimeoutPreemptively(TIMEOUT, () -> ingestPipeline.run("COVID",
+                DataNormalizationService.PANDEMIC_COVID, IntStream.range(0, 10).boxed(), (day, session) -> row(day), false));
+
+        assertEquals(2, writeFailed);
+        IngestPipelineStatus status = status("COVID");
+        assertEquals("TERMINE", status.state());
+        assertEquals(2, status.failed());
+        assertEquals(8, status.stages().get(2).items());
+        verify(rejects).rejectAll(eq(DeadLetterWriter.Reason.WRITE_FAILED), anyList(), eq("Lock wait timeout exceeded"));
+    }
+
+    @Test
+    void failsWhenThePandemicIsMissing() {
+        assertThrows(IllegalStateException.class, () -> ingestPipeline.run("SARS", DataNormalizationService.PANDEMIC_SARS,
+                Stream.of(1, 2, 3), (day, session) -> row(day), false));
+
+        assertTrue(ingestPipeline.status().isEmpty());
+        verifyNoInteractions(totalByDayBatchWriter);
+    }
+
+    private IngestPipelineStatus status(String label) {
+        return ingestPipeline.status().stream().filter(run -> run.label().equals(label)).findFirst().orElseThrow();
+    }
+
+    private static TotalByDayRow row(int day) {
+        return new TotalByDayRow(1, 1, Date.valueOf(LocalDate.of(2020, 3, 1).plusDays(day)), day, 0, 0);
+    }
+}
@@ -0,0 +1,109 @@
+package fr.epsib3devc2.backend.services;
+
+import fr.epsib3devc2.backend.config.IngestProperties;
+import fr.epsib3devc2.backend.dto.IngestJobStatus;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockMultipartFile;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class IngestUploadServiceTest {
+
+    private static final String DAILY_CSV = "date,country,cumulative_total_cases,daily_new_cases,active_cases,cumulative_total_deaths,daily_new_deaths\n"
+            + "2020-03-01,France,12,2,10,0,0\n";
+
+    @Mock
+    private IngestPipeline ingestPipeline;
+
+    @Mock
+    private DataInsertionService dataInsertionService;
+
+    @Mock
+    private ReadToCsv readToCsv;
+
+    @Spy
+    private IngestProperties ingestProperties = new IngestProperties();
+
+    @Spy
+    private PandemicIngestLocks pandemicIngestLocks = new PandemicIngestLocks();
+
+    @Mock
+    private ShadowTableReload shadowTableReload;
+
+    @InjectMocks
+    private IngestUploadService ingestUploadService;
+
+    @AfterEach
+    void tearDown() {
+        ingestUploadService.stop();
+    }
+
+    @Test
+    void refusesUploadsDuringAShadowReload() {
+        when(shadowTableReload.isActive()).thenReturn(true);
+
+        assertThrows(IllegalStateException.class, () -> ingestUploadService.submit(csv("covid_daily.csv", DAILY_CSV)));
+        verifyNoInteractions(ingestPipeline, readToCsv);
+    }
+
+    @Test
+    void streamsTheUploadedFileThroughThePipelineUnderTheJobLabel() throws Exception {
+        when(readToCsv.streamCovidDailyData(anyString())).thenReturn(Stream.empty());
+
+        String jobId = ingestUploadService.submit(csv("covid_daily.csv", DAILY_CSV));
+
+        verify(ingestPipeline, timeout(5_000)).run(eq("UPLOAD-" + jobId), eq(DataNormalizationService.PANDEMIC_COVID), any(), any(), eq(true));
+        IngestJobStatus status = ingestUploadService.status(jobId);
+        assertEquals("covid_daily.csv", status.fileName());
+        assertEquals("COVID_DAILY", status.dataset());
+    }
+
+    @Test
+    void rejectsAnUnrecognizedFile() {
+        assertThrows(IllegalArgumentException.class,
+                () -> ingestUploadService.submit(csv("summary.csv", "country,continent,total_confirmed\n")));
+        verifyNoInteractions(ingestPipeline);
+    }
+
+    @Test
+    void refusesUploadsBeyondTheQueueCapacity() throws Exception {
+        ingestProperties.setUploadWorkers(1);
+        ingestProperties.setUploadQueueCapacity(1);
+        when(readToCsv.streamCovidDailyData(anyString())).thenAnswer(invocation -> Stream.empty());
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            release.await(5, TimeUnit.SECONDS);
+            return 0L;
+        })
+                .when(ingestPipeline).run(anyString(), anyString(), any(), any(), anyBoolean());
+
+        try {
+            // Un job en cours, un job en attente : le troisième est refusé
+            ingestUploadService.submit(csv("covid_daily.csv", DAILY_CSV));
+            verify(ingestPipeline, timeout(5_000)).run(anyString(), anyString(), any(), any(), anyBoolean());
+            ingestUploadService.submit(csv("covid_daily.csv", DAILY_CSV));
+            assertThrows(RejectedExecutionException.class, () -> ingestUploadService.submit(csv("covid_daily.csv", DAILY_CSV)));
+        } finally {
+            release.countDown();
+        }
+    }
+
+    private static MockMultipartFile csv(String name, String content) {
+        return new MockMultipartFile("file", name, "text/csv", content.getBytes(StandardCharsets.UTF_8));
+    }
+}
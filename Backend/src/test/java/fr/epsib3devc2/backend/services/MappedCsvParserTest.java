@@ -0,0 +1,79 @@
+package fr.epsib3devc2.backend.services;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MappedCsvParserTest {
+
+    @TempDir
+    Path dir;
+
+    private MappedCsvParser open(String content) throws IOException {
+        Path file = dir.resolve("data.csv");
+        Files.writeString(file, content, StandardCharsets.UTF_8);
+        return MappedCsvParser.open(file);
+    }
+
+    @Test
+    void readsQuotedFieldsAndCrlf() throws IOException {
+        try (MappedCsvParser parser = open("\uFEFFcountry,value\r\n\"Hong Kong SAR, China\",12.0\r\n\"Say \"\"hi\"\"\",-3\r\n")) {
+            int country = parser.requireColumn("Country");
+            int value = parser.requireColumn("value");
+
+            assertTrue(parser.nextRecord());
+            assertEquals("Hong Kong SAR, China", parser.cachedString(country));
+            assertEquals(12, parser.parseInt(value));
+
+            assertTrue(parser.nextRecord());
+            assertEquals("Say \"hi\"", parser.cachedString(country));
+            assertEquals(-3, parser.parseInt(value));
+
+            assertFalse(parser.nextRecord());
+        }
+    }
+
+    @Test
+    void cachedStringReturnsSameInstanceForRepeatedValues() throws IOException {
+        try (MappedCsvParser parser = open("country\nFrance\nItaly\nFrance\n")) {
+            parser.nextRecord();
+            String first = parser.cachedString(0);
+            parser.nextRecord();
+            assertEquals("Italy", parser.cachedString(0));
+            parser.nextRecord();
+            assertSame(first, parser.cachedString(0));
+        }
+    }
+
+    @Test
+    void cachedStringKeepsCollidingValuesApart() throws IOException {
+        // "Aa" et "BB" ont le même hash : la comparaison des octets les distingue
+        try (MappedCsvParser parser = open("country\nAa\nBB\nAa\nBB\n")) {
+            for (String expected : new String[]{"Aa", "BB", "Aa", "BB"}) {
+                parser.nextRecord();
+                assertEquals(expected, parser.cachedString(0));
+            }
+        }
+    }
+
+    @Test
+    void cachedStringStaysCorrectBeyondTheCacheBound() throws IOException {
+        StringBuilder csv = new StringBuilder("country\n");
+        int values = MappedCsvParser.MAX_CACHED * 3;
+        for (int i = 0; i < values; i++) {
+            csv.append("Region ").append(i).append('\n');
+        }
+        try (MappedCsvParser parser = open(csv.toString())) {
+            for (int i = 0; i < values; i++) {
+                assertTrue(parser.nextRecord());
+                assertEquals("Region " + i, parser.cachedString(0));
+            }
+        }
+    }
+}
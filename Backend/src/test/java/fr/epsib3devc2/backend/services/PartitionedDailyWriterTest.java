@@ -0,0 +1,134 @@
+package fr.epsib3devc2.backend.services;
+
+import fr.epsib3devc2.backend.config.IngestProperties;
+import fr.epsib3devc2.backend.dto.TotalByDayRow;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PartitionedDailyWriterTest {
+
+    @Mock
+    private TotalByDayBatchWriter totalByDayBatchWriter;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private DeadLetterWriter.Session rejects;
+
+    @Spy
+    private IngestProperties ingestProperties = new IngestProperties();
+
+    @InjectMocks
+    private PartitionedDailyWriter partitionedDailyWriter;
+
+    // Lots reçus par l'écrivain JDBC, copiés (les lots sont des vues sur la partition)
+    private final List<List<TotalByDayRow>> batches = Collections.synchronizedList(new ArrayList<>());
+
+    @BeforeEach
+    void setUp() {
+        ingestProperties.setWriterParallelism(2);
+        ingestProperties.setBatchSize(2);
+
+        when(transactionManager.getTransaction(any())).thenAnswer(invocation -> new SimpleTransactionStatus());
+        lenient().when(totalByDayBatchWriter.write(anyList(), anyBoolean())).thenAnswer(invocation -> {
+            List<TotalByDayRow> batch = new ArrayList<>(invocation.getArgument(0));
+            if (batch.get(0).regionId() == 2) {
+                throw new IllegalStateException("Deadlock found when trying to get lock");
+            }
+            batches.add(batch);
+            return batch.size();
+        });
+    }
+
+    @Test
+    void writesEachRegionInPrimaryKeyOrderByBatches() {
+        PartitionedDailyWriter.Session session = partitionedDailyWriter.open("SARS", false, rejects);
+        session.add(row(1, "2003-03-19"));
+        session.add(row(3, "2003-03-17"));
+        session.add(row(1, "2003-03-17"));
+        session.add(row(3, "2003-03-18"));
+        session.add(row(1, "2003-03-18"));
+        session.close();
+
+        assertEquals(5, session.getWritten());
+        assertEquals(List.of(
+                List.of(row(1, "2003-03-17"), row(1, "2003-03-18")),
+                List.of(row(1, "2003-03-19"))), batches.stream().filter(batch -> batch.get(0).regionId() == 1).toList());
+        assertTrue(batches.contains(List.of(row(3, "2003-03-17"), row(3, "2003-03-18"))));
+        // Une transaction par région
+        verify(transactionManager, times(2)).commit(any());
+        verifyNoInteractions(rejects);
+    }
+
+    @Test
+    void writesThePartitionsOfARegionOneAfterTheOther() {
+        // Tampon de 16 lignes : la région donne trois partitions, qui ne doivent pas s'écrire en parallèle
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicBoolean overlap = new AtomicBoolean();
+        doAnswer(invocation -> {
+            if (inFlight.incrementAndGet() > 1) {
+                overlap.set(true);
+            }
+            Thread.sleep(5);
+            batches.add(new ArrayList<>(invocation.getArgument(0)));
+            inFlight.decrementAndGet();
+            return 2;
+        }).when(totalByDayBatchWriter).write(anyList(), anyBoolean());
+
+        PartitionedDailyWriter.Session session = partitionedDailyWriter.open("COVID", false, rejects);
+        LocalDate start = LocalDate.of(2020, 3, 1);
+        for (int day = 0; day < 40; day++) {
+            session.add(row(1, start.plusDays(day).toString()));
+        }
+        session.close();
+
+        assertFalse(overlap.get());
+        assertEquals(40, session.getWritten());
+        List<Date> dates = batches.stream().flatMap(List::stream).map(TotalByDayRow::date).toList();
+        assertEquals(dates.stream().sorted().toList(), dates);
+        verify(transactionManager, times(3)).commit(any());
+    }
+
+    @Test
+    void rollsBackOnlyTheFailingRegion() {
+        PartitionedDailyWriter.Session session = partitionedDailyWriter.open("SARS", true, rejects);
+        session.add(row(1, "2003-03-17"));
+        session.add(row(2, "2003-03-17"));
+        session.add(row(2, "2003-03-18"));
+        session.add(row(3, "2003-03-17"));
+        session.close();
+
+        assertEquals(2, session.getWritten());
+        assertEquals(2, session.getFailed());
+        verify(rejects).rejectAll(eq(DeadLetterWriter.Reason.WRITE_FAILED),
+                eq(List.of(row(2, "2003-03-17"), row(2, "2003-03-18"))), contains("Deadlock"));
+        verify(transactionManager, times(1)).rollback(any());
+        verify(transactionManager, times(2)).commit(any());
+        verify(totalByDayBatchWriter, atLeastOnce()).write(anyList(), eq(true));
+    }
+
+    private static TotalByDayRow row(int regionId, String date) {
+        return new TotalByDayRow(1, regionId, Date.valueOf(date), 0, 0, 0);
+    }
+}
@@ -0,0 +1,98 @@
+package fr.epsib3devc2.backend.services;
+
+import fr.epsib3devc2.backend.config.IngestProperties;
+import fr.epsib3devc2.backend.dto.SarsDto;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReadToCsvTest {
+
+    private static final String SARS_HEADER = "Date,Country,Cumulative number of case(s),Number of deaths,Number recovered\n";
+
+    @TempDir
+    Path dir;
+
+    private final ReadToCsv readToCsv = new ReadToCsv();
+
+    @BeforeEach
+    void setUp() {
+        IngestProperties ingestProperties = new IngestProperties();
+        ingestProperties.setDeadLetterDir(dir.resolve("rejects").toString());
+        DeadLetterWriter deadLetterWriter = new DeadLetterWriter();
+        ReflectionTestUtils.setField(deadLetterWriter, "ingestProperties", ingestProperties);
+        ReflectionTestUtils.setField(readToCsv, "ingestProperties", ingestProperties);
+        ReflectionTestUtils.setField(readToCsv, "deadLetterWriter", deadLetterWriter);
+    }
+
+    @Test
+    void streamsSarsRowsWithoutCountryForTheDeadLetterFile() throws IOException {
+        String path = write(SARS_HEADER +
+                "2003-03-17,France,1,0,0\n" +
+                "2003-03-18,,4,0,0\n" +
+                "2003-03-18,Italy,2,1,0\n");
+
+        // La ligne sans pays n'est pas filtrée : elle est rejetée (MISSING_COUNTRY) à la conversion
+        try (Stream<SarsDto> rows = readToCsv.streamSarsData(path)) {
+            assertEquals(List.of("France 1", " 4", "Italy 2"), rows.map(dto -> dto.getCountry() + " " + dto.getTotalCases()).toList());
+        }
+    }
+
+    @Test
+    void skipsUnreadableRowsIntoTheDeadLetterFile() throws IOException {
+        String path = write(SARS_HEADER +
+                "2003-03-17,France,1,0,0\n" +
+                "2003-03-18,Italy,x,0,0\n" +
+                "2003-03-18,Spain,3,0,0\n");
+
+        try (Stream<SarsDto> rows = readToCsv.streamSarsData(path)) {
+            assertEquals(List.of("France", "Spain"), rows.map(SarsDto::getCountry).toList());
+        }
+
+        try (Stream<Path> files = Files.list(dir.resolve("rejects"))) {
+            List<String> lines = Files.readAllLines(files.findFirst().orElseThrow());
+            assertEquals(2, lines.size());
+            assertTrue(lines.get(1).startsWith("PARSE_ERROR,,,,"));
+            assertTrue(lines.get(1).contains("ligne 3"));
+        }
+    }
+
+    @Test
+    void readsRowsOnlyAsTheyAreConsumed() throws IOException {
+        // Ligne invalide en fin de fichier : jamais atteinte si seule la première ligne est consommée
+        // (l'itérateur opencsv convertit une ligne d'avance)
+        String path = write(SARS_HEADER +
+                "2003-03-17,France,1,0,0\n" +
+                "2003-03-18,France,2,0,0\n" +
+                "pas-une-date,Italy,x,y,z\n");
+
+        try (Stream<SarsDto> rows = readToCsv.streamSarsData(path)) {
+            assertEquals("France", rows.findFirst().orElseThrow().getCountry());
+        }
+    }
+
+    @Test
+    void splitsStreamIntoBoundedChunks() {
+        List<List<Integer>> chunks = new ArrayList<>();
+
+        ReadToCsv.forEachChunk(Stream.of(1, 2, 3, 4, 5), 2, chunks::add);
+
+        assertEquals(List.of(List.of(1, 2), List.of(3, 4), List.of(5)), chunks);
+    }
+
+    private String write(String content) throws IOException {
+        Path file = dir.resolve("sars.csv");
+        Files.writeString(file, content);
+        return file.toString();
+    }
+}
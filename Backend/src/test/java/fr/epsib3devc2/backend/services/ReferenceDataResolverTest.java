@@ -0,0 +1,142 @@
+package fr.epsib3devc2.backend.services;
+
+import fr.epsib3devc2.backend.bo.Continents;
+import fr.epsib3devc2.backend.bo.Pandemics;
+import fr.epsib3devc2.backend.bo.Regions;
+import fr.epsib3devc2.backend.repositories.ContinentsRepository;
+import fr.epsib3devc2.backend.repositories.CountriesRepository;
+import fr.epsib3devc2.backend.repositories.PandemicsRepository;
+import fr.epsib3devc2.backend.repositories.RegionsRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionSystemException;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ReferenceDataResolverTest {
+
+    @Mock
+    private ContinentsRepository continentsRepository;
+
+    @Mock
+    private RegionsRepository regionsRepository;
+
+    @Mock
+    private CountriesRepository countriesRepository;
+
+    @Mock
+    private PandemicsRepository pandemicsRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @InjectMocks
+    private ReferenceDataResolver referenceDataResolver;
+
+    @Test
+    void loadsEachTableOnceAndResolvesIdsInMemory() {
+        Continents europe = continent(1, "Europe");
+        Regions france = new Regions();
+        france.setIdRegions(10);
+        france.setName("France");
+        france.setContinent(europe);
+        Pandemics covid = new Pandemics();
+        covid.setIdPandemics(3);
+        covid.setName("COVID");
+        when(continentsRepository.findAll()).thenReturn(List.of(europe));
+        when(regionsRepository.findAllWithContinent()).thenReturn(List.of(france));
+        when(pandemicsRepository.findAll()).thenReturn(List.of(covid));
+
+        referenceDataResolver.load();
+        referenceDataResolver.load();
+
+        assertEquals(10, referenceDataResolver.regionId("France"));
+        assertEquals(3, referenceDataResolver.pandemicId("COVID"));
+        assertNull(referenceDataResolver.regionId("Italy"));
+        verify(regionsRepository, times(1)).findAllWithContinent();
+        verify(regionsRepository, never()).findByName(any());
+    }
+
+    @Test
+    void invalidateReloadsTheTablesAndForgetsDeletedRows() {
+        Regions france = new Regions();
+        france.setIdRegions(10);
+        france.setName("France");
+        Regions recreated = new Regions();
+        recreated.setIdRegions(11);
+        recreated.setName("France");
+        when(regionsRepository.findAllWithContinent()).thenReturn(List.of(france), List.of(recreated));
+        when(pandemicsRepository.findAll()).thenReturn(List.of(pandemic(3, "COVID")), List.of());
+
+        referenceDataResolver.load();
+        referenceDataResolver.invalidate();
+
+        // Région recréée sous un autre identifiant, pandémie supprimée de la base
+        assertEquals(11, referenceDataResolver.regionId("France"));
+        assertNull(referenceDataResolver.pandemic("COVID"));
+        verify(regionsRepository, times(2)).findAllWithContinent();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void createsMissingRegionsInOneBatch() {
+        when(continentsRepository.findAll()).thenReturn(List.of(continent(1, "Europe")));
+        when(regionsRepository.saveAll(any())).thenAnswer(invocation -> {
+            List<Regions> saved = new ArrayList<>();
+            ((Iterable<Regions>) invocation.getArgument(0)).forEach(saved::add);
+            return saved;
+        });
+
+        referenceDataResolver.resolveRegions(List.of("France", "Italy", "France"), Map.of("France", "Europe"));
+
+        ArgumentCaptor<Iterable<Regions>> batch = ArgumentCaptor.forClass(Iterable.class);
+        verify(regionsRepository, times(1)).saveAll(batch.capture());
+        List<String> created = new ArrayList<>();
+        batch.getValue().forEach(region -> created.add(region.getName() + " " +
+                (region.getContinent() != null ? region.getContinent().getName() : "-")));
+        assertEquals(List.of("France Europe", "Italy -"), created);
+        assertEquals(2, referenceDataResolver.regionCount());
+        assertEquals(1, referenceDataResolver.regionsWithContinentCount());
+    }
+
+    @Test
+    void keepsRegionsOutOfTheCacheWhenTheirTransactionFails() {
+        when(regionsRepository.saveAll(any())).thenAnswer(invocation -> new ArrayList<>(invocation.<Collection<Regions>>getArgument(0)));
+        // Chargement du cache validé, création des régions en échec à la validation
+        doNothing().doThrow(new TransactionSystemException("commit")).when(transactionManager).commit(any());
+
+        assertThrows(TransactionSystemException.class,
+                () -> referenceDataResolver.resolveRegions(List.of("France"), Map.of()));
+
+        // Région non validée : absente du cache, recréée par la prochaine résolution
+        assertNull(referenceDataResolver.regionId("France"));
+        assertEquals(0, referenceDataResolver.regionCount());
+    }
+
+    private static Pandemics pandemic(int id, String name) {
+        Pandemics pandemic = new Pandemics();
+        pandemic.setIdPandemics(id);
+        pandemic.setName(name);
+        return pandemic;
+    }
+
+    private static Continents continent(int id, String name) {
+        Continents continent = new Continents();
+        continent.setIdContinents(id);
+        continent.setName(name);
+        return continent;
+    }
+}
@@ -0,0 +1,97 @@
+package fr.epsib3devc2.backend.services;
+
+import fr.epsib3devc2.backend.AbstractMariaDbTest;
+import fr.epsib3devc2.backend.config.IngestProperties;
+import fr.epsib3devc2.backend.dto.TotalByDayRow;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Les instructions DDL (CREATE, RENAME) valident implicitement : pas de transaction de test
+ */
+@JdbcTest
+@Import({ShadowTableReload.class, PandemicIngestLocks.class, TotalByDayBatchWriter.class, IngestProperties.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ShadowTableReloadTest extends AbstractMariaDbTest {
+
+    @Autowired
+    private ShadowTableReload shadowTableReload;
+
+    @Autowired
+    private TotalByDayBatchWriter totalByDayBatchWriter;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("INSERT INTO regions (id_regions, name) VALUES (10, 'France'), (11, 'Italy')");
+        jdbcTemplate.update("INSERT INTO pandemics (id_pandemics, name) VALUES (1, 'COVID')");
+        jdbcTemplate.update("INSERT INTO total_by_day (id_pandemics, id_regions, date_by_day, case_count, death, recovered) " +
+                "VALUES (1, 10, '2020-03-01', 12, 1, 10), (1, 11, '2020-03-01', 30, 2, 25)");
+    }
+
+    @AfterEach
+    void cleanUp() {
+        if (shadowTableReload.isActive()) {
+            shadowTableReload.abort();
+        }
+        for (String table : new String[]{"total_by_day", "regions", "pandemics"}) {
+            jdbcTemplate.update("DELETE FROM " + table);
+        }
+    }
+
+    @Test
+    void swapServesTheReloadedRows() {
+        shadowTableReload.begin();
+        assertEquals("total_by_day_shadow", shadowTableReload.targetTable());
+        totalByDayBatchWriter.write(List.of(
+                new TotalByDayRow(1, 10, Date.valueOf("2020-03-01"), 12, 1, 10),
+                new TotalByDayRow(1, 10, Date.valueOf("2020-03-02"), 20, 2, 15),
+                new TotalByDayRow(1, 11, Date.valueOf("2020-03-01"), 30, 2, 25)), false);
+        // Table en service inchangée pendant le rechargement
+        assertEquals(2, count("total_by_day"));
+
+        assertTrue(shadowTableReload.swap());
+
+        assertFalse(shadowTableReload.isActive());
+        assertEquals("total_by_day", shadowTableReload.targetTable());
+        assertEquals(3, count("total_by_day"));
+        // Clés étrangères recréées sur la table fantôme, conservées par l'échange
+        assertEquals(List.of("pandemics", "regions"), jdbcTemplate.queryForList("SELECT REFERENCED_TABLE_NAME " +
+                "FROM information_schema.KEY_COLUMN_USAGE WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'total_by_day' " +
+                "AND REFERENCED_TABLE_NAME IS NOT NULL ORDER BY REFERENCED_TABLE_NAME", String.class));
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM information_schema.TABLES " +
+                "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME IN ('total_by_day_shadow', 'total_by_day_old')", Integer.class));
+    }
+
+    @Test
+    void swapKeepsTheLiveTableWhenTheShadowIsIncomplete() {
+        shadowTableReload.begin();
+        // Une ligne sur deux : sous shadow-min-ratio (0.9 par défaut)
+        totalByDayBatchWriter.write(List.of(new TotalByDayRow(1, 10, Date.valueOf("2020-03-01"), 99, 9, 9)), false);
+
+        assertFalse(shadowTableReload.swap());
+
+        assertFalse(shadowTableReload.isActive());
+        assertEquals(12, jdbcTemplate.queryForObject(
+                "SELECT case_count FROM total_by_day WHERE id_regions = 10 AND date_by_day = '2020-03-01'", Integer.class));
+        assertEquals(2, count("total_by_day"));
+    }
+
+    private int count(String table) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + table, Integer.class);
+    }
+}
@@ -0,0 +1,99 @@
+package fr.epsib3devc2.backend.services;
+
+import fr.epsib3devc2.backend.AbstractMariaDbTest;
+import fr.epsib3devc2.backend.config.IngestProperties;
+import fr.epsib3devc2.backend.dto.TotalByDayRow;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Date;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@JdbcTest
+@Import({TotalByDayBatchWriter.class, ShadowTableReload.class, PandemicIngestLocks.class, IngestProperties.class})
+class TotalByDayBatchWriterTest extends AbstractMariaDbTest {
+
+    @Autowired
+    private TotalByDayBatchWriter totalByDayBatchWriter;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("INSERT INTO regions (id_regions, name) VALUES (10, 'France'), (11, 'Italy')");
+        jdbcTemplate.update("INSERT INTO pandemics (id_pandemics, name) VALUES (1, 'COVID')");
+    }
+
+    @Test
+    void insertsEveryRowOfTheBatch() {
+        int sent = totalByDayBatchWriter.write(List.of(
+                new TotalByDayRow(1, 10, Date.valueOf("2020-03-01"), 12, 1, 10),
+                new TotalByDayRow(1, 10, Date.valueOf("2020-03-02"), 20, 2, 15),
+                new TotalByDayRow(1, 11, Date.valueOf("2020-03-01"), 5, 0, 5)), false);
+
+        assertEquals(3, sent);
+        List<String> stored = jdbcTemplate.query(
+                "SELECT id_regions, date_by_day, case_count, death, recovered FROM total_by_day ORDER BY id_regions, date_by_day",
+                (rs, i) -> rs.getInt(1) + " " + rs.getDate(2) + " " + rs.getInt(3) + "/" + rs.getInt(4) + "/" + rs.getInt(5));
+        assertEquals(List.of("10 2020-03-01 12/1/10", "10 2020-03-02 20/2/15", "11 2020-03-01 5/0/5"), stored);
+    }
+
+    @Test
+    void insertOnlyRejectsAnExistingKey() {
+        totalByDayBatchWriter.write(List.of(new TotalByDayRow(1, 10, Date.valueOf("2020-03-01"), 12, 1, 10)), false);
+
+        assertThrows(DataIntegrityViolationException.class, () -> totalByDayBatchWriter.write(
+                List.of(new TotalByDayRow(1, 10, Date.valueOf("2020-03-01"), 99, 9, 9)), false));
+    }
+
+    @Test
+    void upsertUpdatesTheExistingRow() {
+        totalByDayBatchWriter.write(List.of(new TotalByDayRow(1, 10, Date.valueOf("2020-03-01"), 12, 1, 10)), false);
+
+        totalByDayBatchWriter.write(List.of(
+                new TotalByDayRow(1, 10, Date.valueOf("2020-03-01"), 15, 2, 11),
+                new TotalByDayRow(1, 10, Date.valueOf("2020-03-02"), 20, 2, 15)), true);
+
+        assertEquals(List.of(15, 20), jdbcTemplate.queryForList(
+                "SELECT case_count FROM total_by_day ORDER BY date_by_day", Integer.class));
+        assertEquals(2, jdbcTemplate.queryForObject("SELECT death FROM total_by_day WHERE date_by_day = '2020-03-01'", Integer.class));
+    }
+
+    @Test
+    void storesTheSourceDailyCountsAndLeavesTheOthersPending() {
+        totalByDayBatchWriter.write(List.of(
+                new TotalByDayRow(1, 10, Date.valueOf("2020-03-01"), 12, 1, 10, 12, 1),
+                new TotalByDayRow(1, 10, Date.valueOf("2020-03-02"), 20, 2, 15)), false);
+
+        assertEquals(Arrays.asList(12, null), newCases());
+    }
+
+    @Test
+    void upsertPutsTheUpdatedRowBackInPending() {
+        totalByDayBatchWriter.write(List.of(new TotalByDayRow(1, 10, Date.valueOf("2020-03-01"), 12, 1, 10)), false);
+        jdbcTemplate.update("UPDATE total_by_day SET new_cases = 12, new_deaths = 1, new_recovered = 10");
+
+        totalByDayBatchWriter.write(List.of(new TotalByDayRow(1, 10, Date.valueOf("2020-03-01"), 15, 2, 11)), true);
+
+        assertEquals(Arrays.asList((Integer) null), newCases());
+    }
+
+    @Test
+    void sendsNothingForAnEmptyBatch() {
+        assertEquals(0, totalByDayBatchWriter.write(List.of(), true));
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM total_by_day", Integer.class));
+    }
+
+    private List<Integer> newCases() {
+        return jdbcTemplate.query("SELECT new_cases FROM total_by_day ORDER BY date_by_day", (rs, i) -> (Integer) rs.getObject(1));
+    }
+}
@@ -0,0 +1,70 @@
+package fr.epsib3devc2.backend.services;
+
+import fr.epsib3devc2.backend.AbstractMariaDbTest;
+import fr.epsib3devc2.backend.config.IngestProperties;
+import fr.epsib3devc2.backend.dto.TotalByDayRow;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@JdbcTest
+@Import({TotalByDayBulkLoader.class, ShadowTableReload.class, PandemicIngestLocks.class, IngestProperties.class})
+class TotalByDayBulkLoaderTest extends AbstractMariaDbTest {
+
+    @Autowired
+    private TotalByDayBulkLoader totalByDayBulkLoader;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("INSERT INTO regions (id_regions, name) VALUES (20, 'China'), (21, 'Hong Kong SAR, China')");
+        jdbcTemplate.update("INSERT INTO pandemics (id_pandemics, name) VALUES (2, 'SARS')");
+        jdbcTemplate.update("INSERT INTO total_by_day (id_pandemics, id_regions, date_by_day, case_count, death, recovered) " +
+                "VALUES (2, 20, '2003-03-17', 10, 1, 0)");
+    }
+
+    @Test
+    void skipsExistingKeysInIgnoreMode() {
+        long affected = totalByDayBulkLoader.load(List.of(
+                new TotalByDayRow(2, 20, Date.valueOf("2003-03-17"), 99, 9, 9),
+                new TotalByDayRow(2, 20, Date.valueOf("2003-03-18"), 12, 1, 0),
+                new TotalByDayRow(2, 21, Date.valueOf("2003-03-17"), 4, 0, 0)), false);
+
+        // Le doublon n'est pas compté : l'appelant compare ce nombre aux lignes envoyées
+        assertEquals(2, affected);
+        assertEquals(List.of(10, 12, 4), caseCounts());
+    }
+
+    @Test
+    void replacesExistingKeysInReplaceMode() {
+        totalByDayBulkLoader.load(List.of(new TotalByDayRow(2, 20, Date.valueOf("2003-03-17"), 15, 2, 1)), true);
+
+        assertEquals(List.of(15), caseCounts());
+        assertEquals(1, jdbcTemplate.queryForObject("SELECT recovered FROM total_by_day", Integer.class));
+    }
+
+    @Test
+    void writesMissingDailyCountsAsNull() {
+        totalByDayBulkLoader.load(List.of(
+                new TotalByDayRow(2, 20, Date.valueOf("2003-03-18"), 12, 1, 0, 2, 0),
+                new TotalByDayRow(2, 21, Date.valueOf("2003-03-17"), 4, 0, 0)), false);
+
+        assertEquals(2, jdbcTemplate.queryForObject(
+                "SELECT new_cases FROM total_by_day WHERE id_regions = 20 AND date_by_day = '2003-03-18'", Integer.class));
+        assertNull(jdbcTemplate.queryForObject("SELECT new_cases FROM total_by_day WHERE id_regions = 21", Integer.class));
+    }
+
+    private List<Integer> caseCounts() {
+        return jdbcTemplate.queryForList("SELECT case_count FROM total_by_day ORDER BY id_regions, date_by_day", Integer.class);
+    }
+}